@@ -0,0 +1,114 @@
+package org.eclipse.hawk.duckdb.benchmarks.properties;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+import org.duckdb.DuckDBConnection;
+import org.eclipse.hawk.duckdb.benchmarks.Benchmark;
+
+/**
+ * Base class for the benchmarks of property table layouts. Each element gets the
+ * same properties, which cycle through long, int, double, string and boolean
+ * values. The timed part looks up random long properties, which is the most
+ * common kind of numeric read in Hawk queries.
+ */
+public abstract class AbstractPropertyBenchmark implements Benchmark {
+
+	protected static final int N_TYPES = 5;
+
+	protected final int nElements;
+	protected final int nPropertiesPerElement;
+	protected final int queryIterations;
+	protected Connection duckDB;
+
+	private long checksum;
+
+	public AbstractPropertyBenchmark(int nElements, int nPropertiesPerElement, int queryIterations) {
+		this.nElements = nElements;
+		this.nPropertiesPerElement = nPropertiesPerElement;
+		this.queryIterations = queryIterations;
+	}
+
+	protected abstract void createSchema(Statement stmt) throws SQLException;
+	protected abstract void loadData(DuckDBConnection conn) throws SQLException;
+	protected abstract PreparedStatement prepareLookup() throws SQLException;
+
+	/**
+	 * Looks up the property with the prepared statement, and returns its value.
+	 */
+	protected abstract long readLong(PreparedStatement lookup, long elemId, String name) throws SQLException;
+
+	@Override
+	public long run() throws Exception {
+		setupDatabase();
+
+		final long loadStart = System.currentTimeMillis();
+		loadData((DuckDBConnection) duckDB);
+		duckDB.commit();
+		final long loadEnd = System.currentTimeMillis();
+		System.out.println(String.format("Benchmark %s: loaded %d properties in %d ms",
+			this, nElements * nPropertiesPerElement, loadEnd - loadStart));
+
+		final Random rnd = new Random(42);
+		final long millisStart = System.currentTimeMillis();
+		try (PreparedStatement lookup = prepareLookup()) {
+			for (int i = 0; i < queryIterations; i++) {
+				final long elemId = rnd.nextInt(nElements);
+				final int iLongProperty = N_TYPES * rnd.nextInt(nPropertiesPerElement / N_TYPES);
+				checksum += readLong(lookup, elemId, propertyName(iLongProperty));
+			}
+		}
+		final long millisEnd = System.currentTimeMillis();
+
+		duckDB.close();
+		return millisEnd - millisStart;
+	}
+
+	/**
+	 * Returns the sum of all the values read, so they are not optimised away and
+	 * results can be compared across layouts.
+	 */
+	public long getChecksum() {
+		return checksum;
+	}
+
+	protected static String propertyName(int iProperty) {
+		return "p" + iProperty;
+	}
+
+	protected static Object propertyValue(long elemId, int iProperty) {
+		switch (iProperty % N_TYPES) {
+		case 0: return elemId * iProperty;
+		case 1: return (int) (elemId + iProperty);
+		case 2: return elemId / 3.0;
+		case 3: return "v" + elemId;
+		default: return elemId % 2 == 0;
+		}
+	}
+
+	protected void setupDatabase() throws IOException, ClassNotFoundException, SQLException {
+		File duckDBFile = File.createTempFile("duckbench", ".db");
+		duckDBFile.delete();
+		duckDBFile.deleteOnExit();
+
+		Class.forName("org.duckdb.DuckDBDriver");
+		this.duckDB = DriverManager.getConnection("jdbc:duckdb:" + duckDBFile.getPath());
+		duckDB.setAutoCommit(false);
+
+		try (Statement stmt = duckDB.createStatement()) {
+			createSchema(stmt);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName();
+	}
+
+}
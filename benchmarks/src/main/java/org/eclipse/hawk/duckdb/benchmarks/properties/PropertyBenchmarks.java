@@ -0,0 +1,34 @@
+package org.eclipse.hawk.duckdb.benchmarks.properties;
+
+/**
+ * Compares layouts for the properties table, by looking up numeric properties.
+ */
+public class PropertyBenchmarks {
+
+	public static void main(String[] args) throws Exception {
+		final int nElements = 50_000;
+		final int nPropertiesPerElement = 10;
+		final int nIterations = 5_000;
+
+		final AbstractPropertyBenchmark[] benchmarks = new AbstractPropertyBenchmark[] {
+			// Layout before type tags: reads up to seven columns per lookup
+			new WideLayoutBenchmark(nElements, nPropertiesPerElement, nIterations),
+
+			// Layout currently used by the backend, read generically
+			new TypeTagLayoutBenchmark(nElements, nPropertiesPerElement, nIterations),
+
+			// Layout currently used by the backend, read through the typed accessors
+			new TypeTagTypedReadBenchmark(nElements, nPropertiesPerElement, nIterations),
+
+			// Untyped lookups need to go through every table, and the values need a common type
+			new TablePerTypeBenchmark(nElements, nPropertiesPerElement, nIterations),
+		};
+
+		for (AbstractPropertyBenchmark bench : benchmarks) {
+			final long benchTime = bench.run();
+			System.out.println(String.format("Benchmark %s: ran %d lookups in %d ms over %d properties (checksum %d)",
+				bench, nIterations, benchTime, nElements * nPropertiesPerElement, bench.getChecksum()));
+		}
+	}
+
+}
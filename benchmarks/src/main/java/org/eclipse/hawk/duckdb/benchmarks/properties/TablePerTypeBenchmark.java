@@ -0,0 +1,97 @@
+package org.eclipse.hawk.duckdb.benchmarks.properties;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.duckdb.DuckDBAppender;
+import org.duckdb.DuckDBConnection;
+
+/**
+ * Alternative layout with one narrow table per value type. Lookups which do not
+ * know the type of the property need to check all the tables.
+ */
+public class TablePerTypeBenchmark extends AbstractPropertyBenchmark {
+
+	private static final String[] TYPES = { "BIGINT", "INTEGER", "DOUBLE", "VARCHAR", "BOOLEAN" };
+
+	public TablePerTypeBenchmark(int nElements, int nPropertiesPerElement, int queryIterations) {
+		super(nElements, nPropertiesPerElement, queryIterations);
+	}
+
+	@Override
+	protected void createSchema(Statement stmt) throws SQLException {
+		for (int i = 0; i < N_TYPES; i++) {
+			stmt.execute(String.format("CREATE TABLE properties_%d ("
+				+ "elem_id BIGINT NOT NULL,"
+				+ "name VARCHAR NOT NULL,"
+				+ "value %s NOT NULL,"
+				+ "PRIMARY KEY (elem_id, name)"
+				+ ");", i, TYPES[i]));
+		}
+	}
+
+	@Override
+	protected void loadData(DuckDBConnection conn) throws SQLException {
+		final DuckDBAppender[] appenders = new DuckDBAppender[N_TYPES];
+		try {
+			for (int i = 0; i < N_TYPES; i++) {
+				appenders[i] = conn.createAppender("main", "properties_" + i);
+			}
+
+			for (long elemId = 0; elemId < nElements; elemId++) {
+				for (int iProp = 0; iProp < nPropertiesPerElement; iProp++) {
+					final Object value = propertyValue(elemId, iProp);
+					final DuckDBAppender appender = appenders[iProp % N_TYPES];
+					appender.beginRow();
+					appender.append(elemId);
+					appender.append(propertyName(iProp));
+					if (value instanceof Boolean) {
+						appender.append((boolean) value);
+					} else if (value instanceof Long) {
+						appender.append((long) value);
+					} else if (value instanceof Integer) {
+						appender.append((int) value);
+					} else if (value instanceof Double) {
+						appender.append((double) value);
+					} else {
+						appender.append((String) value);
+					}
+					appender.endRow();
+				}
+			}
+		} finally {
+			for (DuckDBAppender appender : appenders) {
+				if (appender != null) {
+					appender.close();
+				}
+			}
+		}
+	}
+
+	@Override
+	protected PreparedStatement prepareLookup() throws SQLException {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < N_TYPES; i++) {
+			if (i > 0) {
+				sb.append(" UNION ALL ");
+			}
+			sb.append(String.format("SELECT %d, CAST(value AS VARCHAR) FROM properties_%d WHERE elem_id = $1 AND name = $2", i, i));
+		}
+		return duckDB.prepareStatement(sb.append(';').toString());
+	}
+
+	@Override
+	protected long readLong(PreparedStatement lookup, long elemId, String name) throws SQLException {
+		lookup.setLong(1, elemId);
+		lookup.setString(2, name);
+		try (ResultSet rs = lookup.executeQuery()) {
+			if (rs.next() && rs.getInt(1) <= 1) {
+				return Long.parseLong(rs.getString(2));
+			}
+		}
+		return 0;
+	}
+
+}
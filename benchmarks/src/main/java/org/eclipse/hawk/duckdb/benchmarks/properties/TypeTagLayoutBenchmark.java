@@ -0,0 +1,64 @@
+package org.eclipse.hawk.duckdb.benchmarks.properties;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.duckdb.DuckDBAppender;
+
+/**
+ * Wide layout with an extra column tagging the type of the value, so lookups
+ * only need to read the tag and the matching value column.
+ */
+public class TypeTagLayoutBenchmark extends WideLayoutBenchmark {
+
+	protected static final byte TAG_BOOLEAN = 1, TAG_LONG = 2, TAG_INT = 3, TAG_DOUBLE = 5, TAG_STRING = 6;
+
+	public TypeTagLayoutBenchmark(int nElements, int nPropertiesPerElement, int queryIterations) {
+		super(nElements, nPropertiesPerElement, queryIterations);
+	}
+
+	@Override
+	protected String extraColumns() {
+		return "value_type TINYINT,";
+	}
+
+	@Override
+	protected void appendExtraColumns(DuckDBAppender appender, Object value) throws SQLException {
+		if (value instanceof Boolean) {
+			appender.append(TAG_BOOLEAN);
+		} else if (value instanceof Long) {
+			appender.append(TAG_LONG);
+		} else if (value instanceof Integer) {
+			appender.append(TAG_INT);
+		} else if (value instanceof Double) {
+			appender.append(TAG_DOUBLE);
+		} else {
+			appender.append(TAG_STRING);
+		}
+	}
+
+	@Override
+	protected PreparedStatement prepareLookup() throws SQLException {
+		return duckDB.prepareStatement(String.format(
+			"SELECT value_type, %s FROM properties WHERE elem_id = ? AND name = ?;", VALUE_COLUMNS));
+	}
+
+	@Override
+	protected long readLong(PreparedStatement lookup, long elemId, String name) throws SQLException {
+		lookup.setLong(1, elemId);
+		lookup.setString(2, name);
+		try (ResultSet rs = lookup.executeQuery()) {
+			if (rs.next()) {
+				// Same column order as the original layout, shifted by the tag
+				switch (rs.getByte(1)) {
+				case TAG_LONG: return ((Number) rs.getObject(3)).longValue();
+				case TAG_INT: return ((Number) rs.getObject(4)).longValue();
+				default: return 0;
+				}
+			}
+		}
+		return 0;
+	}
+
+}
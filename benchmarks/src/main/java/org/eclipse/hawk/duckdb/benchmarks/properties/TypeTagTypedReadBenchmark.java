@@ -0,0 +1,33 @@
+package org.eclipse.hawk.duckdb.benchmarks.properties;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Type tag layout, where lookups select the matching value column in SQL and
+ * read it as a primitive without boxing, as the typed property accessors do.
+ */
+public class TypeTagTypedReadBenchmark extends TypeTagLayoutBenchmark {
+
+	public TypeTagTypedReadBenchmark(int nElements, int nPropertiesPerElement, int queryIterations) {
+		super(nElements, nPropertiesPerElement, queryIterations);
+	}
+
+	@Override
+	protected PreparedStatement prepareLookup() throws SQLException {
+		return duckDB.prepareStatement(String.format(
+			"SELECT CASE value_type WHEN %d THEN value_long WHEN %d THEN value_int END"
+			+ " FROM properties WHERE elem_id = ? AND name = ?;", TAG_LONG, TAG_INT));
+	}
+
+	@Override
+	protected long readLong(PreparedStatement lookup, long elemId, String name) throws SQLException {
+		lookup.setLong(1, elemId);
+		lookup.setString(2, name);
+		try (ResultSet rs = lookup.executeQuery()) {
+			return rs.next() ? rs.getLong(1) : 0;
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+package org.eclipse.hawk.duckdb.benchmarks.properties;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.duckdb.DuckDBAppender;
+import org.duckdb.DuckDBConnection;
+
+/**
+ * Original layout: one table with a column per value type, where lookups read
+ * every value column until they find the one which is not NULL.
+ */
+public class WideLayoutBenchmark extends AbstractPropertyBenchmark {
+
+	protected static final String VALUE_COLUMNS =
+		"value_boolean, value_long, value_int, value_float, value_double, value_string, value_blob";
+
+	public WideLayoutBenchmark(int nElements, int nPropertiesPerElement, int queryIterations) {
+		super(nElements, nPropertiesPerElement, queryIterations);
+	}
+
+	@Override
+	protected void createSchema(Statement stmt) throws SQLException {
+		stmt.execute("CREATE TABLE properties ("
+			+ "elem_id BIGINT NOT NULL,"
+			+ "name VARCHAR NOT NULL,"
+			+ "value_boolean BOOLEAN,"
+			+ "value_long BIGINT,"
+			+ "value_int INTEGER,"
+			+ "value_float FLOAT,"
+			+ "value_double DOUBLE,"
+			+ "value_string VARCHAR,"
+			+ "value_blob BLOB,"
+			+ extraColumns()
+			+ "PRIMARY KEY (elem_id, name)"
+			+ ");");
+		stmt.execute("CREATE INDEX properties_elemid ON properties (elem_id);");
+	}
+
+	protected String extraColumns() {
+		return "";
+	}
+
+	@Override
+	protected void loadData(DuckDBConnection conn) throws SQLException {
+		try (DuckDBAppender appender = conn.createAppender("main", "properties")) {
+			for (long elemId = 0; elemId < nElements; elemId++) {
+				for (int iProp = 0; iProp < nPropertiesPerElement; iProp++) {
+					final Object value = propertyValue(elemId, iProp);
+					appender.beginRow();
+					appender.append(elemId);
+					appender.append(propertyName(iProp));
+					appendValueColumns(appender, value);
+					appendExtraColumns(appender, value);
+					appender.endRow();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Appends the value columns, in the same order as {@link #VALUE_COLUMNS}.
+	 * The appender takes a null String as a NULL for any column type.
+	 */
+	protected static void appendValueColumns(DuckDBAppender appender, Object value) throws SQLException {
+		if (value instanceof Boolean) {
+			appender.append((boolean) value);
+		} else {
+			appender.append((String) null);
+		}
+		if (value instanceof Long) {
+			appender.append((long) value);
+		} else {
+			appender.append((String) null);
+		}
+		if (value instanceof Integer) {
+			appender.append((int) value);
+		} else {
+			appender.append((String) null);
+		}
+		appender.append((String) null);
+		if (value instanceof Double) {
+			appender.append((double) value);
+		} else {
+			appender.append((String) null);
+		}
+		appender.append(value instanceof String ? (String) value : null);
+		appender.append((String) null);
+	}
+
+	protected void appendExtraColumns(DuckDBAppender appender, Object value) throws SQLException {
+		// nothing to do
+	}
+
+	@Override
+	protected PreparedStatement prepareLookup() throws SQLException {
+		return duckDB.prepareStatement(String.format(
+			"SELECT %s FROM properties WHERE elem_id = ? AND name = ?;", VALUE_COLUMNS));
+	}
+
+	@Override
+	protected long readLong(PreparedStatement lookup, long elemId, String name) throws SQLException {
+		lookup.setLong(1, elemId);
+		lookup.setString(2, name);
+		try (ResultSet rs = lookup.executeQuery()) {
+			if (rs.next()) {
+				for (int i = 1; i <= 7; i++) {
+					final Object value = rs.getObject(i);
+					if (value != null) {
+						return ((Number) value).longValue();
+					}
+				}
+			}
+		}
+		return 0;
+	}
+
+}
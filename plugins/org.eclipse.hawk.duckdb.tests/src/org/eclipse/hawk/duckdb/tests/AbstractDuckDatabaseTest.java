@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import org.eclipse.hawk.core.util.DefaultConsole;
+import org.eclipse.hawk.duckdb.DuckDatabase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Base class for tests which need a running database in a temporary folder. The
+ * database is started before each test and deleted after it.
+ */
+public abstract class AbstractDuckDatabaseTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	protected DuckDatabase db;
+
+	@Before
+	public void startDatabase() throws Exception {
+		db = createDatabase();
+		db.run(folder.getRoot(), new DefaultConsole());
+	}
+
+	@After
+	public void deleteDatabase() throws Exception {
+		db.delete();
+	}
+
+	/**
+	 * Creates the database before it is started. Subclasses can override this to
+	 * change settings which must be set before startup.
+	 */
+	protected DuckDatabase createDatabase() throws Exception {
+		return new DuckDatabase();
+	}
+
+	/**
+	 * Shuts down the database and starts a new instance on the same folder.
+	 */
+	protected void restart() throws Exception {
+		db.shutdown();
+		db = createDatabase();
+		db.run(folder.getRoot(), new DefaultConsole());
+	}
+
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache;
+import org.eclipse.hawk.duckdb.DuckNode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for keeping the cached edges of nodes in line with the changes to the graph.
+ */
+public class DuckAdjacencyCacheTest extends AbstractDuckDatabaseTest {
+
+	private long hubId;
+	private final List<Long> leafIds = new ArrayList<>();
+
+	@Before
+	public void setup() throws Exception {
+		db.setAdjacencyCacheSize(1 << 20);
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode hub = db.createNode(null, "Hub");
+			for (int i = 0; i < 3; i++) {
+				final IGraphNode leaf = db.createNode(null, "Leaf");
+				db.createRelationship(hub, leaf, "child");
+				leafIds.add((long) leaf.getId());
+			}
+			hubId = (long) hub.getId();
+			tx.success();
+		}
+	}
+
+	@Test
+	public void fillCache() {
+		assertEquals(leafIds, children());
+		assertEquals(1, cache().size());
+		assertEquals(0, cache().getStats().hitCount());
+
+		assertEquals(leafIds, children());
+		assertEquals(1, cache().getStats().hitCount());
+
+		// Edges of any type and incoming edges are cached separately
+		assertEquals(3, count(db.getNodeById(hubId).getOutgoing()));
+		assertEquals(Collections.singletonList(hubId), parents(leafIds.get(0)));
+		assertEquals(3, cache().size());
+		assertEquals(3, ((DuckNode) db.getNodeById(hubId)).getOutDegree("child"));
+	}
+
+	@Test
+	public void createAndDeleteEdges() throws Exception {
+		assertEquals(leafIds, children());
+		assertEquals(Collections.singletonList(hubId), parents(leafIds.get(0)));
+
+		final long newLeafId;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode leaf = db.createNode(null, "Leaf");
+			db.createRelationship(db.getNodeById(hubId), leaf, "child");
+			newLeafId = (long) leaf.getId();
+
+			db.getNodeById(leafIds.get(0)).getIncomingWithType("child").iterator().next().delete();
+			tx.success();
+		}
+
+		assertEquals(Arrays.asList(leafIds.get(1), leafIds.get(2), newLeafId), children());
+		assertEquals(Collections.emptyList(), parents(leafIds.get(0)));
+		assertEquals(Collections.singletonList(hubId), parents(newLeafId));
+	}
+
+	@Test
+	public void deleteNodes() throws Exception {
+		assertEquals(leafIds, children());
+		assertEquals(Collections.singletonList(hubId), parents(leafIds.get(2)));
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.getNodeById(leafIds.get(0)).delete();
+			db.deleteNodes(Collections.singletonList(leafIds.get(1)));
+			tx.success();
+		}
+		assertEquals(Collections.singletonList(leafIds.get(2)), children());
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.deleteNodes(Collections.singletonList(hubId));
+			tx.success();
+		}
+		assertEquals(Collections.emptyList(), parents(leafIds.get(2)));
+	}
+
+	@Test
+	public void rollback() throws Exception {
+		assertEquals(leafIds, children());
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.createRelationship(db.getNodeById(hubId), db.createNode(null, "Leaf"), "child");
+			db.getNodeById(leafIds.get(0)).delete();
+
+			// The cache is filled again with the uncommitted edges
+			assertEquals(3, children().size());
+			tx.failure();
+		}
+
+		assertEquals(leafIds, children());
+		assertEquals(Collections.singletonList(hubId), parents(leafIds.get(0)));
+		assertEquals(3, ((DuckNode) db.getNodeById(hubId)).getOutDegree("child"));
+	}
+
+	private DuckAdjacencyCache cache() {
+		return db.getAdjacencyCache();
+	}
+
+	private List<Long> children() {
+		final List<Long> ids = new ArrayList<>();
+		for (IGraphEdge edge : db.getNodeById(hubId).getOutgoingWithType("child")) {
+			ids.add((long) edge.getEndNode().getId());
+		}
+		return ids;
+	}
+
+	private List<Long> parents(long leafId) {
+		final List<Long> ids = new ArrayList<>();
+		for (IGraphEdge edge : db.getNodeById(leafId).getIncomingWithType("child")) {
+			ids.add((long) edge.getStartNode().getId());
+		}
+		return ids;
+	}
+
+	private int count(Iterable<?> it) {
+		int count = 0;
+		for (@SuppressWarnings("unused") Object o : it) {
+			count++;
+		}
+		return count;
+	}
+
+}
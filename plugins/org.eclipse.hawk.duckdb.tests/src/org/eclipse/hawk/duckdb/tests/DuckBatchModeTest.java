@@ -0,0 +1,84 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckNode;
+import org.eclipse.hawk.duckdb.DuckTransaction;
+import org.junit.Test;
+
+/**
+ * Tests for leaving batch mode.
+ */
+public class DuckBatchModeTest extends AbstractDuckDatabaseTest {
+
+	private static final int CHILDREN = 100;
+
+	@Test
+	public void exitRunsCommitListeners() throws Exception {
+		final DuckTransaction tx = (DuckTransaction) db.beginTransaction();
+		tx.success();
+
+		final int[] commits = { 0 };
+		final DuckTransaction.Listener listener = new DuckTransaction.Listener() {
+			@Override
+			public void afterCommit() {
+				commits[0]++;
+			}
+		};
+		tx.addListener(listener);
+		try {
+			db.enterBatchMode();
+			createHub();
+			db.exitBatchMode();
+		} finally {
+			tx.removeListener(listener);
+		}
+
+		assertEquals(1, commits[0]);
+		assertEquals(CHILDREN, db.allNodes("Child").size());
+	}
+
+	@Test
+	public void laterRollbackKeepsCachedDegrees() throws Exception {
+		db.setDegreeCacheSize(1_000);
+		db.enterBatchMode();
+		final long hubId = createHub();
+		db.exitBatchMode();
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			assertEquals(CHILDREN, ((DuckNode) db.getNodeById(hubId)).getOutDegree());
+			assertEquals(1, db.getDegreeCache().size());
+			tx.failure();
+		}
+
+		// The edges created in batch mode were committed, so their counts are still valid
+		assertEquals(1, db.getDegreeCache().size());
+		assertEquals(CHILDREN, ((DuckNode) db.getNodeById(hubId)).getOutDegree());
+	}
+
+	private long createHub() {
+		final IGraphNode hub = db.createNode(Collections.singletonMap("name", "hub"), "Hub");
+		for (int i = 0; i < CHILDREN; i++) {
+			db.createRelationship(hub, db.createNode(Collections.singletonMap("i", i), "Child"), "child");
+		}
+		return (long) hub.getId();
+	}
+
+}
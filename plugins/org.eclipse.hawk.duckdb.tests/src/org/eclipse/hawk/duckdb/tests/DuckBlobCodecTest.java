@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.eclipse.hawk.duckdb.DuckBlobCodec;
+import org.junit.Test;
+
+/**
+ * Round-trip tests for the encoding of BLOB property values.
+ */
+public class DuckBlobCodecTest {
+
+	@Test
+	public void primitiveArrays() throws Exception {
+		assertArrayEquals(new boolean[] { true, false }, (boolean[]) roundTrip(new boolean[] { true, false }));
+		assertArrayEquals(new byte[] { 1, -2 }, (byte[]) roundTrip(new byte[] { 1, -2 }));
+		assertArrayEquals(new short[] { 3, -4 }, (short[]) roundTrip(new short[] { 3, -4 }));
+		assertArrayEquals(new int[] { 5, Integer.MIN_VALUE }, (int[]) roundTrip(new int[] { 5, Integer.MIN_VALUE }));
+		assertArrayEquals(new long[] { 6, Long.MAX_VALUE }, (long[]) roundTrip(new long[] { 6, Long.MAX_VALUE }));
+		assertArrayEquals(new float[] { 7.5f }, (float[]) roundTrip(new float[] { 7.5f }), 0);
+		assertArrayEquals(new double[] { 8.25, Double.NaN }, (double[]) roundTrip(new double[] { 8.25, Double.NaN }), 0);
+		assertArrayEquals(new char[] { 'a', 'é' }, (char[]) roundTrip(new char[] { 'a', 'é' }));
+		assertArrayEquals(new String[] { "x", null, "" }, (String[]) roundTrip(new String[] { "x", null, "" }));
+	}
+
+	@Test
+	public void generalPurposeCollections() throws Exception {
+		final List<Object> list = new ArrayList<>(Arrays.asList(1, 2L, 3.5, "four", null, true, 'c', (short) 5, (byte) 6, 7f));
+		assertEquals(list, roundTrip(list));
+		assertEquals(list, roundTrip(new LinkedList<>(list)));
+
+		final LinkedHashSet<Object> set = new LinkedHashSet<>(Arrays.asList("b", "a", 1));
+		assertEquals(new ArrayList<>(set), new ArrayList<>((LinkedHashSet<?>) roundTrip(set)));
+		assertEquals(new HashSet<>(set), roundTrip(new HashSet<>(set)));
+	}
+
+	@Test
+	public void otherCollectionsKeepTheirClass() throws Exception {
+		final TreeSet<String> sorted = new TreeSet<>(Collections.reverseOrder());
+		sorted.addAll(Arrays.asList("a", "c", "b"));
+		final Object decoded = roundTrip(sorted);
+		assertSame(TreeSet.class, decoded.getClass());
+		assertEquals(Arrays.asList("c", "b", "a"), new ArrayList<>((TreeSet<?>) decoded));
+
+		final List<Integer> fixed = Arrays.asList(1, 2, 3);
+		assertSame(fixed.getClass(), roundTrip(fixed).getClass());
+		assertEquals(fixed, roundTrip(fixed));
+	}
+
+	@Test
+	public void unsupportedElementsAreSerialized() throws Exception {
+		final List<Object> list = new ArrayList<>(Arrays.asList("a", new Date(0), Arrays.asList(1, 2)));
+		assertEquals(list, roundTrip(list));
+	}
+
+	@Test
+	public void serializableObjects() throws Exception {
+		assertEquals(new Date(12345), roundTrip(new Date(12345)));
+	}
+
+	private static Object roundTrip(Object value) throws Exception {
+		return DuckBlobCodec.decode(DuckBlobCodec.encode(value));
+	}
+
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for migrating the BLOB values stored by older versions of the backend.
+ */
+public class DuckBlobMigrationTest extends AbstractDuckDatabaseTest {
+
+	private long nodeId;
+
+	@Before
+	public void setup() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			IGraphNode node = db.createNode(null, "Node");
+			node.setProperty("legacy", "placeholder");
+			node.setProperty("broken", "placeholder");
+			nodeId = (long) node.getId();
+			tx.success();
+		}
+
+		// Older versions stored the hex digits of the Java serialization after its first byte
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(new ArrayList<>(Arrays.asList(1, 2, 3)));
+		}
+		final StringBuilder hex = new StringBuilder("\\x");
+		for (byte b : bos.toByteArray()) {
+			hex.append(String.format("%02X", b));
+		}
+		setRawBlob("legacy", hex.toString());
+		setRawBlob("broken", "\\xACnot hex");
+	}
+
+	@Test
+	public void migrateOnce() throws Exception {
+		assertEquals(1, db.migrateLegacyBlobs());
+		assertEquals(Arrays.asList(1, 2, 3), db.getNodeById(nodeId).getProperty("legacy"));
+		assertEquals(1, countQuarantined());
+
+		// Undecodable values stay where they were, and are only quarantined once
+		assertEquals(0, db.migrateLegacyBlobs());
+		assertEquals(1, countQuarantined());
+	}
+
+	@Test
+	public void startupSkipsCompletedMigration() throws Exception {
+		// The database was created by this version, so its values do not need migrating
+		restart();
+		assertTrue(isLegacyBlob("legacy"));
+
+		// A database from an older version has no record of the migration
+		try (Statement stmt = connection().createStatement()) {
+			stmt.execute("DELETE FROM migrations;");
+		}
+		connection().commit();
+		restart();
+		assertEquals(Arrays.asList(1, 2, 3), db.getNodeById(nodeId).getProperty("legacy"));
+		assertEquals(1, countQuarantined());
+	}
+
+	private Connection connection() {
+		return (Connection) db.getGraph();
+	}
+
+	private void setRawBlob(String name, String value) throws Exception {
+		try (PreparedStatement stmt = connection().prepareStatement(
+				"UPDATE properties SET value_string = NULL, value_type = 7, value_blob = ?::BLOB"
+				+ " WHERE elem_id = ? AND name_id = (SELECT id FROM property_names WHERE name = ?);")) {
+			stmt.setString(1, value);
+			stmt.setLong(2, nodeId);
+			stmt.setString(3, name);
+			stmt.execute();
+		}
+		connection().commit();
+	}
+
+	private boolean isLegacyBlob(String name) throws Exception {
+		try (PreparedStatement stmt = connection().prepareStatement(
+				"SELECT value_blob >= '\\xAC'::BLOB AND value_blob < '\\xAD'::BLOB FROM properties"
+				+ " WHERE elem_id = ? AND name_id = (SELECT id FROM property_names WHERE name = ?);")) {
+			stmt.setLong(1, nodeId);
+			stmt.setString(2, name);
+			try (ResultSet rs = stmt.executeQuery()) {
+				rs.next();
+				return rs.getBoolean(1);
+			}
+		}
+	}
+
+	private int countQuarantined() throws Exception {
+		try (Statement stmt = connection().createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM blob_quarantine;")) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckDatabase.EdgeSpec;
+import org.eclipse.hawk.duckdb.DuckDatabase.NodeSpec;
+import org.eclipse.hawk.duckdb.DuckNode;
+import org.junit.Test;
+
+/**
+ * Tests for creating several nodes and edges at once.
+ */
+public class DuckBulkCreationTest extends AbstractDuckDatabaseTest {
+
+	@Test
+	public void createNodes() throws Exception {
+		final List<NodeSpec> specs = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			final Map<String, Object> props = new HashMap<>();
+			props.put("i", i);
+			props.put("values", new int[] { i, i + 1 });
+			specs.add(new NodeSpec(i % 2 == 0 ? "Even" : "Odd", props));
+		}
+
+		final List<IGraphNode> nodes;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			nodes = db.createNodes(specs);
+			tx.success();
+		}
+
+		assertEquals(specs.size(), nodes.size());
+		for (int i = 0; i < nodes.size(); i++) {
+			final IGraphNode node = db.getNodeById(nodes.get(i).getId());
+			assertEquals(i, node.getProperty("i"));
+			assertArrayEquals(new int[] { i, i + 1 }, (int[]) node.getProperty("values"));
+		}
+		assertEquals(50, db.allNodes("Even").size());
+		assertEquals(50, db.allNodes("Odd").size());
+	}
+
+	@Test
+	public void createRelationshipsReusesExistingEdges() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode hub = db.createNode(null, "Hub");
+			final List<IGraphNode> leaves = db.createNodes(Collections.nCopies(10, new NodeSpec("Leaf", null)));
+			final IGraphEdge existing = db.createRelationship(hub, leaves.get(0), "link");
+
+			final List<EdgeSpec> specs = new ArrayList<>();
+			for (IGraphNode leaf : leaves) {
+				specs.add(new EdgeSpec(hub, leaf, "link", Collections.singletonMap("w", leaf.getId())));
+			}
+			final List<IGraphEdge> edges = db.createRelationships(specs);
+
+			assertEquals(leaves.size(), edges.size());
+			assertEquals(existing.getId(), edges.get(0).getId());
+			for (int i = 0; i < edges.size(); i++) {
+				assertEquals(leaves.get(i).getId(), edges.get(i).getEndNode().getId());
+				assertEquals(leaves.get(i).getId(), edges.get(i).getProperty("w"));
+			}
+			assertEquals(leaves.size(), ((DuckNode) hub).getOutDegree("link"));
+			tx.success();
+		}
+	}
+
+	@Test
+	public void createRelationshipsSeveralTimes() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final List<IGraphNode> nodes = db.createNodes(Collections.nCopies(20, new NodeSpec("Node", null)));
+			for (int round = 0; round < 3; round++) {
+				final List<EdgeSpec> specs = new ArrayList<>();
+				for (int i = round; i < nodes.size(); i += 3) {
+					specs.add(new EdgeSpec(nodes.get(i), nodes.get((i + 1) % nodes.size()), "next", null));
+				}
+
+				final List<IGraphEdge> edges = db.createRelationships(specs);
+				assertEquals(specs.size(), edges.size());
+				for (int i = 0; i < specs.size(); i++) {
+					assertEquals(specs.get(i).getStart().getId(), edges.get(i).getStartNode().getId());
+					assertEquals(specs.get(i).getEnd().getId(), edges.get(i).getEndNode().getId());
+				}
+			}
+			tx.success();
+		}
+
+		int edges = 0;
+		for (IGraphNode node : db.allNodes("Node")) {
+			edges += ((DuckNode) node).getOutDegree();
+		}
+		assertEquals(20, edges);
+	}
+
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.duckdb.DuckDatabase;
+import org.eclipse.hawk.duckdb.DuckDatabase.BatchLoader;
+import org.eclipse.hawk.duckdb.DuckNode;
+import org.junit.Test;
+
+/**
+ * Tests for loading the rows created in batch mode through CSV staging files.
+ */
+public class DuckCSVBatchTest extends AbstractDuckDatabaseTest {
+
+	private static final int CHILDREN = 500;
+
+	@Override
+	protected DuckDatabase createDatabase() throws Exception {
+		final DuckDatabase database = super.createDatabase();
+		database.setBatchLoader(BatchLoader.COPY_CSV);
+		return database;
+	}
+
+	@Test
+	public void nodesAndEdges() throws Exception {
+		db.enterBatchMode();
+		final IGraphNode hub = db.createNode(Collections.singletonMap("name", "hub"), "Hub");
+		for (int i = 0; i < CHILDREN; i++) {
+			final IGraphNode child = db.createNode(Collections.singletonMap("i", i), "Child");
+			db.createRelationship(hub, child, "child", Collections.singletonMap("w", i * 2L));
+		}
+		db.exitBatchMode();
+
+		assertEquals(CHILDREN, db.allNodes("Child").size());
+		assertEquals(CHILDREN, ((DuckNode) db.getNodeById(hub.getId())).getOutDegree("child"));
+
+		long sum = 0;
+		for (IGraphEdge edge : db.getNodeById(hub.getId()).getOutgoingWithType("child")) {
+			final int i = (Integer) edge.getEndNode().getProperty("i");
+			assertEquals(i * 2L, edge.getProperty("w"));
+			sum += i;
+		}
+		assertEquals(CHILDREN * (CHILDREN - 1) / 2, sum);
+	}
+
+	@Test
+	public void valuesNeedingEscapes() throws Exception {
+		final Map<String, Object> props = new HashMap<>();
+		props.put("text", "a|b,c \"q\" \\ é\nx\r\n中");
+		props.put("empty", "");
+		props.put("nullMarker", "\\N");
+		props.put("nan", Double.NaN);
+		props.put("negInfinity", Float.NEGATIVE_INFINITY);
+		props.put("minLong", Long.MIN_VALUE);
+		props.put("negative", -42);
+		props.put("flag", true);
+
+		db.enterBatchMode();
+		final IGraphNode node = db.createNode(props, "Node");
+		node.setProperty("list", new int[] { 1, 2, 3 });
+		db.exitBatchMode();
+
+		final IGraphNode loaded = db.getNodeById(node.getId());
+		for (Entry<String, Object> entry : props.entrySet()) {
+			assertEquals(entry.getKey(), entry.getValue(), loaded.getProperty(entry.getKey()));
+		}
+		assertArrayEquals(new int[] { 1, 2, 3 }, (int[]) loaded.getProperty("list"));
+	}
+
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckClosureTable;
+import org.eclipse.hawk.duckdb.DuckDatabase;
+import org.junit.Test;
+
+/**
+ * Tests for the transitive closure of the containment edges.
+ */
+public class DuckClosureTableTest extends AbstractDuckDatabaseTest {
+
+	private static final String CONTAINS = "contains";
+
+	@Override
+	protected DuckDatabase createDatabase() throws Exception {
+		final DuckDatabase database = super.createDatabase();
+		database.setClosureLabels(Collections.singleton(CONTAINS));
+		return database;
+	}
+
+	@Test
+	public void tree() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final long root = node(), a = node(), b = node(), c = node();
+			contain(root, a);
+			contain(a, b);
+			contain(root, c);
+			db.createRelationship(db.getNodeById(b), db.getNodeById(c), "ref");
+
+			assertTrue(closure().isIncremental());
+			assertEquals(Arrays.asList(a, b, c), descendants(root));
+			assertEquals(Arrays.asList(root, a), ancestors(b));
+			assertEquals(Collections.emptyList(), descendants(c));
+			tx.success();
+		}
+	}
+
+	@Test
+	public void deleteEdgesAndNodes() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final long root = node(), a = node(), b = node(), c = node();
+			final IGraphEdge rootA = contain(root, a);
+			contain(a, b);
+			contain(b, c);
+
+			rootA.delete();
+			assertEquals(Collections.emptyList(), descendants(root));
+			assertEquals(Arrays.asList(a, b), ancestors(c));
+
+			db.getNodeById(b).delete();
+			assertEquals(Collections.emptyList(), descendants(a));
+			assertEquals(Collections.emptyList(), ancestors(c));
+			tx.success();
+		}
+	}
+
+	@Test
+	public void secondParentDoesNotDuplicatePaths() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final long p1 = node(), p2 = node(), child = node(), grandchild = node();
+			contain(p1, child);
+			contain(child, grandchild);
+			final IGraphEdge second = contain(p2, child);
+			assertFalse(closure().isIncremental());
+			assertEquals(Arrays.asList(p1, p2, child), ancestors(grandchild));
+			assertEquals(Arrays.asList(child, grandchild), descendants(p2));
+
+			// Changes are not incremental while there is a second parent
+			contain(grandchild, node());
+			assertFalse(closure().isIncremental());
+			assertEquals(3, descendants(p1).size());
+
+			// Removing it turns the edges back into a forest
+			second.delete();
+			assertEquals(Arrays.asList(p1, child), ancestors(grandchild));
+			assertTrue(closure().isIncremental());
+			tx.success();
+		}
+	}
+
+	@Test
+	public void cycle() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final long a = node(), b = node(), c = node();
+			contain(a, b);
+			contain(b, c);
+			contain(c, a);
+			assertEquals(Arrays.asList(a, b, c), ancestors(a));
+			assertEquals(Arrays.asList(a, b, c), descendants(b));
+			tx.success();
+		}
+	}
+
+	@Test
+	public void committedClosureIsUpToDate() throws Exception {
+		final long p1, p2, child;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			p1 = node();
+			p2 = node();
+			child = node();
+			contain(p1, child);
+			contain(p2, child);
+			tx.success();
+		}
+
+		restart();
+		assertFalse(closure().isIncremental());
+		assertEquals(Arrays.asList(p1, p2), ancestors(child));
+	}
+
+	private DuckClosureTable closure() {
+		return db.getClosureTable();
+	}
+
+	private long node() {
+		return (long) db.createNode(null, "Node").getId();
+	}
+
+	private IGraphEdge contain(long parent, long child) {
+		final IGraphNode from = db.getNodeById(parent);
+		final IGraphNode to = db.getNodeById(child);
+		return db.createRelationship(from, to, CONTAINS);
+	}
+
+	private List<Long> ancestors(long nodeId) throws Exception {
+		return closure().getAncestors(nodeId).boxed().collect(Collectors.toList());
+	}
+
+	private List<Long> descendants(long nodeId) throws Exception {
+		return closure().getDescendants(nodeId).boxed().collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Direction;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for querying the graph from several threads through the primary
+ * connection, without read connections or caches.
+ */
+public class DuckConcurrentQueriesTest extends AbstractDuckDatabaseTest {
+
+	private static final int THREADS = 4;
+	private static final int NODES = 300;
+
+	private List<Long> nodeIds = new ArrayList<>();
+
+	@Before
+	public void setup() throws Exception {
+		db.setMaxReadConnections(0);
+		db.setPropertyCacheSize(0);
+		db.setAdjacencyCacheSize(0);
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			IGraphNode previous = null;
+			for (int i = 0; i < NODES; i++) {
+				IGraphNode node = db.createNode(Collections.singletonMap("i", i), "Item");
+				if (previous != null) {
+					db.createRelationship(previous, node, "next");
+				}
+				nodeIds.add((long) node.getId());
+				previous = node;
+			}
+			tx.success();
+		}
+	}
+
+	@Test
+	public void concurrentGetProperty() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				results.add(executor.submit(() -> {
+					int wrong = 0;
+					for (int round = 0; round < 5; round++) {
+						for (int i = 0; i < NODES; i++) {
+							if (!Integer.valueOf(i).equals(db.getNodeById(nodeIds.get(i)).getProperty("i"))) {
+								wrong++;
+							}
+						}
+					}
+					return wrong;
+				}));
+			}
+
+			for (Future<Integer> result : results) {
+				assertEquals(0, (int) result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void concurrentTraversals() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<Long>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				results.add(executor.submit(() -> {
+					long reached = 0;
+					for (int round = 0; round < 10; round++) {
+						reached += db.traverse(Collections.singletonList(nodeIds.get(0)), null, Direction.OUTGOING, 10, null).count();
+						reached += db.getEdges(nodeIds, null, "next").get(nodeIds.get(1)).size();
+					}
+					return reached;
+				}));
+			}
+
+			for (Future<Long> result : results) {
+				assertEquals(10 * (10 + 2), (long) result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
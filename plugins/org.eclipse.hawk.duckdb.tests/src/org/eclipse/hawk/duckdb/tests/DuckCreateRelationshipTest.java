@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Collections;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckEdgeKeyFilter;
+import org.eclipse.hawk.duckdb.DuckNode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for creating edges which may already exist.
+ */
+public class DuckCreateRelationshipTest extends AbstractDuckDatabaseTest {
+
+	private DuckNode a, b;
+
+	@Before
+	public void setup() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			a = (DuckNode) db.createNode(null, "Node");
+			b = (DuckNode) db.createNode(null, "Node");
+			tx.success();
+		}
+	}
+
+	@Test
+	public void recentEdgesAreLookedUpFirst() throws Exception {
+		assertEquals(DuckEdgeKeyFilter.DEFAULT_CAPACITY, db.getRecentEdgeFilterCapacity());
+		assertSameEdgeTwice();
+	}
+
+	@Test
+	public void withoutFilter() throws Exception {
+		db.setRecentEdgeFilterCapacity(0);
+		assertEquals(0, db.getRecentEdgeFilterCapacity());
+		assertSameEdgeTwice();
+	}
+
+	@Test
+	public void existingEdgeMissingFromFilter() throws Exception {
+		final Object id;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			id = db.createRelationship(a, b, "next").getId();
+			tx.success();
+		}
+
+		// A new filter has not seen the edge, so nothing is inserted and the edge is looked up
+		db.setRecentEdgeFilterCapacity(100);
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			assertEquals(id, db.createRelationship(a, b, "next").getId());
+
+			// Now the filter has seen it, so it is looked up first
+			assertEquals(id, db.createRelationship(a, b, "next").getId());
+			tx.success();
+		}
+		assertEquals(1, a.getOutDegree("next"));
+	}
+
+	private void assertSameEdgeTwice() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphEdge first = db.createRelationship(a, b, "next");
+			final IGraphEdge second = db.createRelationship(a, b, "next", Collections.singletonMap("w", 2));
+			assertEquals(first.getId(), second.getId());
+
+			// Other labels and directions are different edges
+			final IGraphEdge other = db.createRelationship(a, b, "other");
+			final IGraphEdge reverse = db.createRelationship(b, a, "next");
+			assertNotEquals(first.getId(), other.getId());
+			assertNotEquals(first.getId(), reverse.getId());
+			tx.success();
+		}
+
+		assertEquals(1, a.getOutDegree("next"));
+		assertEquals(2, a.getOutDegree());
+		final IGraphEdge edge = a.getOutgoingWithType("next").iterator().next();
+		assertEquals(2, edge.getProperty("w"));
+		assertEquals(b.getId(), edge.getEndNode().getId());
+	}
+
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Direction;
+import org.eclipse.hawk.duckdb.DuckDegreeCache;
+import org.eclipse.hawk.duckdb.DuckNode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for counting the edges of nodes without reading them.
+ */
+public class DuckDegreesTest extends AbstractDuckDatabaseTest {
+
+	/** Enough edges for the degree to be cached. */
+	private static final int MANY = DuckDegreeCache.MIN_CACHED_DEGREE + 6;
+
+	private long hubId, leafId, lonelyId;
+
+	@Before
+	public void setup() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode hub = db.createNode(null, "Hub");
+			final IGraphNode leaf = db.createNode(null, "Leaf");
+			for (int i = 0; i < MANY; i++) {
+				db.createRelationship(hub, db.createNode(null, "Leaf"), "a");
+			}
+			for (int i = 0; i < 3; i++) {
+				db.createRelationship(hub, db.createNode(null, "Leaf"), "b");
+			}
+			db.createRelationship(leaf, hub, "c");
+			db.createRelationship(hub, leaf, "c");
+
+			hubId = (long) hub.getId();
+			leafId = (long) leaf.getId();
+			lonelyId = (long) db.createNode(null, "Leaf").getId();
+			tx.success();
+		}
+	}
+
+	@Test
+	public void nodeDegrees() {
+		final DuckNode hub = (DuckNode) db.getNodeById(hubId);
+		assertEquals(MANY + 4, hub.getOutDegree());
+		assertEquals(MANY, hub.getOutDegree("a"));
+		assertEquals(1, hub.getInDegree());
+		assertEquals(1, hub.getInDegree("c"));
+		assertEquals(2, hub.getDegree(null, "c"));
+		assertEquals(0, hub.getOutDegree("missing"));
+		assertEquals(0, ((DuckNode) db.getNodeById(lonelyId)).getDegree(null, null));
+	}
+
+	@Test
+	public void severalNodesAtOnce() {
+		final Map<Long, Integer> out = db.getDegrees(Arrays.asList(leafId, hubId, lonelyId), Direction.OUTGOING, null);
+		assertEquals(Arrays.asList(leafId, hubId, lonelyId), Arrays.asList(out.keySet().toArray()));
+		assertEquals(Arrays.asList(1, MANY + 4, 0), Arrays.asList(out.values().toArray()));
+
+		final Map<Long, Integer> both = db.getDegrees(Arrays.asList(hubId, leafId), null, "c");
+		assertEquals(2, (int) both.get(hubId));
+		assertEquals(2, (int) both.get(leafId));
+
+		assertEquals(0, (int) db.getDegrees(Arrays.asList(hubId), null, "missing").get(hubId));
+	}
+
+	@Test
+	public void cachedDegreesFollowChanges() throws Exception {
+		db.setDegreeCacheSize(1_000);
+		assertEquals(MANY, (int) db.getDegrees(Arrays.asList(hubId), Direction.OUTGOING, "a").get(hubId));
+		assertEquals(1, db.getDegreeCache().size());
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final DuckNode hub = (DuckNode) db.getNodeById(hubId);
+			db.createRelationship(hub, db.createNode(null, "Leaf"), "a");
+			assertEquals(MANY + 1, hub.getOutDegree("a"));
+			tx.failure();
+		}
+
+		assertEquals(MANY, ((DuckNode) db.getNodeById(hubId)).getOutDegree("a"));
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode hub = db.getNodeById(hubId);
+			hub.getOutgoingWithType("a").iterator().next().delete();
+			tx.success();
+		}
+		assertEquals(MANY - 1, (int) db.getDegrees(Arrays.asList(hubId), Direction.OUTGOING, "a").get(hubId));
+	}
+
+}
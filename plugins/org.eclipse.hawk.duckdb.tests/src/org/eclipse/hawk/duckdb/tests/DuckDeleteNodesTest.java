@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckNode;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for deleting several nodes at once.
+ */
+public class DuckDeleteNodesTest extends AbstractDuckDatabaseTest {
+
+	private static final int CHILDREN = 20;
+
+	private long hubId;
+	private final List<Long> childIds = new ArrayList<>();
+
+	@Before
+	public void setup() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode hub = db.createNode(Collections.singletonMap("name", "hub"), "Hub");
+			for (int i = 0; i < CHILDREN; i++) {
+				final IGraphNode child = db.createNode(Collections.singletonMap("i", i), "Child");
+				db.createRelationship(hub, child, "child", Collections.singletonMap("w", i));
+				childIds.add((long) child.getId());
+			}
+			hubId = (long) hub.getId();
+			tx.success();
+		}
+	}
+
+	@Test
+	public void deleteNodesWithEdgesAndProperties() throws Exception {
+		final List<Long> deleted = childIds.subList(0, CHILDREN / 2);
+		final IGraphEdge deletedEdge;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			deletedEdge = db.getNodeById(deleted.get(0)).getIncomingWithType("child").iterator().next();
+			db.deleteNodes(deleted);
+			tx.success();
+		}
+
+		assertEquals(CHILDREN - deleted.size(), db.allNodes("Child").size());
+		assertEquals(CHILDREN - deleted.size(), ((DuckNode) db.getNodeById(hubId)).getOutDegree("child"));
+		for (long id : deleted) {
+			assertNull(db.getNodeById(id).getProperty("i"));
+		}
+		assertNull(deletedEdge.getProperty("w"));
+
+		final List<Integer> remaining = new ArrayList<>();
+		for (IGraphEdge edge : db.getNodeById(hubId).getOutgoingWithType("child")) {
+			remaining.add((Integer) edge.getProperty("w"));
+		}
+		Collections.sort(remaining);
+		assertEquals(CHILDREN / 2, remaining.size());
+		assertEquals(CHILDREN / 2, (int) remaining.get(0));
+	}
+
+	@Test
+	public void bufferedChangesAreNotAppliedAfterDeletion() throws Exception {
+		final long childId = childIds.get(0);
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.getNodeById(childId).setProperty("later", "value");
+			db.deleteNodes(Collections.singletonList(childId));
+			tx.success();
+		}
+
+		assertNull(db.getNodeById(childId).getProperty("later"));
+		assertNull(db.getNodeById(childId).getProperty("i"));
+		assertEquals(CHILDREN - 1, db.allNodes("Child").size());
+	}
+
+	@Test
+	public void deleteHubAndSomeChildren() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.deleteNodes(Arrays.asList(hubId, childIds.get(0)));
+			tx.success();
+		}
+
+		assertEquals(0, db.allNodes("Hub").size());
+		assertEquals(CHILDREN - 1, db.allNodes("Child").size());
+		for (long id : childIds.subList(1, CHILDREN)) {
+			assertEquals(0, ((DuckNode) db.getNodeById(id)).getInDegree());
+		}
+	}
+
+	@Test
+	public void rollbackRestoresNodes() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.deleteNodes(childIds);
+			assertEquals(0, db.allNodes("Child").size());
+			tx.failure();
+		}
+
+		assertEquals(CHILDREN, db.allNodes("Child").size());
+		assertEquals(CHILDREN, ((DuckNode) db.getNodeById(hubId)).getOutDegree());
+		assertEquals(0, db.getNodeById(childIds.get(0)).getProperty("i"));
+	}
+
+}
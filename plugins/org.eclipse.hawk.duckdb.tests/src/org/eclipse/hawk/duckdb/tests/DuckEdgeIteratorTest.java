@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for iterating over the edges of nodes with more edges than are fetched
+ * at a time, without the adjacency cache.
+ */
+public class DuckEdgeIteratorTest extends AbstractDuckDatabaseTest {
+
+	/** Number of edges fetched at a time by DuckNode. */
+	private static final int FETCH_SIZE = 1_024;
+
+	private static final int CHILDREN = 2 * FETCH_SIZE + 10;
+
+	private long hubId;
+
+	@Before
+	public void setup() throws Exception {
+		db.enterBatchMode();
+		final IGraphNode hub = db.createNode(null, "Hub");
+		for (int i = 0; i < CHILDREN; i++) {
+			final IGraphNode child = db.createNode(Collections.singletonMap("i", i), "Child");
+			db.createRelationship(hub, child, "child");
+
+			// Exactly a whole number of chunks
+			if (i < FETCH_SIZE) {
+				db.createRelationship(child, hub, "parent");
+			}
+		}
+		hubId = (long) hub.getId();
+		db.exitBatchMode();
+	}
+
+	@Test
+	public void severalChunks() {
+		final IGraphNode hub = db.getNodeById(hubId);
+		assertEquals(CHILDREN, checkAscending(hub.getOutgoingWithType("child")));
+		assertEquals(FETCH_SIZE, checkAscending(hub.getIncomingWithType("parent")));
+
+		int count = 0;
+		for (IGraphEdge edge : hub.getEdges()) {
+			assertTrue(edge.getStartNode().getId().equals(hubId) || edge.getEndNode().getId().equals(hubId));
+			count++;
+		}
+		assertEquals(CHILDREN + FETCH_SIZE, count);
+	}
+
+	@Test
+	public void nestedTraversal() {
+		final IGraphNode hub = db.getNodeById(hubId);
+		long sum = 0;
+		int count = 0;
+		for (IGraphEdge edge : hub.getOutgoingWithType("child")) {
+			// Other queries run between the chunks of the outer iteration
+			final IGraphNode child = edge.getEndNode();
+			final Iterator<IGraphEdge> itParents = child.getIncomingWithType("child").iterator();
+			assertEquals(hubId, itParents.next().getStartNode().getId());
+			assertFalse(itParents.hasNext());
+
+			if (count == FETCH_SIZE) {
+				assertEquals(CHILDREN, checkAscending(hub.getOutgoingWithType("child")));
+			}
+			sum += (Integer) child.getProperty("i");
+			count++;
+		}
+		assertEquals(CHILDREN, count);
+		assertEquals((long) CHILDREN * (CHILDREN - 1) / 2, sum);
+	}
+
+	@Test
+	public void abandonedIteration() throws Exception {
+		final Iterator<IGraphEdge> it = db.getNodeById(hubId).getOutgoingWithType("child").iterator();
+		for (int i = 0; i < 10; i++) {
+			it.next();
+		}
+
+		// Nothing is left open, so the graph can be changed while the iterator is around
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.createRelationship(db.getNodeById(hubId), db.createNode(null, "Child"), "child");
+			tx.success();
+		}
+		assertTrue(it.hasNext());
+		assertEquals(CHILDREN + 1, checkAscending(db.getNodeById(hubId).getOutgoingWithType("child")));
+	}
+
+	private int checkAscending(Iterable<IGraphEdge> edges) {
+		long lastId = Long.MIN_VALUE;
+		int count = 0;
+		for (IGraphEdge edge : edges) {
+			final long id = (long) edge.getId();
+			assertTrue(id > lastId);
+			lastId = id;
+			count++;
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Direction;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for reading the edges of several nodes at once.
+ */
+public class DuckGetEdgesTest extends AbstractDuckDatabaseTest {
+
+	// a -x-> b, a -x-> c, a -y-> c, b -x-> a, and d without edges
+	private long a, b, c, d;
+
+	@Before
+	public void setup() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			a = node();
+			b = node();
+			c = node();
+			d = node();
+			edge(a, b, "x");
+			edge(a, c, "x");
+			edge(a, c, "y");
+			edge(b, a, "x");
+			tx.success();
+		}
+	}
+
+	@Test
+	public void groupedBySourceNode() {
+		final Map<Long, List<IGraphEdge>> edges = db.getEdges(Arrays.asList(d, b, a), Direction.OUTGOING, null);
+		assertEquals(Arrays.asList(d, b, a), new ArrayList<>(edges.keySet()));
+		assertEquals(Collections.emptyList(), describe(edges.get(d)));
+		assertEquals(Arrays.asList("b-x->a"), describe(edges.get(b)));
+		assertEquals(Arrays.asList("a-x->b", "a-x->c", "a-y->c"), describe(edges.get(a)));
+	}
+
+	@Test
+	public void labelFilter() {
+		final Map<Long, List<IGraphEdge>> edges = db.getEdges(Arrays.asList(a, c), Direction.OUTGOING, "y");
+		assertEquals(Arrays.asList("a-y->c"), describe(edges.get(a)));
+		assertEquals(Collections.emptyList(), describe(edges.get(c)));
+	}
+
+	@Test
+	public void directions() {
+		final Map<Long, List<IGraphEdge>> incoming = db.getEdges(Arrays.asList(a, c), Direction.INCOMING, "x");
+		assertEquals(Arrays.asList("b-x->a"), describe(incoming.get(a)));
+		assertEquals(Arrays.asList("a-x->c"), describe(incoming.get(c)));
+
+		final Map<Long, List<IGraphEdge>> both = db.getEdges(Arrays.asList(a, b), null, "x");
+		assertEquals(Arrays.asList("a-x->b", "a-x->c", "b-x->a"), describe(both.get(a)));
+		assertEquals(Arrays.asList("a-x->b", "b-x->a"), describe(both.get(b)));
+	}
+
+	@Test
+	public void unknownLabel() {
+		final Map<Long, List<IGraphEdge>> edges = db.getEdges(Arrays.asList(a, b), null, "missing");
+		assertEquals(Arrays.asList(a, b), new ArrayList<>(edges.keySet()));
+		assertEquals(Collections.emptyList(), edges.get(a));
+		assertEquals(Collections.emptyList(), edges.get(b));
+	}
+
+	@Test
+	public void servedFromAdjacencyCache() {
+		db.setAdjacencyCacheSize(1 << 20);
+
+		// The first call fills the cache for a, and the second reads b from the database
+		assertEquals(Arrays.asList("a-x->b", "a-x->c"), describe(db.getEdges(Arrays.asList(a), Direction.OUTGOING, "x").get(a)));
+		final Map<Long, List<IGraphEdge>> edges = db.getEdges(Arrays.asList(a, b), Direction.OUTGOING, "x");
+		assertEquals(Arrays.asList("a-x->b", "a-x->c"), describe(edges.get(a)));
+		assertEquals(Arrays.asList("b-x->a"), describe(edges.get(b)));
+		assertEquals(1, db.getAdjacencyCache().getStats().hitCount());
+	}
+
+	private List<String> describe(List<IGraphEdge> edges) {
+		final List<String> result = new ArrayList<>();
+		for (IGraphEdge edge : edges) {
+			result.add(name((long) edge.getStartNode().getId()) + "-" + edge.getType() + "->" + name((long) edge.getEndNode().getId()));
+		}
+		Collections.sort(result);
+		return result;
+	}
+
+	private String name(long id) {
+		return id == a ? "a" : id == b ? "b" : id == c ? "c" : "d";
+	}
+
+	private long node() {
+		return (long) db.createNode(null, "Node").getId();
+	}
+
+	private void edge(long from, long to, String label) {
+		db.createRelationship(db.getNodeById(from), db.getNodeById(to), label);
+	}
+
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.junit.Test;
+
+/**
+ * Tests for handing out element IDs from blocks reserved in the sequence.
+ */
+public class DuckIdAllocatorTest extends AbstractDuckDatabaseTest {
+
+	@Test
+	public void allocateAfterRollback() throws Exception {
+		final long rolledBackId;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			rolledBackId = (long) db.createNode(null, "Node").getId();
+			tx.failure();
+		}
+
+		final long id;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode node = db.createNode(null, "Node");
+			node.setProperty("x", 1);
+			id = (long) node.getId();
+			tx.success();
+		}
+
+		// The rest of the block is dropped, as the rollback may have undone its reservation
+		assertTrue(id > rolledBackId);
+		assertEquals(1, db.allNodes("Node").size());
+		assertEquals(1, db.getNodeById(id).getProperty("x"));
+	}
+
+	@Test
+	public void idsStayAboveExistingElementsAfterRestart() throws Exception {
+		long maxId = 0;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode a = db.createNode(null, "Node");
+			final IGraphNode b = db.createNode(null, "Node");
+			maxId = Math.max(maxId, (long) db.createRelationship(a, b, "next").getId());
+			tx.success();
+		}
+
+		// Even if the sequence starts over, new IDs are kept above those in use
+		try (Statement stmt = connection().createStatement()) {
+			stmt.execute("DROP SEQUENCE elems_seq;");
+			stmt.execute("CREATE SEQUENCE elems_seq;");
+		}
+		connection().commit();
+		restart();
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			assertTrue((long) db.createNode(null, "Node").getId() > maxId);
+			tx.success();
+		}
+		assertEquals(3, db.allNodes("Node").size());
+	}
+
+	@Test
+	public void changeBlockSize() throws Exception {
+		db.setElementIdBlockSize(10);
+		assertEquals(10, db.getElementIdBlockSize());
+
+		// Drop any block reserved at startup, so the next ID comes from a block of the new size
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.createNode(null, "Node");
+			tx.failure();
+		}
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final long first = (long) db.createNode(null, "Node").getId();
+			assertEquals(first + 9, lastReservedId());
+
+			for (int i = 1; i < 10; i++) {
+				assertEquals(first + i, (long) db.createNode(null, "Node").getId());
+			}
+			assertEquals(first + 9, lastReservedId());
+
+			db.createNode(null, "Node");
+			assertEquals(first + 19, lastReservedId());
+			tx.success();
+		}
+	}
+
+	private long lastReservedId() throws Exception {
+		try (Statement stmt = connection().createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT currval('elems_seq');")) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	private Connection connection() {
+		return (Connection) db.getGraph();
+	}
+
+}
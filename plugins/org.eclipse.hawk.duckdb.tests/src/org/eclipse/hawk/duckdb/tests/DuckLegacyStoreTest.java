@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckDatabase;
+import org.junit.Test;
+
+/**
+ * Tests for opening a database created by older versions of the backend, which
+ * stored labels and property names as strings and had no type tags.
+ */
+public class DuckLegacyStoreTest extends AbstractDuckDatabaseTest {
+
+	// IDs handed out by elems_seq in createLegacyStore
+	private static final long HUB = 1, LEAF_A = 2, LEAF_B = 3, EDGE_A = 4, EDGE_B = 5;
+
+	@Override
+	protected DuckDatabase createDatabase() throws Exception {
+		final File dbFile = new File(folder.getRoot(), "duck.db");
+		if (!dbFile.exists()) {
+			createLegacyStore(dbFile);
+		}
+		return super.createDatabase();
+	}
+
+	@Test
+	public void propertyTypes() {
+		final IGraphNode hub = db.getNodeById(HUB);
+		assertEquals("hub", hub.getProperty("name"));
+		assertEquals(true, hub.getProperty("flag"));
+		assertEquals(3, hub.getProperty("count"));
+		assertEquals(1L << 40, hub.getProperty("big"));
+		assertEquals(1.5f, hub.getProperty("ratioF"));
+		assertEquals(0.25, hub.getProperty("ratio"));
+		assertEquals(7, db.getNodeById(LEAF_A).getIncoming().iterator().next().getProperty("weight"));
+	}
+
+	@Test
+	public void labels() throws Exception {
+		assertEquals(1, db.allNodes("Hub").size());
+		assertEquals(2, db.allNodes("Leaf").size());
+
+		final Set<Object> children = new HashSet<>();
+		for (IGraphEdge edge : db.getNodeById(HUB).getOutgoingWithType("child")) {
+			assertEquals("child", edge.getType());
+			children.add(edge.getEndNode().getId());
+		}
+		assertEquals(new HashSet<>(Arrays.asList(LEAF_A, LEAF_B)), children);
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			// Existing edges are found through their migrated labels
+			final IGraphEdge edge = db.createRelationship(db.getNodeById(HUB), db.getNodeById(LEAF_B), "child");
+			assertEquals(EDGE_B, edge.getId());
+
+			// New elements take IDs above those of the old sequence
+			final IGraphNode leaf = db.createNode(null, "Leaf");
+			assertTrue((long) leaf.getId() > EDGE_B);
+			tx.success();
+		}
+		assertEquals(3, db.allNodes("Leaf").size());
+	}
+
+	@Test
+	public void propertyNames() throws Exception {
+		assertEquals(new HashSet<>(Arrays.asList("name", "flag", "count", "big", "ratioF", "ratio")),
+			db.getNodeById(HUB).getPropertyKeys());
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode hub = db.getNodeById(HUB);
+			hub.setProperty("name", "renamed");
+			hub.removeProperty("flag");
+			hub.setProperty("added", "x");
+			db.getNodeById(LEAF_B).setProperty("name", "leaf");
+			tx.success();
+		}
+
+		restart();
+		final IGraphNode hub = db.getNodeById(HUB);
+		assertEquals("renamed", hub.getProperty("name"));
+		assertNull(hub.getProperty("flag"));
+		assertEquals("x", hub.getProperty("added"));
+		assertEquals("leaf", db.getNodeById(LEAF_B).getProperty("name"));
+		assertEquals(new HashSet<>(Arrays.asList("name", "count", "big", "ratioF", "ratio", "added")), hub.getPropertyKeys());
+	}
+
+	private void createLegacyStore(File dbFile) throws Exception {
+		Class.forName("org.duckdb.DuckDBDriver");
+		try (Connection conn = DriverManager.getConnection("jdbc:duckdb:" + dbFile.getPath());
+				Statement stmt = conn.createStatement()) {
+			stmt.execute("CREATE SEQUENCE elems_seq;");
+			stmt.execute("CREATE TABLE nodes (id BIGINT PRIMARY KEY, label VARCHAR NOT NULL);");
+			stmt.execute("CREATE INDEX nodes_label ON nodes (label);");
+			stmt.execute("CREATE TABLE edges (id BIGINT PRIMARY KEY, from_node_id BIGINT NOT NULL,"
+				+ " to_node_id BIGINT NOT NULL, label STRING NOT NULL, UNIQUE (from_node_id, to_node_id, label));");
+			stmt.execute("CREATE INDEX edges_outgoing ON edges (from_node_id, label);");
+			stmt.execute("CREATE INDEX edges_incoming ON edges (to_node_id, label);");
+			stmt.execute("CREATE TABLE properties (elem_id BIGINT NOT NULL, name VARCHAR NOT NULL,"
+				+ " value_boolean BOOLEAN, value_long BIGINT, value_int INTEGER, value_float FLOAT,"
+				+ " value_double DOUBLE, value_string VARCHAR, value_blob BLOB, PRIMARY KEY (elem_id, name));");
+			stmt.execute("CREATE INDEX properties_elemid ON properties (elem_id);");
+
+			stmt.execute("INSERT INTO nodes VALUES (nextval('elems_seq'), 'Hub'),"
+				+ " (nextval('elems_seq'), 'Leaf'), (nextval('elems_seq'), 'Leaf');");
+			stmt.execute(String.format("INSERT INTO edges VALUES (nextval('elems_seq'), %d, %d, 'child'),"
+				+ " (nextval('elems_seq'), %d, %d, 'child');", HUB, LEAF_A, HUB, LEAF_B));
+			stmt.execute(String.format("INSERT INTO properties (elem_id, name, value_string) VALUES (%d, 'name', 'hub');", HUB));
+			stmt.execute(String.format("INSERT INTO properties (elem_id, name, value_boolean) VALUES (%d, 'flag', true);", HUB));
+			stmt.execute(String.format("INSERT INTO properties (elem_id, name, value_int) VALUES (%d, 'count', 3);", HUB));
+			stmt.execute(String.format("INSERT INTO properties (elem_id, name, value_long) VALUES (%d, 'big', %d);", HUB, 1L << 40));
+			stmt.execute(String.format("INSERT INTO properties (elem_id, name, value_float) VALUES (%d, 'ratioF', 1.5);", HUB));
+			stmt.execute(String.format("INSERT INTO properties (elem_id, name, value_double) VALUES (%d, 'ratio', 0.25);", HUB));
+			stmt.execute(String.format("INSERT INTO properties (elem_id, name, value_int) VALUES (%d, 'weight', 7);", EDGE_A));
+		}
+	}
+
+}
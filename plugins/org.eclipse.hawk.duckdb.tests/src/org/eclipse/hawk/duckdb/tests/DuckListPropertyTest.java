@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.junit.Test;
+
+/**
+ * Tests for storing multi-valued properties in LIST columns.
+ */
+public class DuckListPropertyTest extends AbstractDuckDatabaseTest {
+
+	private static final int[] INTS = { 1, -2, Integer.MAX_VALUE };
+	private static final long[] LONGS = { Long.MIN_VALUE, 0, 1L << 40 };
+	private static final double[] DOUBLES = { 0.5, -1e300, Double.NaN };
+	private static final String[] STRINGS = { "a", "", "with, comma", "with \"quotes\" and ]" };
+
+	@Test
+	public void roundTrip() throws Exception {
+		final Object nodeId;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode node = db.createNode(listValues(), "Node");
+			node.setProperty("empty", new int[0]);
+			checkListValues(node);
+			nodeId = node.getId();
+			tx.success();
+		}
+		checkListValues(db.getNodeById(nodeId));
+
+		restart();
+		final IGraphNode node = db.getNodeById(nodeId);
+		checkListValues(node);
+		assertArrayEquals(new int[0], (int[]) node.getProperty("empty"));
+		assertEquals(new HashSet<>(Arrays.asList("ints", "longs", "doubles", "strings", "empty")), node.getPropertyKeys());
+	}
+
+	@Test
+	public void replaceAndRemove() throws Exception {
+		final Object nodeId;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			nodeId = db.createNode(listValues(), "Node").getId();
+			tx.success();
+		}
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode node = db.getNodeById(nodeId);
+			node.setProperty("ints", new int[] { 4, 5 });
+			node.setProperty("longs", new String[] { "now", "strings" });
+			node.setProperty("doubles", 3);
+			node.removeProperty("strings");
+			tx.success();
+		}
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode node = db.getNodeById(nodeId);
+			node.setProperty("doubles", new double[] { 1.5 });
+			tx.success();
+		}
+
+		final IGraphNode node = db.getNodeById(nodeId);
+		assertArrayEquals(new int[] { 4, 5 }, (int[]) node.getProperty("ints"));
+		assertArrayEquals(new String[] { "now", "strings" }, (String[]) node.getProperty("longs"));
+		assertArrayEquals(new double[] { 1.5 }, (double[]) node.getProperty("doubles"), 0);
+		assertNull(node.getProperty("strings"));
+		assertEquals(new HashSet<>(Arrays.asList("ints", "longs", "doubles")), node.getPropertyKeys());
+	}
+
+	@Test
+	public void rollback() throws Exception {
+		final Object nodeId;
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			nodeId = db.createNode(listValues(), "Node").getId();
+			tx.success();
+		}
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode node = db.getNodeById(nodeId);
+			node.setProperty("ints", new int[] { 9 });
+			node.removeProperty("strings");
+			tx.failure();
+		}
+		checkListValues(db.getNodeById(nodeId));
+	}
+
+	@Test
+	public void batchMode() throws Exception {
+		db.enterBatchMode();
+		final IGraphNode node = db.createNode(listValues(), "Node");
+		final IGraphNode other = db.createNode(null, "Node");
+		final IGraphEdge edge = db.createRelationship(node, other, "next", Collections.singletonMap("ids", LONGS));
+		other.setProperty("strings", STRINGS);
+		db.exitBatchMode();
+
+		checkListValues(db.getNodeById(node.getId()));
+		assertArrayEquals(STRINGS, (String[]) db.getNodeById(other.getId()).getProperty("strings"));
+		final IGraphEdge loaded = db.getNodeById(node.getId()).getOutgoing().iterator().next();
+		assertEquals(edge.getId(), loaded.getId());
+		assertArrayEquals(LONGS, (long[]) loaded.getProperty("ids"));
+	}
+
+	private Map<String, Object> listValues() {
+		final Map<String, Object> props = new HashMap<>();
+		props.put("ints", INTS);
+		props.put("longs", LONGS);
+		props.put("doubles", DOUBLES);
+		props.put("strings", STRINGS);
+		return props;
+	}
+
+	private void checkListValues(IGraphNode node) {
+		assertArrayEquals(INTS, (int[]) node.getProperty("ints"));
+		assertArrayEquals(LONGS, (long[]) node.getProperty("longs"));
+		assertArrayEquals(DOUBLES, (double[]) node.getProperty("doubles"), 0);
+		assertArrayEquals(STRINGS, (String[]) node.getProperty("strings"));
+	}
+
+}
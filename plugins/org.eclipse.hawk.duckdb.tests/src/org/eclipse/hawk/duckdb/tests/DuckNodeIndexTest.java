@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphNodeIndex;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for removing entries from node indices.
+ */
+public class DuckNodeIndexTest extends AbstractDuckDatabaseTest {
+
+	private IGraphNodeIndex index;
+	private IGraphNode node;
+
+	@Before
+	public void setup() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			index = db.getOrCreateNodeIndex("values");
+			node = db.createNode(null, "Node");
+			index.add(node, "int", 5);
+			index.add(node, "long", 7L);
+			index.add(node, "double", 2.5);
+			index.add(node, "string", "5");
+			tx.success();
+		}
+	}
+
+	@Test
+	public void removeNumbersOfOtherTypes() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			// Numbers are matched by value, as in queries
+			index.remove(node, "int", 5.0);
+			index.remove(node, "long", 7);
+			index.remove(node, "double", 2.5f);
+			tx.success();
+		}
+
+		assertEquals(0, index.get("int", 5).size());
+		assertEquals(0, index.get("long", 7L).size());
+		assertEquals(0, index.get("double", 2.5).size());
+		assertEquals(1, index.get("string", "5").size());
+	}
+
+	@Test
+	public void numbersDoNotMatchStrings() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			index.remove(node, "int", "5.0");
+			index.remove(node, "string", 5);
+			index.remove(node, "int", 6);
+			tx.success();
+		}
+
+		assertEquals(1, index.get("int", 5).size());
+		assertEquals(1, index.get("string", "5").size());
+	}
+
+	@Test
+	public void removeByKeyOrNode() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			index.remove(node, "int", null);
+			assertEquals(0, index.query("int", 0, 10, true, true).size());
+			assertEquals(1, index.query("long", 0, 10, true, true).size());
+
+			index.remove(node);
+			assertEquals(0, index.query("long", 0, 10, true, true).size());
+			assertEquals(0, index.get("string", "5").size());
+			tx.success();
+		}
+	}
+
+	@Test
+	public void failedFlushRollsBackCommit() throws Exception {
+		final IGraphTransaction tx = db.beginTransaction();
+		index.add(node, "later", 1);
+
+		// Flushing the addition at commit time fails without the index table
+		try (Statement stmt = ((Connection) db.getGraph()).createStatement()) {
+			final String table;
+			try (ResultSet rs = stmt.executeQuery("SELECT id FROM node_indices WHERE name = 'values';")) {
+				rs.next();
+				table = "node_index_" + rs.getInt(1);
+			}
+			stmt.execute("DROP TABLE " + table + ";");
+		}
+
+		try {
+			tx.success();
+			fail("The commit should have failed");
+		} catch (IllegalStateException ex) {
+			// the transaction has been rolled back, including the DROP
+		}
+
+		index = db.getOrCreateNodeIndex("values");
+		assertEquals(0, index.get("later", 1).size());
+		assertEquals(1, index.get("int", 5).size());
+
+		try (IGraphTransaction tx2 = db.beginTransaction()) {
+			index.add(node, "later", 2);
+			tx2.success();
+		}
+		assertEquals(1, index.get("later", 2).size());
+	}
+
+}
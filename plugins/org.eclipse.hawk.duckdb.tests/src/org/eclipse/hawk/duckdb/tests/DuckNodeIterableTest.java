@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckDatabase.NodeSpec;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for iterating over large sets of nodes in chunks.
+ */
+public class DuckNodeIterableTest extends AbstractDuckDatabaseTest {
+
+	private static final int NODES = 20_000;
+
+	private List<Long> sparseIds;
+
+	@Before
+	public void setup() throws Exception {
+		// One in three nodes has the sparse label, so its IDs have gaps
+		final List<NodeSpec> specs = new ArrayList<>();
+		for (int i = 0; i < NODES; i++) {
+			specs.add(new NodeSpec(i % 3 == 0 ? "Sparse" : "Dense", Collections.singletonMap("i", i)));
+		}
+		sparseIds = new ArrayList<>();
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final List<IGraphNode> nodes = db.createNodes(specs);
+			for (int i = 0; i < NODES; i += 3) {
+				sparseIds.add((long) nodes.get(i).getId());
+			}
+			tx.success();
+		}
+		Collections.sort(sparseIds);
+	}
+
+	@Test
+	public void allNodesSpanningSeveralChunks() throws Exception {
+		final List<Long> ids = new ArrayList<>();
+		for (IGraphNode node : db.allNodes("Sparse")) {
+			ids.add((long) node.getId());
+		}
+		assertEquals(sparseIds, ids);
+		assertEquals(sparseIds.size(), db.allNodes("Sparse").size());
+	}
+
+	@Test
+	public void scanNodeIdsInSmallBatches() throws Exception {
+		final List<Long> ids = new ArrayList<>();
+		int batches = 0;
+		for (long[] batch : db.scanNodeIds("Sparse", 100)) {
+			assertTrue(batch.length > 0 && batch.length <= 100);
+			for (long id : batch) {
+				ids.add(id);
+			}
+			batches++;
+		}
+		assertEquals(sparseIds, ids);
+		assertTrue(batches >= sparseIds.size() / 100);
+	}
+
+	@Test
+	public void nodesCreatedWhileScanning() throws Exception {
+		final Iterator<long[]> it = db.scanNodeIds("Sparse", 100).iterator();
+		final List<Long> ids = new ArrayList<>();
+		for (long id : it.next()) {
+			ids.add(id);
+		}
+
+		final List<Long> expected = new ArrayList<>(sparseIds);
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			for (int i = 0; i < 10; i++) {
+				expected.add((long) db.createNode(Collections.singletonMap("i", NODES + i), "Sparse").getId());
+			}
+			tx.success();
+		}
+
+		while (it.hasNext()) {
+			for (long id : it.next()) {
+				ids.add(id);
+			}
+		}
+		assertEquals(expected, ids);
+	}
+
+	@Test
+	public void unknownLabel() throws Exception {
+		assertEquals(0, db.allNodes("Missing").size());
+		assertFalse(db.scanNodeIds("Missing", 100).iterator().hasNext());
+	}
+
+}
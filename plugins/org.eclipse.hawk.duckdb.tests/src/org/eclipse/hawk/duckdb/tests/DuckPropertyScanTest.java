@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckColumnBatch;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for scanning node IDs and numeric property values in batches.
+ */
+public class DuckPropertyScanTest extends AbstractDuckDatabaseTest {
+
+	private static final int NODES = 250;
+	private static final int BATCH_SIZE = 32;
+
+	private final List<Long> ids = new ArrayList<>();
+
+	@Before
+	public void setup() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			for (int i = 0; i < NODES; i++) {
+				final IGraphNode node = db.createNode(null, "Item");
+				// Mix integers, longs, doubles and strings under the same name
+				switch (i % 4) {
+				case 0: node.setProperty("v", i); break;
+				case 1: node.setProperty("v", (long) i); break;
+				case 2: node.setProperty("v", i + 0.5); break;
+				default: node.setProperty("v", "text"); break;
+				}
+				ids.add((long) node.getId());
+			}
+			db.createNode(Collections.singletonMap("v", 1), "Other");
+			tx.success();
+		}
+	}
+
+	@Test
+	public void scanNodeIds() {
+		final List<Long> scanned = new ArrayList<>();
+		for (long[] batch : db.scanNodeIds("Item", BATCH_SIZE)) {
+			assertFalse(batch.length > BATCH_SIZE);
+			for (long id : batch) {
+				scanned.add(id);
+			}
+		}
+		assertEquals(ids, scanned);
+	}
+
+	@Test
+	public void scanLongProperty() {
+		final Map<Long, Long> expected = new TreeMap<>();
+		for (int i = 0; i < NODES; i++) {
+			if (i % 4 < 2) {
+				expected.put(ids.get(i), (long) i);
+			}
+		}
+
+		final Map<Long, Long> scanned = new TreeMap<>();
+		for (DuckColumnBatch batch : db.scanLongProperty("Item", "v", BATCH_SIZE)) {
+			assertNull(batch.getDoubleValues());
+			for (int i = 0; i < batch.size(); i++) {
+				scanned.put(batch.getIds()[i], batch.getLongValues()[i]);
+			}
+		}
+		assertEquals(expected, scanned);
+	}
+
+	@Test
+	public void scanDoubleProperty() {
+		// The node with the other label is included as well
+		double expected = 1;
+		int expectedCount = 1;
+		for (int i = 0; i < NODES; i++) {
+			if (i % 4 != 3) {
+				expected += i % 4 == 2 ? i + 0.5 : i;
+				expectedCount++;
+			}
+		}
+
+		double sum = 0;
+		int count = 0;
+		for (DuckColumnBatch batch : db.scanDoubleProperty(null, "v", BATCH_SIZE)) {
+			assertNull(batch.getLongValues());
+			for (int i = 0; i < batch.size(); i++) {
+				sum += batch.getDoubleValues()[i];
+			}
+			count += batch.size();
+		}
+		assertEquals(expectedCount, count);
+		assertEquals(expected, sum, 1e-9);
+	}
+
+	@Test
+	public void scanSeesChangesInTransaction() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			final IGraphNode node = db.createNode(null, "Weighted");
+			node.setProperty("w", 42L);
+
+			final List<DuckColumnBatch> batches = new ArrayList<>();
+			db.scanLongProperty("Weighted", "w", BATCH_SIZE).forEach(batches::add);
+			assertEquals(1, batches.size());
+			assertArrayEquals(new long[] { (long) node.getId() }, batches.get(0).getIds());
+			assertArrayEquals(new long[] { 42L }, batches.get(0).getLongValues());
+			tx.failure();
+		}
+	}
+
+	@Test
+	public void unknownNamesAndLabels() {
+		assertFalse(db.scanLongProperty("Item", "missing", BATCH_SIZE).iterator().hasNext());
+		assertFalse(db.scanLongProperty("Missing", "v", BATCH_SIZE).iterator().hasNext());
+	}
+
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckAsyncQueries;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for querying the graph from several threads through read connections.
+ */
+public class DuckReadConnectionsTest extends AbstractDuckDatabaseTest {
+
+	private static final int READERS = 8;
+	private static final int CHILDREN = 200;
+
+	private long rootId;
+
+	@Before
+	public void setup() throws Exception {
+		db.setPropertyCacheSize(1 << 20);
+		db.setAdjacencyCacheSize(1 << 20);
+		db.setMaxReadConnections(READERS);
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			IGraphNode root = db.createNode(Collections.singletonMap("name", "root"), "Root");
+			for (int i = 0; i < CHILDREN; i++) {
+				IGraphNode child = db.createNode(Collections.singletonMap("i", i), "Child");
+				db.createRelationship(root, child, "child");
+			}
+			db.getOrCreateNodeIndex("names").add(root, "name", "root");
+			rootId = (long) root.getId();
+			tx.success();
+		}
+	}
+
+	@Test
+	public void concurrentReaders() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(READERS);
+		try {
+			final List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < READERS; i++) {
+				results.add(executor.submit(() -> {
+					int sum = 0;
+					for (int round = 0; round < 10; round++) {
+						IGraphNode root = db.getNodeById(rootId);
+						assertEquals("root", root.getProperty("name"));
+						assertEquals(CHILDREN, db.allNodes("Child").size());
+						assertEquals(1, db.getOrCreateNodeIndex("names").get("name", "root").size());
+						sum = sumChildren(root);
+					}
+					return sum;
+				}));
+			}
+
+			for (Future<Integer> result : results) {
+				assertEquals(CHILDREN * (CHILDREN - 1) / 2, (int) result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void readersOnlySeeCommittedChanges() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			IGraphNode root = db.getNodeById(rootId);
+			root.setProperty("name", "changed");
+			IGraphNode child = db.createNode(Collections.singletonMap("i", CHILDREN), "Child");
+			db.createRelationship(root, child, "child");
+
+			// The writer sees its own changes
+			assertEquals("changed", root.getProperty("name"));
+			assertEquals(CHILDREN + 1, count(root.getOutgoingWithType("child")));
+			assertEquals(CHILDREN + 1, db.allNodes("Child").size());
+
+			// Readers do not see them until they are committed
+			assertEquals("root", inReader(() -> db.getNodeById(rootId).getProperty("name")));
+			assertEquals(CHILDREN, (int) inReader(() -> count(db.getNodeById(rootId).getOutgoingWithType("child"))));
+			assertEquals(CHILDREN, (int) inReader(() -> db.allNodes("Child").size()));
+			tx.success();
+		}
+
+		assertEquals("changed", inReader(() -> db.getNodeById(rootId).getProperty("name")));
+		assertEquals(CHILDREN + 1, (int) inReader(() -> count(db.getNodeById(rootId).getOutgoingWithType("child"))));
+		assertEquals(CHILDREN + 1, (int) inReader(() -> db.allNodes("Child").size()));
+	}
+
+	@Test
+	public void readersDoNotSeeRolledBackChanges() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.getNodeById(rootId).setProperty("name", "changed");
+			tx.failure();
+		}
+
+		assertEquals("root", inReader(() -> db.getNodeById(rootId).getProperty("name")));
+		assertEquals("root", db.getNodeById(rootId).getProperty("name"));
+	}
+
+	@Test
+	public void asyncQueries() throws Exception {
+		final DuckAsyncQueries async = db.getAsyncQueries();
+		final List<CompletableFuture<Object>> values = new ArrayList<>();
+		for (IGraphEdge edge : async.getOutgoing(rootId, "child").get()) {
+			values.add(async.getProperty((long) edge.getEndNode().getId(), "i"));
+		}
+
+		int sum = 0;
+		for (CompletableFuture<Object> value : values) {
+			sum += (Integer) value.get();
+		}
+		assertEquals(CHILDREN * (CHILDREN - 1) / 2, sum);
+		assertEquals(CHILDREN, (int) async.countNodes("Child").get());
+		assertEquals(CHILDREN, async.allNodes("Child").get().size());
+		assertEquals("root", async.getProperties(rootId).get().get("name"));
+		assertEquals(CHILDREN, async.getEdges(Collections.singletonList(rootId), null, "child").get().get(rootId).size());
+	}
+
+	@Test
+	public void asyncQueriesKeepPoolFree() throws Exception {
+		// Make every background thread run a query, so each of them opens its connection
+		final DuckAsyncQueries async = db.getAsyncQueries();
+		final CountDownLatch started = new CountDownLatch(READERS);
+		final List<CompletableFuture<Object>> values = new ArrayList<>();
+		for (int i = 0; i < READERS; i++) {
+			values.add(async.submit(queried -> {
+				started.countDown();
+				try {
+					started.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return queried.getNodeById(rootId).getProperty("name");
+			}));
+		}
+		for (CompletableFuture<Object> value : values) {
+			assertEquals("root", value.get());
+		}
+
+		// Other threads still get a read connection, and so do not see uncommitted changes
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			db.getNodeById(rootId).setProperty("name", "changed");
+			assertEquals("root", inReader(() -> db.getNodeById(rootId).getProperty("name")));
+			tx.failure();
+		}
+	}
+
+	@Test
+	public void disablePool() throws Exception {
+		db.setMaxReadConnections(0);
+		assertEquals(0, db.getMaxReadConnections());
+		assertNull(db.getAsyncQueries());
+		assertEquals("root", inReader(() -> db.getNodeById(rootId).getProperty("name")));
+	}
+
+	private int sumChildren(IGraphNode root) {
+		int sum = 0;
+		for (IGraphEdge edge : root.getOutgoingWithType("child")) {
+			sum += (Integer) edge.getEndNode().getProperty("i");
+		}
+		return sum;
+	}
+
+	private static int count(Iterable<?> it) {
+		int count = 0;
+		for (@SuppressWarnings("unused") Object o : it) {
+			count++;
+		}
+		return count;
+	}
+
+	private static <T> T inReader(Callable<T> query) throws Exception {
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			return executor.submit(query).get();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
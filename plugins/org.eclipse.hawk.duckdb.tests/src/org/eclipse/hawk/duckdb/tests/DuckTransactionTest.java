@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.sql.SQLException;
+import java.util.Collections;
+
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.duckdb.DuckTransaction;
+import org.junit.Test;
+
+/**
+ * Tests for committing and rolling back transactions when buffered changes
+ * cannot be written out.
+ */
+public class DuckTransactionTest extends AbstractDuckDatabaseTest {
+
+	@Test
+	public void failedBeforeCommitRollsBack() throws Exception {
+		final boolean[] rolledBack = { false };
+		final DuckTransaction.Listener failing = new DuckTransaction.Listener() {
+			@Override
+			public void beforeCommit() throws SQLException {
+				throw new SQLException("Expected failure");
+			}
+
+			@Override
+			public void afterRollback() {
+				rolledBack[0] = true;
+			}
+		};
+
+		final DuckTransaction tx = (DuckTransaction) db.beginTransaction();
+		final IGraphNode node = db.createNode(Collections.singletonMap("x", 1), "Node");
+		final long nodeId = (long) node.getId();
+		tx.addListener(failing);
+		try {
+			tx.success();
+			fail("The commit should have failed");
+		} catch (IllegalStateException ex) {
+			assertTrue(ex.getCause() instanceof SQLException);
+		} finally {
+			tx.removeListener(failing);
+		}
+
+		assertTrue(rolledBack[0]);
+		assertEquals(0, db.allNodes("Node").size());
+		assertNull(db.getNodeById(nodeId).getProperty("x"));
+	}
+
+	@Test
+	public void failedFlushKeepsChanges() throws Exception {
+		final DuckTransaction tx = (DuckTransaction) db.beginTransaction();
+		final IGraphNode node = db.createNode(Collections.emptyMap(), "Node");
+		final IGraphNode other = db.createNode(Collections.emptyMap(), "Node");
+		node.setProperty("good", 1);
+		node.setProperty("bad", new Object());
+
+		// Deleting nodes flushes the buffer, which cannot encode the second value
+		db.deleteNodes(Collections.singletonList((long) other.getId()));
+		assertEquals(1, node.getProperty("good"));
+
+		try {
+			tx.success();
+			fail("The commit should have failed");
+		} catch (IllegalStateException ex) {
+			// the transaction has been rolled back
+		}
+		assertEquals(0, db.allNodes("Node").size());
+	}
+
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2026 Contributors to the Eclipse Foundation.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0.
+ *
+ * This Source Code may also be made available under the following Secondary
+ * Licenses when the conditions for such availability set forth in the Eclipse
+ * Public License, v. 2.0 are satisfied: GNU General Public License, version 3.
+ *
+ * SPDX-License-Identifier: EPL-2.0 OR GPL-3.0
+ ******************************************************************************/
+package org.eclipse.hawk.duckdb.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.eclipse.hawk.core.graph.IGraphTransaction;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Direction;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for k-hop traversals from several start nodes.
+ */
+public class DuckTraversalTest extends AbstractDuckDatabaseTest {
+
+	private static final List<String> NEXT = Collections.singletonList("next");
+
+	// a -next-> b -next-> c -next-> d and a -other-> x
+	private long a, b, c, d, x;
+
+	@Before
+	public void setup() throws Exception {
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			a = node("Start");
+			b = node("Middle");
+			c = node("Middle");
+			d = node("End");
+			x = node("End");
+			edge(a, b, "next");
+			edge(b, c, "next");
+			edge(c, d, "next");
+			edge(a, x, "other");
+			tx.success();
+		}
+	}
+
+	@Test
+	public void depthLimit() {
+		assertEquals(Arrays.asList(b), traverse(Collections.singleton(a), NEXT, Direction.OUTGOING, 1, null));
+		assertEquals(Arrays.asList(b, c), traverse(Collections.singleton(a), NEXT, Direction.OUTGOING, 2, null));
+		assertEquals(Arrays.asList(b, c, d), traverse(Collections.singleton(a), NEXT, Direction.OUTGOING, 10, null));
+		assertEquals(Collections.emptyList(), traverse(Collections.singleton(a), NEXT, Direction.OUTGOING, 0, null));
+	}
+
+	@Test
+	public void directionsAndLabels() {
+		assertEquals(Arrays.asList(a, b), traverse(Collections.singleton(c), NEXT, Direction.INCOMING, 5, null));
+		assertEquals(Arrays.asList(b, c, d, x), traverse(Collections.singleton(a), null, Direction.OUTGOING, 5, null));
+		// Following edges both ways reaches the start node again through the edge it came from
+		assertEquals(Arrays.asList(a, b, c, d, x), traverse(Collections.singleton(x), null, null, 5, null));
+		assertEquals(Collections.emptyList(), traverse(Collections.singleton(a), Collections.singleton("missing"), null, 5, null));
+	}
+
+	@Test
+	public void nodeLabelsOnlyFilterResults() {
+		// Edges are still followed through the nodes with other labels
+		assertEquals(Arrays.asList(d, x), traverse(Collections.singleton(a), null, Direction.OUTGOING, 5, Collections.singleton("End")));
+		assertEquals(Collections.emptyList(), traverse(Collections.singleton(a), null, Direction.OUTGOING, 5, Collections.singleton("Missing")));
+	}
+
+	@Test
+	public void severalStartNodesAndCycles() throws Exception {
+		// b is a start node, but it is reached from a
+		assertEquals(Arrays.asList(b, c, x), traverse(Arrays.asList(a, b), null, Direction.OUTGOING, 1, null));
+
+		try (IGraphTransaction tx = db.beginTransaction()) {
+			edge(d, b, "next");
+
+			// Start nodes are only included if they are reached again
+			assertEquals(Arrays.asList(b, c, d), traverse(Collections.singleton(b), NEXT, Direction.OUTGOING, 10, null));
+			assertEquals(Arrays.asList(c, d), traverse(Collections.singleton(b), NEXT, Direction.OUTGOING, 2, null));
+			tx.success();
+		}
+	}
+
+	private List<Long> traverse(Collection<Long> startIds, Collection<String> edgeLabels, Direction direction, int maxDepth, Collection<String> nodeLabels) {
+		return db.traverse(startIds, edgeLabels, direction, maxDepth, nodeLabels).boxed().collect(Collectors.toList());
+	}
+
+	private long node(String label) {
+		return (long) db.createNode(null, label).getId();
+	}
+
+	private void edge(long from, long to, String label) {
+		db.createRelationship(db.getNodeById(from), db.getNodeById(to), label);
+	}
+
+}
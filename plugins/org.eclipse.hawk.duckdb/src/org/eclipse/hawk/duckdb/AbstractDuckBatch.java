@@ -0,0 +1,215 @@
+package org.eclipse.hawk.duckdb;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Base class for the ways to buffer new nodes, edges and properties during batch
+ * mode, which are much faster than running one INSERT per row.
+ *
+ * Buffered rows are not visible to queries until they are flushed. The database
+ * flushes the batch before running any other statement, and the batch flushes
+ * itself once it has buffered a certain number of rows. Elements created since the
+ * last flush are "fresh": they cannot have any rows in the tables yet, so their
+ * properties and edges can be buffered without checking for existing ones.
+ */
+public abstract class AbstractDuckBatch implements AutoCloseable {
+
+	public static final int DEFAULT_FLUSH_THRESHOLD = 100_000;
+
+	private static final class PropertyKey {
+		private final long elemId;
+		private final String name;
+
+		private PropertyKey(long elemId, String name) {
+			this.elemId = elemId;
+			this.name = name;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(elemId, name);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			PropertyKey other = (PropertyKey) obj;
+			return elemId == other.elemId && Objects.equals(name, other.name);
+		}
+	}
+
+	private static final class EdgeKey {
+		private final long fromId;
+		private final long toId;
+		private final int labelId;
+
+		private EdgeKey(long fromId, long toId, int labelId) {
+			this.fromId = fromId;
+			this.toId = toId;
+			this.labelId = labelId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(fromId, toId, labelId);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			EdgeKey other = (EdgeKey) obj;
+			return fromId == other.fromId && toId == other.toId && labelId == other.labelId;
+		}
+	}
+
+	private final DuckDictionary propertyNames;
+	private final int flushThreshold;
+
+	private final Set<PropertyKey> pendingProperties = new HashSet<>();
+	private final Map<EdgeKey, Long> pendingEdges = new HashMap<>();
+	private long firstFreshId = Long.MAX_VALUE;
+	private int pendingRows;
+
+	protected AbstractDuckBatch(DuckDictionary propertyNames, int flushThreshold) {
+		this.propertyNames = propertyNames;
+		this.flushThreshold = flushThreshold;
+	}
+
+	/**
+	 * Returns <code>true</code> if the element was created after the last flush.
+	 */
+	public boolean isFresh(long elemId) {
+		return elemId >= firstFreshId;
+	}
+
+	public boolean hasPendingRows() {
+		return pendingRows > 0;
+	}
+
+	public void appendNode(long nodeId, int labelId, Map<String, Object> props) throws SQLException, IOException {
+		markFresh(nodeId);
+		writeNode(nodeId, labelId);
+		pendingRows++;
+
+		appendProperties(nodeId, props);
+		flushIfNeeded();
+	}
+
+	/**
+	 * Returns the ID of the edge with these endpoints and label that was appended
+	 * since the last flush, or <code>null</code> if there is none.
+	 */
+	public Long findPendingEdge(long fromId, long toId, int labelId) {
+		return pendingEdges.get(new EdgeKey(fromId, toId, labelId));
+	}
+
+	public void appendEdge(long edgeId, long fromId, long toId, int labelId, Map<String, Object> props) throws SQLException, IOException {
+		markFresh(edgeId);
+		writeEdge(edgeId, fromId, toId, labelId);
+		pendingEdges.put(new EdgeKey(fromId, toId, labelId), edgeId);
+		pendingRows++;
+
+		appendProperties(edgeId, props);
+		flushIfNeeded();
+	}
+
+	/**
+	 * Appends the property if the element is fresh and does not have a pending value
+	 * for it yet. Returns <code>false</code> if the property must be set through SQL.
+	 */
+	public boolean tryAppendProperty(long elemId, String name, Object value) throws SQLException, IOException {
+		final PropertyValueType vt = PropertyValueType.from(value);
+		if (vt.isList() || !isFresh(elemId) || !pendingProperties.add(new PropertyKey(elemId, name))) {
+			return false;
+		}
+
+		writeProperty(elemId, propertyNames.getOrCreate(name), vt, value);
+		pendingRows++;
+		flushIfNeeded();
+		return true;
+	}
+
+	public void flush() throws SQLException {
+		if (pendingRows > 0) {
+			flushRows();
+			clearPending();
+		}
+	}
+
+	@Override
+	public void close() throws SQLException {
+		try {
+			flush();
+		} finally {
+			clearPending();
+			closeRows();
+		}
+	}
+
+	protected abstract void writeNode(long nodeId, int labelId) throws SQLException, IOException;
+
+	protected abstract void writeEdge(long edgeId, long fromId, long toId, int labelId) throws SQLException, IOException;
+
+	protected abstract void writeProperty(long elemId, int nameId, PropertyValueType vt, Object value) throws SQLException, IOException;
+
+	/**
+	 * Stores all the buffered rows into their tables.
+	 */
+	protected abstract void flushRows() throws SQLException;
+
+	/**
+	 * Releases any resources used to buffer rows. Unflushed rows are discarded.
+	 */
+	protected abstract void closeRows() throws SQLException;
+
+	private void appendProperties(long elemId, Map<String, Object> props) throws SQLException, IOException {
+		if (props != null) {
+			for (Entry<String, Object> entry : props.entrySet()) {
+				final Object value = entry.getValue();
+				if (value == null) {
+					continue;
+				}
+
+				// List values are left to the caller, as they cannot be appended
+				final PropertyValueType vt = PropertyValueType.from(value);
+				if (!vt.isList() && pendingProperties.add(new PropertyKey(elemId, entry.getKey()))) {
+					writeProperty(elemId, propertyNames.getOrCreate(entry.getKey()), vt, value);
+					pendingRows++;
+				}
+			}
+		}
+	}
+
+	private void markFresh(long elemId) {
+		if (firstFreshId == Long.MAX_VALUE) {
+			firstFreshId = elemId;
+		}
+	}
+
+	private void flushIfNeeded() throws SQLException {
+		if (pendingRows >= flushThreshold) {
+			flush();
+		}
+	}
+
+	private void clearPending() {
+		pendingProperties.clear();
+		pendingEdges.clear();
+		firstFreshId = Long.MAX_VALUE;
+		pendingRows = 0;
+	}
+
+}
@@ -4,8 +4,10 @@ import java.io.IOException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 
@@ -20,6 +22,47 @@ public class AbstractDuckElement {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(DuckNode.class);
 
+	private static final String SQL_GET_PROPERTY_KEYS = String.format(
+		"SELECT name_id FROM %s WHERE elem_id = $1 UNION ALL SELECT name_id FROM %s WHERE elem_id = $1;",
+		DuckDatabase.TABLE_PROPERTIES, DuckDatabase.TABLE_PROPERTY_LISTS);
+	private static final String SQL_GET_PROPERTY = String.format(
+		"SELECT %s FROM %s WHERE elem_id = $1 AND name_id = $2"
+		+ " UNION ALL SELECT %s FROM %s WHERE elem_id = $1 AND name_id = $2;",
+		PropertyValueType.sqlQueryColumns(PropertyValueType.scalarValues()), DuckDatabase.TABLE_PROPERTIES,
+		PropertyValueType.sqlQueryColumns(PropertyValueType.listValues()), DuckDatabase.TABLE_PROPERTY_LISTS);
+	private static final String SQL_GET_PROPERTIES = String.format(
+		"SELECT name_id, %s FROM %s WHERE elem_id = $1"
+		+ " UNION ALL SELECT name_id, %s FROM %s WHERE elem_id = $1;",
+		PropertyValueType.sqlQueryColumns(PropertyValueType.scalarValues()), DuckDatabase.TABLE_PROPERTIES,
+		PropertyValueType.sqlQueryColumns(PropertyValueType.listValues()), DuckDatabase.TABLE_PROPERTY_LISTS);
+	private static final String SQL_DELETE_PROPERTIES = String.format(
+		"DELETE FROM %s WHERE elem_id = ?;",
+		DuckDatabase.TABLE_PROPERTIES);
+	private static final String SQL_DELETE_PROPERTY_LISTS = String.format(
+		"DELETE FROM %s WHERE elem_id = ?;",
+		DuckDatabase.TABLE_PROPERTY_LISTS);
+
+
+	/*
+	 * The typed accessors only read the value column for the matching types,
+	 * so their results can be read without boxing. List values never match.
+	 */
+	private static final PropertyValueType[] BOOLEAN_TYPES = { PropertyValueType.BOOLEAN };
+	private static final PropertyValueType[] INT_TYPES = { PropertyValueType.INTEGER };
+	static final PropertyValueType[] LONG_TYPES = { PropertyValueType.LONG, PropertyValueType.INTEGER };
+	static final PropertyValueType[] DOUBLE_TYPES = {
+		PropertyValueType.DOUBLE, PropertyValueType.FLOAT, PropertyValueType.LONG, PropertyValueType.INTEGER };
+
+	private static final String SQL_GET_BOOLEAN_PROPERTY = sqlGetTypedProperty(BOOLEAN_TYPES);
+	private static final String SQL_GET_INT_PROPERTY = sqlGetTypedProperty(INT_TYPES);
+	private static final String SQL_GET_LONG_PROPERTY = sqlGetTypedProperty(LONG_TYPES);
+	private static final String SQL_GET_DOUBLE_PROPERTY = sqlGetTypedProperty(DOUBLE_TYPES);
+
+	private static String sqlGetTypedProperty(PropertyValueType[] types) {
+		return String.format("SELECT %s FROM %s WHERE elem_id = ? AND name_id = ?;",
+			PropertyValueType.sqlTypedColumn(types), DuckDatabase.TABLE_PROPERTIES);
+	}
+
 	protected final long id;
 	protected final DuckDatabase db;
 
@@ -37,45 +80,40 @@ public class AbstractDuckElement {
 	}
 	
 	public Set<String> getPropertyKeys() {
-		String sqlQuery = String.format(
-			"SELECT name FROM %s WHERE elem_id = ?;",
-			DuckDatabase.TABLE_PROPERTIES
-		);
-		
-		try (PreparedStatement query = db.prepareSQL(sqlQuery)) {
-			query.setLong(1, id);
-	
-			ResultSet rs = query.executeQuery();
-			Set<String> keys = new HashSet<>();
-			while (rs.next()) {
-				keys.add(rs.getString(1));
-			}
+		final Set<String> keys = getStoredPropertyKeys();
+		if (db.usesReadConnection()) {
 			return keys;
-		} catch (SQLException e) {
-			LOGGER.error("Could not list the property keys for node " + id, e);
-			return Collections.emptySet();
 		}
+
+		for (Entry<String, Object> change : db.getPropertyBuffer().getChanges(id).entrySet()) {
+			if (change.getValue() == null) {
+				keys.remove(change.getKey());
+			} else {
+				keys.add(change.getKey());
+			}
+		}
+		return keys;
 	}
 
 	public Object getProperty(String name) {
-		final String valueQuery = String.format(
-			"SELECT %s FROM %s WHERE elem_id = ? AND name = ?;",
-			PropertyValueType.sqlQueryColumns(),
-			DuckDatabase.TABLE_PROPERTIES);
-	
-		try (PreparedStatement vq = db.prepareSQL(valueQuery)) {
+		final Object known = getBufferedOrCachedProperty(name);
+		if (known != DuckPropertyBuffer.NOT_BUFFERED) {
+			return known;
+		}
+
+		final int nameId = db.getPropertyNameDictionary().find(name);
+		if (nameId == DuckDictionary.UNKNOWN) {
+			return null;
+		}
+
+		try {
+			final PreparedStatement vq = db.prepareCachedReadSQL(SQL_GET_PROPERTY);
 			vq.setLong(1, id);
-			vq.setString(2, name);
-	
-			ResultSet rs = vq.executeQuery();
-			if (rs.next()) {
-				int i = 0;
-				for (PropertyValueType vt : PropertyValueType.values()) {
-					// JDBC column indices are 1-based
-					i++;
+			vq.setInt(2, nameId);
 	
-					Object o = vt.getValue(rs, i);
-					if (o != null) return o;
+			try (ResultSet rs = vq.executeQuery()) {
+				if (rs.next()) {
+					return PropertyValueType.getTaggedValue(rs, 0);
 				}
 			}
 		} catch (SQLException | ClassNotFoundException | IOException e) {
@@ -85,65 +123,253 @@ public class AbstractDuckElement {
 		return null;
 	}
 
+	/**
+	 * Returns the value of a boolean property, or <code>defaultValue</code> if it
+	 * is not set or it has another type.
+	 */
+	public boolean getBooleanProperty(String name, boolean defaultValue) {
+		final Object value = getBufferedOrCachedProperty(name);
+		if (value != DuckPropertyBuffer.NOT_BUFFERED) {
+			return hasType(value, BOOLEAN_TYPES) ? (Boolean) value : defaultValue;
+		}
+
+		try (ResultSet rs = queryTypedProperty(SQL_GET_BOOLEAN_PROPERTY, name)) {
+			if (rs != null && rs.next()) {
+				final boolean b = rs.getBoolean(1);
+				return rs.wasNull() ? defaultValue : b;
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not fetch property " + name + " on node " + id, e);
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Returns the value of an integer property, or <code>defaultValue</code> if it
+	 * is not set or it has another type.
+	 */
+	public int getIntProperty(String name, int defaultValue) {
+		final Object value = getBufferedOrCachedProperty(name);
+		if (value != DuckPropertyBuffer.NOT_BUFFERED) {
+			return hasType(value, INT_TYPES) ? ((Number) value).intValue() : defaultValue;
+		}
+
+		try (ResultSet rs = queryTypedProperty(SQL_GET_INT_PROPERTY, name)) {
+			if (rs != null && rs.next()) {
+				final int i = rs.getInt(1);
+				return rs.wasNull() ? defaultValue : i;
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not fetch property " + name + " on node " + id, e);
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Returns the value of a long or integer property, or <code>defaultValue</code>
+	 * if it is not set or it has another type.
+	 */
+	public long getLongProperty(String name, long defaultValue) {
+		final Object value = getBufferedOrCachedProperty(name);
+		if (value != DuckPropertyBuffer.NOT_BUFFERED) {
+			return hasType(value, LONG_TYPES) ? ((Number) value).longValue() : defaultValue;
+		}
+
+		try (ResultSet rs = queryTypedProperty(SQL_GET_LONG_PROPERTY, name)) {
+			if (rs != null && rs.next()) {
+				final long l = rs.getLong(1);
+				return rs.wasNull() ? defaultValue : l;
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not fetch property " + name + " on node " + id, e);
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Returns the value of a numeric property as a double, or <code>defaultValue</code>
+	 * if it is not set or it is not a number.
+	 */
+	public double getDoubleProperty(String name, double defaultValue) {
+		final Object value = getBufferedOrCachedProperty(name);
+		if (value != DuckPropertyBuffer.NOT_BUFFERED) {
+			return hasType(value, DOUBLE_TYPES) ? ((Number) value).doubleValue() : defaultValue;
+		}
+
+		try (ResultSet rs = queryTypedProperty(SQL_GET_DOUBLE_PROPERTY, name)) {
+			if (rs != null && rs.next()) {
+				final double d = rs.getDouble(1);
+				return rs.wasNull() ? defaultValue : d;
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not fetch property " + name + " on node " + id, e);
+		}
+		return defaultValue;
+	}
+
 	public void setProperty(String name, Object value) {
 		if (value == null) {
 			removeProperty(name);
 			return;
 		}
 	
-		final PropertyValueType vt = PropertyValueType.from(value);
-		final String updateQuery = String.format(
-			"UPDATE %s SET %s = $1%s WHERE elem_id = $2 AND name = $3;",
-			DuckDatabase.TABLE_PROPERTIES, vt.getColumnName(), vt == PropertyValueType.BLOB ? "::BLOB" : "");
-	
-		try (PreparedStatement update = db.prepareSQL(updateQuery)) {
-			vt.setParameter(update, 1, value);
-			update.setLong(2, id);
-			update.setString(3, name);
-
-			final int rowsChanged = update.executeUpdate();
-			if (rowsChanged == 0) {
-				// No rows were updated: do an insert
-				final String insertQuery = String.format(
-					"INSERT INTO %s (elem_id, name, %s) VALUES (?, ?, ?);",
-					DuckDatabase.TABLE_PROPERTIES, vt.getColumnName());
-
-				try (PreparedStatement insert = db.prepareSQL(insertQuery)) {
-					insert.setLong(1, id);
-					insert.setString(2, name);
-					vt.setParameter(insert, 3, value);
-					insert.executeUpdate();
+		invalidateCachedProperties();
+		try {
+			final DuckPropertyBuffer buffer = db.getPropertyBuffer();
+			final AbstractDuckBatch batch = db.getBatch();
+			if (batch != null && buffer.get(id, name) == DuckPropertyBuffer.NOT_BUFFERED) {
+				// The batch appenders write to the primary connection
+				synchronized (db.getConnectionLock()) {
+					if (batch.tryAppendProperty(id, name, value)) {
+						return;
+					}
 				}
 			}
+
+			buffer.put(id, name, value);
 		} catch (SQLException | IOException e) {
 			LOGGER.error("Could not update property " + name + " on node " + id, e);
 		}
 	}
 
 	public void removeProperty(String name) {
-		final String sqlDelete = String.format(
-			"DELETE FROM %s WHERE elem_id = ? AND name = ?;",
-			DuckDatabase.TABLE_PROPERTIES
-		);
-
-		try (PreparedStatement stmt = db.prepareSQL(sqlDelete)) {
-			stmt.setLong(1, id);
-			stmt.setString(2, name);
-			stmt.execute();
+		invalidateCachedProperties();
+		try {
+			db.getPropertyBuffer().remove(id, name);
 		} catch (SQLException e) {
 			LOGGER.error("Could not remove property " + name + " from node " + id, e);
 		}
 	}
 
+	/**
+	 * Returns the keys of the properties stored in the database, without considering
+	 * any buffered changes.
+	 */
+	private Set<String> getStoredPropertyKeys() {
+		final Map<String, Object> cached = getCachedProperties();
+		if (cached != null) {
+			return new HashSet<>(cached.keySet());
+		}
+
+		try {
+			final PreparedStatement query = db.prepareCachedReadSQL(SQL_GET_PROPERTY_KEYS);
+			query.setLong(1, id);
+	
+			try (ResultSet rs = query.executeQuery()) {
+				Set<String> keys = new HashSet<>();
+				final DuckDictionary names = db.getPropertyNameDictionary();
+				while (rs.next()) {
+					keys.add(names.get(rs.getInt(1)));
+				}
+				return keys;
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not list the property keys for node " + id, e);
+			return new HashSet<>();
+		}
+	}
 
 	protected void deleteProperties() throws SQLException {
-		String sqlDeleteProps = String.format(
-			"DELETE FROM %s WHERE elem_id = ?;",
-			DuckDatabase.TABLE_PROPERTIES
-		);
-		try (PreparedStatement stmt = db.prepareSQL(sqlDeleteProps)) {
-			stmt.setLong(1, id);
-			stmt.execute();
+		invalidateCachedProperties();
+		db.getPropertyBuffer().discard(id);
+		final PreparedStatement stmt = db.prepareCachedSQL(SQL_DELETE_PROPERTIES);
+		stmt.setLong(1, id);
+		stmt.execute();
+
+		final PreparedStatement stmtLists = db.prepareCachedSQL(SQL_DELETE_PROPERTY_LISTS);
+		stmtLists.setLong(1, id);
+		stmtLists.execute();
+	}
+
+	/**
+	 * Returns all the properties of this element from the property cache, loading
+	 * them in one query if needed. Returns <code>null</code> if the cache is disabled
+	 * or the properties could not be loaded.
+	 */
+	private Map<String, Object> getCachedProperties() {
+		final DuckPropertyCache cache = db.getPropertyCache();
+		if (cache == null || db.usesReadConnection()) {
+			return null;
+		}
+
+		Map<String, Object> props = cache.get(id);
+		if (props != null) {
+			return props;
+		}
+
+		try {
+			final PreparedStatement query = db.prepareCachedSQL(SQL_GET_PROPERTIES);
+			query.setLong(1, id);
+
+			props = new HashMap<>();
+			final DuckDictionary names = db.getPropertyNameDictionary();
+			try (ResultSet rs = query.executeQuery()) {
+				while (rs.next()) {
+					props.put(names.get(rs.getInt(1)), PropertyValueType.getTaggedValue(rs, 1));
+				}
+			}
+			cache.put(id, props);
+			return props;
+		} catch (SQLException | ClassNotFoundException | IOException e) {
+			LOGGER.error("Could not fetch the properties of node " + id, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the value of the property from the property buffer or the property
+	 * cache, <code>null</code> if it is known not to be set, or
+	 * {@link DuckPropertyBuffer#NOT_BUFFERED} if it must be read from the database.
+	 * Threads with a read connection always read from the database.
+	 */
+	private Object getBufferedOrCachedProperty(String name) {
+		if (db.usesReadConnection()) {
+			return DuckPropertyBuffer.NOT_BUFFERED;
+		}
+
+		final Object buffered = db.getPropertyBuffer().get(id, name);
+		if (buffered != DuckPropertyBuffer.NOT_BUFFERED) {
+			return buffered;
+		}
+
+		final Map<String, Object> cached = getCachedProperties();
+		return cached != null ? cached.get(name) : DuckPropertyBuffer.NOT_BUFFERED;
+	}
+
+	/**
+	 * Runs the query for a typed accessor, or returns <code>null</code> if no
+	 * element has a property with that name.
+	 */
+	private ResultSet queryTypedProperty(String sql, String name) throws SQLException {
+		final int nameId = db.getPropertyNameDictionary().find(name);
+		if (nameId == DuckDictionary.UNKNOWN) {
+			return null;
+		}
+
+		final PreparedStatement query = db.prepareCachedReadSQL(sql);
+		query.setLong(1, id);
+		query.setInt(2, nameId);
+		return query.executeQuery();
+	}
+
+	private static boolean hasType(Object value, PropertyValueType[] types) {
+		if (value == null) {
+			return false;
+		}
+
+		final PropertyValueType vt = PropertyValueType.from(value);
+		for (PropertyValueType type : types) {
+			if (type == vt) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void invalidateCachedProperties() {
+		final DuckPropertyCache cache = db.getPropertyCache();
+		if (cache != null) {
+			cache.invalidate(id);
 		}
 	}
 
@@ -0,0 +1,227 @@
+package org.eclipse.hawk.duckdb;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Cache of the edges of recently traversed nodes, keyed by node, direction and
+ * label. Each entry keeps the IDs, labels and opposite endpoints of the edges in
+ * primitive arrays. The cache is bounded by the estimated size in bytes of the
+ * entries.
+ *
+ * Creating or deleting an edge invalidates the entries for its label and for all
+ * labels at both endpoints. As in {@link DuckPropertyCache}, the entries changed
+ * in the current transaction are dropped again if it is rolled back.
+ */
+public class DuckAdjacencyCache implements DuckTransaction.Listener {
+
+	/** Default maximum size of the cache, as estimated by {@link Adjacency#estimateSize()}. */
+	public static final long DEFAULT_MAX_SIZE = 32L * 1024 * 1024;
+
+	/** Label ID used in keys for the entries with the edges of any label. */
+	public static final int ANY_LABEL = -2;
+
+	private static final int ENTRY_OVERHEAD = 96;
+
+	public enum Direction { OUTGOING, INCOMING }
+
+	/**
+	 * Edges incident to a node in a certain direction.
+	 */
+	public static final class Adjacency {
+		public static final Adjacency EMPTY = new Adjacency(new long[0], new int[0], new long[0]);
+
+		private final long[] edgeIds;
+		private final int[] labelIds;
+		private final long[] otherNodeIds;
+
+		public Adjacency(long[] edgeIds, int[] labelIds, long[] otherNodeIds) {
+			this.edgeIds = edgeIds;
+			this.labelIds = labelIds;
+			this.otherNodeIds = otherNodeIds;
+		}
+
+		public int size() {
+			return edgeIds.length;
+		}
+
+		public long getEdgeId(int i) {
+			return edgeIds[i];
+		}
+
+		public int getLabelId(int i) {
+			return labelIds[i];
+		}
+
+		/**
+		 * Returns the ID of the endpoint of the <code>i</code>-th edge which is not the
+		 * node this adjacency belongs to (the target for outgoing edges, and the source
+		 * for incoming edges).
+		 */
+		public long getOtherNodeId(int i) {
+			return otherNodeIds[i];
+		}
+
+		/**
+		 * Returns the <code>i</code>-th edge, given the node this adjacency belongs to
+		 * and its direction.
+		 */
+		public DuckEdge getEdge(DuckDatabase db, long nodeId, Direction direction, int i) {
+			final String type = db.getLabelDictionary().get(labelIds[i]);
+			return direction == Direction.OUTGOING
+				? new DuckEdge(db, edgeIds[i], type, nodeId, otherNodeIds[i])
+				: new DuckEdge(db, edgeIds[i], type, otherNodeIds[i], nodeId);
+		}
+
+		int estimateSize() {
+			return ENTRY_OVERHEAD + 20 * edgeIds.length;
+		}
+	}
+
+	/**
+	 * Collects the edges of an adjacency as they are read from the database.
+	 */
+	public static final class AdjacencyBuilder {
+		private long[] edgeIds = new long[16];
+		private int[] labelIds = new int[16];
+		private long[] otherNodeIds = new long[16];
+		private int size;
+
+		public void add(long edgeId, int labelId, long otherNodeId) {
+			if (size == edgeIds.length) {
+				edgeIds = Arrays.copyOf(edgeIds, size * 2);
+				labelIds = Arrays.copyOf(labelIds, size * 2);
+				otherNodeIds = Arrays.copyOf(otherNodeIds, size * 2);
+			}
+			edgeIds[size] = edgeId;
+			labelIds[size] = labelId;
+			otherNodeIds[size] = otherNodeId;
+			size++;
+		}
+
+		public Adjacency build() {
+			return new Adjacency(
+				Arrays.copyOf(edgeIds, size),
+				Arrays.copyOf(labelIds, size),
+				Arrays.copyOf(otherNodeIds, size));
+		}
+	}
+
+	/**
+	 * Key of an entry, which is also used by {@link DuckDegreeCache}.
+	 */
+	static final class Key {
+		private final long nodeId;
+		private final Direction direction;
+		private final int labelId;
+
+		Key(long nodeId, Direction direction, int labelId) {
+			this.nodeId = nodeId;
+			this.direction = direction;
+			this.labelId = labelId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(nodeId, direction, labelId);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return nodeId == other.nodeId && direction == other.direction && labelId == other.labelId;
+		}
+	}
+
+	private final long maxSize;
+	private final Cache<Key, Adjacency> cache;
+	private final Set<Key> dirty = ConcurrentHashMap.newKeySet();
+
+	public DuckAdjacencyCache(long maxSize) {
+		this.maxSize = maxSize;
+		this.cache = CacheBuilder.newBuilder()
+			.maximumWeight(maxSize)
+			.weigher((Key k, Adjacency adj) -> adj.estimateSize())
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * Returns the cached edges of the node with the given label (or {@link #ANY_LABEL}),
+	 * or <code>null</code> if they have not been loaded yet.
+	 */
+	public Adjacency get(long nodeId, Direction direction, int labelId) {
+		return cache.getIfPresent(new Key(nodeId, direction, labelId));
+	}
+
+	public void put(long nodeId, Direction direction, int labelId, Adjacency adjacency) {
+		cache.put(new Key(nodeId, direction, labelId), adjacency);
+	}
+
+	/**
+	 * Drops the entries affected by the creation or deletion of an edge.
+	 */
+	public void invalidateEdge(long fromId, long toId, int labelId) {
+		invalidate(new Key(fromId, Direction.OUTGOING, labelId));
+		invalidate(new Key(fromId, Direction.OUTGOING, ANY_LABEL));
+		invalidate(new Key(toId, Direction.INCOMING, labelId));
+		invalidate(new Key(toId, Direction.INCOMING, ANY_LABEL));
+	}
+
+	public long getMaximumSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the number of cached entries.
+	 */
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns the estimated size in bytes of the cached entries.
+	 */
+	public long estimateMemoryUse() {
+		long total = 0;
+		for (Adjacency adj : cache.asMap().values()) {
+			total += adj.estimateSize();
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the hit, miss and eviction counts of the cache since it was created.
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	@Override
+	public void afterCommit() {
+		dirty.clear();
+	}
+
+	@Override
+	public void afterRollback() {
+		// Entries for the changed keys may have been loaded with rolled back edges
+		cache.invalidateAll(dirty);
+		dirty.clear();
+	}
+
+	private void invalidate(Key key) {
+		dirty.add(key);
+		cache.invalidate(key);
+	}
+
+}
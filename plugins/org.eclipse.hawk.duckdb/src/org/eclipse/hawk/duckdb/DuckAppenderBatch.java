@@ -0,0 +1,68 @@
+package org.eclipse.hawk.duckdb;
+
+import java.io.IOException;
+import java.sql.SQLException;
+
+import org.duckdb.DuckDBAppender;
+import org.duckdb.DuckDBConnection;
+
+/**
+ * Batch which buffers new rows into DuckDB appenders.
+ */
+public class DuckAppenderBatch extends AbstractDuckBatch {
+
+	private static final String SCHEMA = "main";
+
+	private final DuckDBAppender nodes;
+	private final DuckDBAppender edges;
+	private final DuckDBAppender properties;
+
+	public DuckAppenderBatch(DuckDBConnection duckDB, DuckDictionary propertyNames, int flushThreshold) throws SQLException {
+		super(propertyNames, flushThreshold);
+		this.nodes = duckDB.createAppender(SCHEMA, DuckDatabase.TABLE_NODES);
+		this.edges = duckDB.createAppender(SCHEMA, DuckDatabase.TABLE_EDGES);
+		this.properties = duckDB.createAppender(SCHEMA, DuckDatabase.TABLE_PROPERTIES);
+	}
+
+	@Override
+	protected void writeNode(long nodeId, int labelId) throws SQLException {
+		nodes.beginRow();
+		nodes.append(nodeId);
+		nodes.append(labelId);
+		nodes.endRow();
+	}
+
+	@Override
+	protected void writeEdge(long edgeId, long fromId, long toId, int labelId) throws SQLException {
+		edges.beginRow();
+		edges.append(edgeId);
+		edges.append(fromId);
+		edges.append(toId);
+		edges.append(labelId);
+		edges.endRow();
+	}
+
+	@Override
+	protected void writeProperty(long elemId, int nameId, PropertyValueType valueType, Object value) throws SQLException, IOException {
+		properties.beginRow();
+		properties.append(elemId);
+		properties.append(nameId);
+		PropertyValueType.appendValueColumns(properties, valueType, value);
+		properties.endRow();
+	}
+
+	@Override
+	protected void flushRows() throws SQLException {
+		nodes.flush();
+		edges.flush();
+		properties.flush();
+	}
+
+	@Override
+	protected void closeRows() throws SQLException {
+		nodes.close();
+		edges.close();
+		properties.close();
+	}
+
+}
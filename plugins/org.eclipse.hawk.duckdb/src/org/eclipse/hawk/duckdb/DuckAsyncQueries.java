@@ -0,0 +1,162 @@
+package org.eclipse.hawk.duckdb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.duckdb.DuckDBConnection;
+import org.eclipse.hawk.core.graph.IGraphEdge;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs read-only queries in the background, returning their results as
+ * {@link CompletableFuture}s. This allows callers to start many independent
+ * lookups at once without blocking on each of them.
+ *
+ * Queries run on a fixed pool of daemon threads. Each thread queries the
+ * committed state of the graph through its own read connection, which comes
+ * from a pool owned by this object rather than the one in
+ * {@link DuckDatabase#setMaxReadConnections(int)}: the threads keep their
+ * connections while they are alive, so sharing that pool would leave none for
+ * the other threads. Results are fully read in the background thread:
+ * iterables are returned as lists.
+ */
+public class DuckAsyncQueries implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DuckAsyncQueries.class);
+	private static final long CLOSE_TIMEOUT_SECONDS = 30;
+	private static final ThreadLocal<DuckAsyncQueries> RUNNER = new ThreadLocal<>();
+
+	private final DuckDatabase db;
+	private final DuckReadConnections connections;
+	private final ExecutorService executor;
+
+	/**
+	 * Creates a runner with <code>nThreads</code> threads, which opens up to as
+	 * many read connections of its own.
+	 */
+	public DuckAsyncQueries(DuckDatabase db, int nThreads) {
+		this.db = db;
+		this.connections = new DuckReadConnections((DuckDBConnection) db.getGraph(), nThreads);
+
+		final ThreadFactory factory = new ThreadFactoryBuilder()
+			.setNameFormat("duckdb-query-%d")
+			.setDaemon(true)
+			.build();
+		this.executor = Executors.newFixedThreadPool(nThreads, r -> factory.newThread(() -> {
+			RUNNER.set(this);
+			r.run();
+		}));
+	}
+
+	/**
+	 * Returns the read connections for the current thread if it belongs to a
+	 * runner for <code>db</code>, or <code>null</code> otherwise.
+	 */
+	static DuckReadConnections getConnections(DuckDatabase db) {
+		final DuckAsyncQueries runner = RUNNER.get();
+		return runner != null && runner.db == db ? runner.connections : null;
+	}
+
+	/**
+	 * Runs a read-only query against the database in the background. The query
+	 * must not change the graph, and must fully read any iterables it uses.
+	 */
+	public <T> CompletableFuture<T> submit(Function<DuckDatabase, T> query) {
+		return CompletableFuture.supplyAsync(() -> query.apply(db), executor);
+	}
+
+	public CompletableFuture<Object> getProperty(long elemId, String name) {
+		return submit(db -> new DuckNode(db, elemId).getProperty(name));
+	}
+
+	/**
+	 * Returns all the properties of an element, keyed by name.
+	 */
+	public CompletableFuture<Map<String, Object>> getProperties(long elemId) {
+		return submit(db -> {
+			final DuckNode node = new DuckNode(db, elemId);
+			final Map<String, Object> props = new HashMap<>();
+			for (String key : node.getPropertyKeys()) {
+				props.put(key, node.getProperty(key));
+			}
+			return props;
+		});
+	}
+
+	/**
+	 * Returns the outgoing edges of a node with the given type, or of any type if
+	 * <code>type</code> is <code>null</code>.
+	 */
+	public CompletableFuture<List<IGraphEdge>> getOutgoing(long nodeId, String type) {
+		return submit(db -> toList(new DuckNode(db, nodeId).getOutgoingWithType(type)));
+	}
+
+	/**
+	 * Returns the incoming edges of a node with the given type, or of any type if
+	 * <code>type</code> is <code>null</code>.
+	 */
+	public CompletableFuture<List<IGraphEdge>> getIncoming(long nodeId, String type) {
+		return submit(db -> toList(new DuckNode(db, nodeId).getIncomingWithType(type)));
+	}
+
+	/**
+	 * Asynchronous version of {@link DuckDatabase#getEdges(java.util.Collection, Direction, String)}.
+	 */
+	public CompletableFuture<Map<Long, List<IGraphEdge>>> getEdges(List<Long> nodeIds, Direction direction, String type) {
+		return submit(db -> db.getEdges(nodeIds, direction, type));
+	}
+
+	/**
+	 * Asynchronous version of {@link DuckDatabase#getDegrees(java.util.Collection, Direction, String)}.
+	 */
+	public CompletableFuture<Map<Long, Integer>> getDegrees(List<Long> nodeIds, Direction direction, String type) {
+		return submit(db -> db.getDegrees(nodeIds, direction, type));
+	}
+
+	public CompletableFuture<List<IGraphNode>> allNodes(String label) {
+		return submit(db -> toList(db.allNodes(label)));
+	}
+
+	public CompletableFuture<Integer> countNodes(String label) {
+		return submit(db -> db.allNodes(label).size());
+	}
+
+	/**
+	 * Stops accepting queries and closes the read connections once the queries
+	 * already submitted have finished, waiting for them for a limited time.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				LOGGER.warn("Background queries did not finish in {} seconds", CLOSE_TIMEOUT_SECONDS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		connections.close();
+	}
+
+	private static <T> List<T> toList(Iterable<? extends T> it) {
+		final List<T> results = new ArrayList<>();
+		for (T e : it) {
+			results.add(e);
+		}
+		return results;
+	}
+
+}
@@ -0,0 +1,352 @@
+package org.eclipse.hawk.duckdb;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * Encodes the values of BLOB properties into a compact binary format. The first
+ * byte is a tag for the shape of the value, followed by its contents in big-endian
+ * order. Primitive arrays, string arrays, and array/linked lists and hash sets of
+ * primitive wrappers and strings have their own tags: anything else falls back
+ * to Java serialization.
+ *
+ * Older versions of this backend stored the Java serialization of every value as a
+ * mostly hex-encoded string. These values start with {@link #LEGACY_PREFIX}, which
+ * is never used as a tag, and can still be decoded.
+ */
+public final class DuckBlobCodec {
+
+	/** First byte of values stored by older versions of this backend. */
+	public static final byte LEGACY_PREFIX = (byte) 0xAC;
+
+	private static final byte TAG_BOOLEAN_ARRAY = 0x01;
+	private static final byte TAG_BYTE_ARRAY = 0x02;
+	private static final byte TAG_SHORT_ARRAY = 0x03;
+	private static final byte TAG_INT_ARRAY = 0x04;
+	private static final byte TAG_LONG_ARRAY = 0x05;
+	private static final byte TAG_FLOAT_ARRAY = 0x06;
+	private static final byte TAG_DOUBLE_ARRAY = 0x07;
+	private static final byte TAG_CHAR_ARRAY = 0x08;
+	private static final byte TAG_STRING_ARRAY = 0x09;
+	private static final byte TAG_LIST = 0x0A;
+	private static final byte TAG_SET = 0x0B;
+	private static final byte TAG_SERIALIZED = 0x7F;
+
+	// Tags for the elements of lists and sets
+	private static final byte ELEM_NULL = 0x00;
+	private static final byte ELEM_BOOLEAN = 0x01;
+	private static final byte ELEM_BYTE = 0x02;
+	private static final byte ELEM_SHORT = 0x03;
+	private static final byte ELEM_INT = 0x04;
+	private static final byte ELEM_LONG = 0x05;
+	private static final byte ELEM_FLOAT = 0x06;
+	private static final byte ELEM_DOUBLE = 0x07;
+	private static final byte ELEM_CHAR = 0x08;
+	private static final byte ELEM_STRING = 0x09;
+
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	private DuckBlobCodec() {
+		// static methods only
+	}
+
+	public static byte[] encode(Object value) throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bos)) {
+			if (!encodeCompact(out, value)) {
+				bos.reset();
+				out.writeByte(TAG_SERIALIZED);
+				try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+					oos.writeObject(value);
+				}
+			}
+		}
+		return bos.toByteArray();
+	}
+
+	public static Object decode(byte[] bytes) throws IOException, ClassNotFoundException {
+		if (bytes.length > 0 && bytes[0] == LEGACY_PREFIX) {
+			return decodeLegacy(bytes);
+		}
+
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			final byte tag = in.readByte();
+			switch (tag) {
+			case TAG_BOOLEAN_ARRAY: {
+				final boolean[] v = new boolean[in.readInt()];
+				for (int i = 0; i < v.length; i++) v[i] = in.readBoolean();
+				return v;
+			}
+			case TAG_BYTE_ARRAY: {
+				final byte[] v = new byte[in.readInt()];
+				in.readFully(v);
+				return v;
+			}
+			case TAG_SHORT_ARRAY: {
+				final short[] v = new short[in.readInt()];
+				for (int i = 0; i < v.length; i++) v[i] = in.readShort();
+				return v;
+			}
+			case TAG_INT_ARRAY: {
+				final int[] v = new int[in.readInt()];
+				for (int i = 0; i < v.length; i++) v[i] = in.readInt();
+				return v;
+			}
+			case TAG_LONG_ARRAY: {
+				final long[] v = new long[in.readInt()];
+				for (int i = 0; i < v.length; i++) v[i] = in.readLong();
+				return v;
+			}
+			case TAG_FLOAT_ARRAY: {
+				final float[] v = new float[in.readInt()];
+				for (int i = 0; i < v.length; i++) v[i] = in.readFloat();
+				return v;
+			}
+			case TAG_DOUBLE_ARRAY: {
+				final double[] v = new double[in.readInt()];
+				for (int i = 0; i < v.length; i++) v[i] = in.readDouble();
+				return v;
+			}
+			case TAG_CHAR_ARRAY: {
+				final char[] v = new char[in.readInt()];
+				for (int i = 0; i < v.length; i++) v[i] = in.readChar();
+				return v;
+			}
+			case TAG_STRING_ARRAY: {
+				final String[] v = new String[in.readInt()];
+				for (int i = 0; i < v.length; i++) v[i] = readString(in);
+				return v;
+			}
+			case TAG_LIST: {
+				final int size = in.readInt();
+				final List<Object> v = new ArrayList<>(size);
+				for (int i = 0; i < size; i++) v.add(readElement(in));
+				return v;
+			}
+			case TAG_SET: {
+				final int size = in.readInt();
+				final Set<Object> v = new LinkedHashSet<>();
+				for (int i = 0; i < size; i++) v.add(readElement(in));
+				return v;
+			}
+			case TAG_SERIALIZED:
+				try (ObjectInputStream ois = new ObjectInputStream(in)) {
+					return ois.readObject();
+				}
+			default:
+				throw new IOException(String.format("Unknown BLOB value tag 0x%02X", tag));
+			}
+		}
+	}
+
+	/**
+	 * Returns the bytes as a DuckDB BLOB literal, for the appender and CSV loads
+	 * which can only take BLOBs as strings. Printable ASCII characters are kept
+	 * as is, and the rest are escaped as <code>\xNN</code>.
+	 */
+	public static String toBlobLiteral(byte[] bytes) {
+		final StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			if (b >= 0x20 && b < 0x7F && b != '\\') {
+				sb.append((char) b);
+			} else {
+				sb.append("\\x").append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Older versions stored <code>"\\x" + hex(serialized)</code> cast to a BLOB, which
+	 * only unescaped the first byte of the serialization stream.
+	 */
+	private static Object decodeLegacy(byte[] bytes) throws IOException, ClassNotFoundException {
+		try {
+			final byte[] rest = Hex.decodeHex(new String(bytes, 1, bytes.length - 1, StandardCharsets.US_ASCII));
+			final byte[] serialized = new byte[rest.length + 1];
+			serialized[0] = bytes[0];
+			System.arraycopy(rest, 0, serialized, 1, rest.length);
+
+			try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+				return ois.readObject();
+			}
+		} catch (DecoderException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static boolean encodeCompact(DataOutputStream out, Object value) throws IOException {
+		if (value instanceof boolean[]) {
+			final boolean[] v = (boolean[]) value;
+			out.writeByte(TAG_BOOLEAN_ARRAY);
+			out.writeInt(v.length);
+			for (boolean e : v) out.writeBoolean(e);
+		} else if (value instanceof byte[]) {
+			final byte[] v = (byte[]) value;
+			out.writeByte(TAG_BYTE_ARRAY);
+			out.writeInt(v.length);
+			out.write(v);
+		} else if (value instanceof short[]) {
+			final short[] v = (short[]) value;
+			out.writeByte(TAG_SHORT_ARRAY);
+			out.writeInt(v.length);
+			for (short e : v) out.writeShort(e);
+		} else if (value instanceof int[]) {
+			final int[] v = (int[]) value;
+			out.writeByte(TAG_INT_ARRAY);
+			out.writeInt(v.length);
+			for (int e : v) out.writeInt(e);
+		} else if (value instanceof long[]) {
+			final long[] v = (long[]) value;
+			out.writeByte(TAG_LONG_ARRAY);
+			out.writeInt(v.length);
+			for (long e : v) out.writeLong(e);
+		} else if (value instanceof float[]) {
+			final float[] v = (float[]) value;
+			out.writeByte(TAG_FLOAT_ARRAY);
+			out.writeInt(v.length);
+			for (float e : v) out.writeFloat(e);
+		} else if (value instanceof double[]) {
+			final double[] v = (double[]) value;
+			out.writeByte(TAG_DOUBLE_ARRAY);
+			out.writeInt(v.length);
+			for (double e : v) out.writeDouble(e);
+		} else if (value instanceof char[]) {
+			final char[] v = (char[]) value;
+			out.writeByte(TAG_CHAR_ARRAY);
+			out.writeInt(v.length);
+			for (char e : v) out.writeChar(e);
+		} else if (value != null && value.getClass() == String[].class) {
+			final String[] v = (String[]) value;
+			out.writeByte(TAG_STRING_ARRAY);
+			out.writeInt(v.length);
+			for (String e : v) writeString(out, e);
+		} else if (isCompactList(value) || isCompactSet(value)) {
+			final Collection<?> v = (Collection<?>) value;
+			out.writeByte(isCompactList(value) ? TAG_LIST : TAG_SET);
+			out.writeInt(v.size());
+			for (Object e : v) {
+				if (!writeElement(out, e)) {
+					return false;
+				}
+			}
+		} else {
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Lists are decoded as {@link ArrayList}s, so only general-purpose lists get
+	 * their own tag: other lists (e.g. immutable ones) keep their class through
+	 * Java serialization.
+	 */
+	private static boolean isCompactList(Object value) {
+		return value != null && (value.getClass() == ArrayList.class || value.getClass() == LinkedList.class);
+	}
+
+	/**
+	 * Sets are decoded as {@link LinkedHashSet}s, so sets with their own ordering
+	 * or semantics (e.g. {@link java.util.TreeSet}) keep their class through Java
+	 * serialization.
+	 */
+	private static boolean isCompactSet(Object value) {
+		return value != null && (value.getClass() == HashSet.class || value.getClass() == LinkedHashSet.class);
+	}
+
+	private static boolean writeElement(DataOutputStream out, Object e) throws IOException {
+		if (e == null) {
+			out.writeByte(ELEM_NULL);
+		} else if (e instanceof String) {
+			out.writeByte(ELEM_STRING);
+			writeString(out, (String) e);
+		} else if (e instanceof Integer) {
+			out.writeByte(ELEM_INT);
+			out.writeInt((int) e);
+		} else if (e instanceof Long) {
+			out.writeByte(ELEM_LONG);
+			out.writeLong((long) e);
+		} else if (e instanceof Double) {
+			out.writeByte(ELEM_DOUBLE);
+			out.writeDouble((double) e);
+		} else if (e instanceof Boolean) {
+			out.writeByte(ELEM_BOOLEAN);
+			out.writeBoolean((boolean) e);
+		} else if (e instanceof Float) {
+			out.writeByte(ELEM_FLOAT);
+			out.writeFloat((float) e);
+		} else if (e instanceof Short) {
+			out.writeByte(ELEM_SHORT);
+			out.writeShort((short) e);
+		} else if (e instanceof Byte) {
+			out.writeByte(ELEM_BYTE);
+			out.writeByte((byte) e);
+		} else if (e instanceof Character) {
+			out.writeByte(ELEM_CHAR);
+			out.writeChar((char) e);
+		} else {
+			return false;
+		}
+		return true;
+	}
+
+	private static Object readElement(DataInputStream in) throws IOException {
+		final byte tag = in.readByte();
+		switch (tag) {
+		case ELEM_NULL: return null;
+		case ELEM_STRING: return readString(in);
+		case ELEM_INT: return in.readInt();
+		case ELEM_LONG: return in.readLong();
+		case ELEM_DOUBLE: return in.readDouble();
+		case ELEM_BOOLEAN: return in.readBoolean();
+		case ELEM_FLOAT: return in.readFloat();
+		case ELEM_SHORT: return in.readShort();
+		case ELEM_BYTE: return in.readByte();
+		case ELEM_CHAR: return in.readChar();
+		default:
+			throw new IOException(String.format("Unknown BLOB element tag 0x%02X", tag));
+		}
+	}
+
+	/**
+	 * Writes a string as its UTF-8 length plus one (0 for null), followed by its UTF-8 bytes.
+	 */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(0);
+		} else {
+			final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length + 1);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		final int length = in.readInt() - 1;
+		if (length < 0) {
+			return null;
+		}
+
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
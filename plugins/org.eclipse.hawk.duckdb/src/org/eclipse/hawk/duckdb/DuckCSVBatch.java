@@ -0,0 +1,137 @@
+package org.eclipse.hawk.duckdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Batch which writes new rows into CSV staging files, and loads them with
+ * <code>COPY</code> when flushed. This avoids the per-row overhead of the
+ * appenders for very large imports.
+ *
+ * Properties are staged into one file per value type, so the other value columns
+ * are left out of the <code>COPY</code> and no NULL markers are needed.
+ */
+public class DuckCSVBatch extends AbstractDuckBatch {
+
+	private static final String COPY_OPTIONS = String.format(
+		"DELIMITER '%c', QUOTE '%c', ESCAPE '%c'",
+		DuckCSVWriter.DELIMITER, DuckCSVWriter.QUOTE, DuckCSVWriter.QUOTE);
+
+	private final Connection duckDB;
+	private final File stagingFolder;
+
+	private final DuckCSVWriter nodes;
+	private final DuckCSVWriter edges;
+	private final Map<PropertyValueType, DuckCSVWriter> properties = new EnumMap<>(PropertyValueType.class);
+
+	public DuckCSVBatch(Connection duckDB, File stagingFolder, DuckDictionary propertyNames, int flushThreshold) throws IOException {
+		super(propertyNames, flushThreshold);
+		this.duckDB = duckDB;
+		this.stagingFolder = stagingFolder;
+
+		stagingFolder.mkdirs();
+		this.nodes = createWriter(DuckDatabase.TABLE_NODES);
+		this.edges = createWriter(DuckDatabase.TABLE_EDGES);
+	}
+
+	@Override
+	protected void writeNode(long nodeId, int labelId) throws IOException {
+		nodes.writeLong(nodeId);
+		nodes.writeInt(labelId);
+		nodes.endRow();
+	}
+
+	@Override
+	protected void writeEdge(long edgeId, long fromId, long toId, int labelId) throws IOException {
+		edges.writeLong(edgeId);
+		edges.writeLong(fromId);
+		edges.writeLong(toId);
+		edges.writeInt(labelId);
+		edges.endRow();
+	}
+
+	@Override
+	protected void writeProperty(long elemId, int nameId, PropertyValueType vt, Object value) throws IOException {
+		DuckCSVWriter writer = properties.get(vt);
+		if (writer == null) {
+			writer = createWriter(DuckDatabase.TABLE_PROPERTIES + "_" + vt.name().toLowerCase());
+			properties.put(vt, writer);
+		}
+
+		writer.writeLong(elemId);
+		writer.writeInt(nameId);
+		vt.writeValue(writer, value);
+		writer.writeInt(vt.getTag());
+		writer.endRow();
+	}
+
+	@Override
+	protected void flushRows() throws SQLException {
+		copy(nodes, DuckDatabase.TABLE_NODES, "id, label_id", null);
+		copy(edges, DuckDatabase.TABLE_EDGES, "id, from_node_id, to_node_id, label_id", null);
+		for (Map.Entry<PropertyValueType, DuckCSVWriter> entry : properties.entrySet()) {
+			final PropertyValueType vt = entry.getKey();
+			final String valueColumn = vt.getColumnName();
+			final boolean textValue = vt == PropertyValueType.STRING || vt == PropertyValueType.BLOB;
+			copy(entry.getValue(), DuckDatabase.TABLE_PROPERTIES,
+				"elem_id, name_id, " + valueColumn + ", " + PropertyValueType.TAG_COLUMN,
+				textValue ? valueColumn : null);
+		}
+	}
+
+	@Override
+	protected void closeRows() throws SQLException {
+		try {
+			nodes.close();
+			edges.close();
+			for (DuckCSVWriter writer : properties.values()) {
+				writer.close();
+			}
+		} catch (IOException e) {
+			throw new SQLException("Could not close the CSV staging files", e);
+		}
+	}
+
+	private DuckCSVWriter createWriter(String name) throws IOException {
+		final File fCSV = File.createTempFile(name, ".csv", stagingFolder);
+		fCSV.deleteOnExit();
+		return new DuckCSVWriter(fCSV);
+	}
+
+	/**
+	 * Loads the rows in the staging file into the table, and empties the file.
+	 * Quoted columns are in <code>notNullColumns</code>, so empty strings are
+	 * not read as NULLs. It may be <code>null</code> if there are none.
+	 */
+	private void copy(DuckCSVWriter writer, String table, String columns, String notNullColumns) throws SQLException {
+		if (writer.getRowCount() == 0) {
+			return;
+		}
+
+		try {
+			writer.flush();
+
+			final String sql = String.format(
+				"COPY %s (%s) FROM '%s' (%s%s);",
+				table, columns,
+				writer.getFile().getAbsolutePath().replace("'", "''"),
+				COPY_OPTIONS, notNullColumns == null ? "" : ", FORCE_NOT_NULL (" + notNullColumns + ")");
+			try (Statement stmt = duckDB.createStatement()) {
+				if (DuckDatabase.DEBUG_SQL) {
+					System.out.println(sql);
+				}
+				stmt.execute(sql);
+			}
+
+			writer.reset();
+		} catch (IOException e) {
+			throw new SQLException("Could not write the CSV staging file for " + table, e);
+		}
+	}
+
+}
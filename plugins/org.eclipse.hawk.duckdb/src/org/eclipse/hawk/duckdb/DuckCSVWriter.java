@@ -0,0 +1,214 @@
+package org.eclipse.hawk.duckdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes rows into a pipe-delimited CSV staging file, to be loaded by DuckDB with
+ * <code>COPY</code>. Strings are always quoted, doubling any quotes inside them.
+ * NULL values are not supported: callers should leave out the columns instead.
+ *
+ * The writer reuses a single byte buffer and encodes numbers without going through
+ * strings where possible, as it is meant for very large imports. The staging file
+ * can be reused after a load by calling {@link #reset()}.
+ */
+public class DuckCSVWriter implements AutoCloseable {
+
+	public static final char DELIMITER = '|';
+	public static final char QUOTE = '"';
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final byte[] TRUE_BYTES = "true".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] FALSE_BYTES = "false".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] MIN_LONG_BYTES = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+	private final File file;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+	private final byte[] digits = new byte[20];
+
+	private boolean firstField = true;
+	private int rowCount;
+
+	public DuckCSVWriter(File file) throws IOException {
+		this.file = file;
+		this.channel = FileChannel.open(file.toPath(),
+			StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the number of complete rows written since the last reset.
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public void writeLong(long value) throws IOException {
+		startField();
+		if (value == Long.MIN_VALUE) {
+			put(MIN_LONG_BYTES);
+			return;
+		}
+
+		ensureRemaining(digits.length);
+		if (value < 0) {
+			buffer.put((byte) '-');
+			value = -value;
+		}
+
+		int pos = digits.length;
+		do {
+			digits[--pos] = (byte) ('0' + (value % 10));
+			value /= 10;
+		} while (value != 0);
+		buffer.put(digits, pos, digits.length - pos);
+	}
+
+	public void writeInt(int value) throws IOException {
+		writeLong(value);
+	}
+
+	public void writeBoolean(boolean value) throws IOException {
+		startField();
+		put(value ? TRUE_BYTES : FALSE_BYTES);
+	}
+
+	public void writeFloat(float value) throws IOException {
+		startField();
+		putAscii(Float.toString(value));
+	}
+
+	public void writeDouble(double value) throws IOException {
+		startField();
+		putAscii(Double.toString(value));
+	}
+
+	public void writeString(String value) throws IOException {
+		startField();
+		ensureRemaining(1);
+		buffer.put((byte) QUOTE);
+
+		int segmentStart = 0;
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) == QUOTE) {
+				// Quotes are escaped by doubling them
+				encode(value, segmentStart, i + 1);
+				ensureRemaining(1);
+				buffer.put((byte) QUOTE);
+				segmentStart = i + 1;
+			}
+		}
+		encode(value, segmentStart, value.length());
+
+		ensureRemaining(1);
+		buffer.put((byte) QUOTE);
+	}
+
+	public void endRow() throws IOException {
+		ensureRemaining(1);
+		buffer.put((byte) '\n');
+		firstField = true;
+		rowCount++;
+	}
+
+	/**
+	 * Writes any buffered bytes to the staging file.
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Empties the staging file, so it can be reused for the next load.
+	 */
+	public void reset() throws IOException {
+		buffer.clear();
+		channel.truncate(0);
+		channel.position(0);
+		firstField = true;
+		rowCount = 0;
+	}
+
+	/**
+	 * Closes and deletes the staging file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			channel.close();
+		} finally {
+			file.delete();
+		}
+	}
+
+	private void startField() throws IOException {
+		if (firstField) {
+			firstField = false;
+		} else {
+			ensureRemaining(1);
+			buffer.put((byte) DELIMITER);
+		}
+	}
+
+	private void encode(String value, int start, int end) throws IOException {
+		if (start == end) {
+			return;
+		}
+
+		final CharBuffer chars = CharBuffer.wrap(value, start, end);
+		encoder.reset();
+		while (true) {
+			final CoderResult result = encoder.encode(chars, buffer, true);
+			if (result.isOverflow()) {
+				flush();
+			} else if (result.isUnderflow()) {
+				break;
+			} else {
+				try {
+					result.throwException();
+				} catch (CharacterCodingException e) {
+					throw new IOException("Could not encode string into UTF-8", e);
+				}
+			}
+		}
+		while (encoder.flush(buffer).isOverflow()) {
+			flush();
+		}
+	}
+
+	private void putAscii(String s) throws IOException {
+		ensureRemaining(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			buffer.put((byte) s.charAt(i));
+		}
+	}
+
+	private void put(byte[] bytes) throws IOException {
+		ensureRemaining(bytes.length);
+		buffer.put(bytes);
+	}
+
+	private void ensureRemaining(int n) throws IOException {
+		if (buffer.remaining() < n) {
+			flush();
+		}
+	}
+
+}
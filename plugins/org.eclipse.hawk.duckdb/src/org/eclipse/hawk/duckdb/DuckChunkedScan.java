@@ -0,0 +1,203 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the rows of a query in chunks of up to a fixed number of rows, in
+ * ascending order of a <code>BIGINT</code> key column. The keys of each chunk are
+ * read into a primitive array, and subclasses may read further columns in the
+ * same way. Each result set is closed as soon as its chunk has been read, so
+ * other queries can run between chunks.
+ *
+ * The first chunk resumes after the last key seen, as usual. If it is full,
+ * later chunks are also limited to a window of keys, which lets DuckDB skip the
+ * row groups outside the window instead of sorting all the remaining rows for
+ * every chunk. The width of the window adapts to the density of the keys.
+ */
+abstract class DuckChunkedScan<T> implements Iterator<T> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DuckChunkedScan.class);
+
+	/** Upper bound for the width of the key window, to avoid overflows. */
+	private static final long MAX_WINDOW = 1L << 40;
+
+	private final DuckDatabase db;
+	private final String sqlChunk;
+	private final String sqlWindowChunk;
+	private final String sqlMaxKey;
+	private final Object[] params;
+	private final int fetchSize;
+
+	private T chunk;
+	private long lastKey = Long.MIN_VALUE;
+	private long maxKey;
+	private long window;
+	private boolean windowed, exhausted;
+
+	/**
+	 * Creates a new scan.
+	 *
+	 * @param keyColumn Column with the keys, which is read first.
+	 * @param otherColumns Columns read after the key, or <code>null</code> if none.
+	 * @param fromWhere <code>FROM ... WHERE ...</code> part of the query, without a trailing semicolon.
+	 * @param distinct If <code>true</code>, duplicate rows will be removed.
+	 * @param fetchSize Maximum number of rows in a chunk.
+	 * @param params Values for the parameters in <code>fromWhere</code>.
+	 */
+	protected DuckChunkedScan(DuckDatabase db, String keyColumn, String otherColumns, String fromWhere, boolean distinct, int fetchSize, Object... params) {
+		this.db = db;
+		this.params = params;
+		this.fetchSize = fetchSize;
+		this.window = fetchSize;
+
+		final String columns = (distinct ? "DISTINCT " : "") + keyColumn + (otherColumns == null ? "" : ", " + otherColumns);
+		this.sqlChunk = String.format("SELECT %s %s AND %s > ? ORDER BY %s LIMIT %d;",
+			columns, fromWhere, keyColumn, keyColumn, fetchSize);
+		this.sqlWindowChunk = String.format("SELECT %s %s AND %s > ? AND %s <= ? ORDER BY %s LIMIT %d;",
+			columns, fromWhere, keyColumn, keyColumn, keyColumn, fetchSize);
+		this.sqlMaxKey = String.format("SELECT max(%s) %s;", keyColumn, fromWhere);
+	}
+
+	/**
+	 * Reads the columns after the key for the row at the given position of the
+	 * current chunk. Does nothing by default.
+	 */
+	protected void readRow(ResultSet rs, int row) throws SQLException {
+		// nothing to do
+	}
+
+	/**
+	 * Called before running the query for a chunk. Does nothing by default.
+	 */
+	protected void beforeQuery() throws SQLException {
+		// nothing to do
+	}
+
+	/**
+	 * Called before reading a chunk, with the maximum number of rows it may have.
+	 */
+	protected void startChunk(int capacity) {
+		// nothing to do
+	}
+
+	/**
+	 * Returns the chunk with the rows read since {@link #startChunk(int)}.
+	 */
+	protected abstract T finishChunk(long[] keys, int size);
+
+	@Override
+	public boolean hasNext() {
+		while (chunk == null && !exhausted) {
+			try {
+				fetchChunk();
+			} catch (SQLException e) {
+				LOGGER.error("Could not run query " + (windowed ? sqlWindowChunk : sqlChunk), e);
+				exhausted = true;
+			}
+		}
+		return chunk != null;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final T result = chunk;
+		chunk = null;
+		return result;
+	}
+
+	private void fetchChunk() throws SQLException {
+		beforeQuery();
+		if (windowed && lastKey >= maxKey) {
+			// Look for rows added while scanning
+			final Long newMaxKey = queryMaxKey();
+			if (newMaxKey == null || newMaxKey <= maxKey) {
+				exhausted = true;
+				return;
+			}
+			maxKey = newMaxKey;
+		}
+
+		final long upperKey = windowed ? Math.min(maxKey, lastKey + window) : Long.MAX_VALUE;
+		final PreparedStatement stmt = db.prepareCachedReadSQL(windowed ? sqlWindowChunk : sqlChunk);
+		setParameters(stmt, params);
+		stmt.setLong(params.length + 1, lastKey);
+		if (windowed) {
+			stmt.setLong(params.length + 2, upperKey);
+		}
+
+		final long[] keys = new long[fetchSize];
+		int size = 0;
+		startChunk(fetchSize);
+		try (ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				keys[size] = rs.getLong(1);
+				readRow(rs, size);
+				size++;
+			}
+		}
+		if (size > 0) {
+			chunk = finishChunk(size == fetchSize ? keys : Arrays.copyOf(keys, size), size);
+		}
+
+		if (size == fetchSize) {
+			lastKey = keys[size - 1];
+			if (windowed) {
+				window = Math.max(fetchSize, window / 2);
+			} else {
+				final Long newMaxKey = queryMaxKey();
+				windowed = newMaxKey != null;
+				maxKey = windowed ? newMaxKey : lastKey;
+			}
+		} else if (windowed) {
+			lastKey = upperKey;
+			if (size < fetchSize / 2) {
+				window = Math.min(MAX_WINDOW, window * 2);
+			}
+		} else {
+			exhausted = true;
+		}
+	}
+
+	private Long queryMaxKey() throws SQLException {
+		final PreparedStatement stmt = db.prepareCachedReadSQL(sqlMaxKey);
+		setParameters(stmt, params);
+		try (ResultSet rs = stmt.executeQuery()) {
+			if (rs.next()) {
+				final long key = rs.getLong(1);
+				return rs.wasNull() ? null : key;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Sets the values of the first parameters of a statement: only {@link Long},
+	 * {@link Integer}, {@link Double} and {@link String} are supported.
+	 */
+	static void setParameters(PreparedStatement stmt, Object[] params) throws SQLException {
+		for (int i = 0; i < params.length; i++) {
+			final Object param = params[i];
+			if (param instanceof Long) {
+				stmt.setLong(i + 1, (long) param);
+			} else if (param instanceof Integer) {
+				stmt.setInt(i + 1, (int) param);
+			} else if (param instanceof Double) {
+				stmt.setDouble(i + 1, (double) param);
+			} else {
+				stmt.setString(i + 1, (String) param);
+			}
+		}
+	}
+
+}
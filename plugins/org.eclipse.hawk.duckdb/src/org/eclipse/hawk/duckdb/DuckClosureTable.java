@@ -0,0 +1,343 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.duckdb.DuckDBAppender;
+import org.duckdb.DuckDBConnection;
+
+/**
+ * Transitive closure of the edges with certain labels (e.g. containment), which
+ * keeps a row for each pair of nodes connected by a path of those edges. This
+ * turns queries for all the ancestors or descendants of a node into a single
+ * indexed lookup, regardless of their depth.
+ *
+ * The closure is updated incrementally as edges with those labels are created
+ * and deleted while these edges form a forest, as containment does: each node
+ * has at most one incoming edge with those labels, and there are no cycles.
+ * Otherwise, a path could be added twice or removed while another one remains,
+ * so an edge which breaks the forest marks the closure as out of date instead,
+ * and so does every later change until a rebuild finds a forest again. In batch
+ * mode, the closure is also marked as out of date. An out of date closure is
+ * rebuilt from scratch when it is next queried, when batch mode is exited, or
+ * before committing, so the committed closure is always up to date.
+ *
+ * The labels are stored in their own table, so the closure is maintained again
+ * when the database is reopened.
+ */
+public class DuckClosureTable {
+
+	static final String TABLE_CLOSURE = "closure";
+	static final String TABLE_CLOSURE_LABELS = "closure_labels";
+
+	/**
+	 * Deleting an edge whose target has more descendants than this removes the
+	 * affected paths with one set-based statement, which scans the table, instead
+	 * of one indexed delete per descendant.
+	 */
+	static final int MAX_DESCENDANTS_FOR_POINT_DELETES = 32;
+
+	private static final String SCHEMA = "main";
+
+	private static final String SQL_CREATE = String.format(
+		"CREATE TABLE IF NOT EXISTS %s (ancestor_id BIGINT NOT NULL, descendant_id BIGINT NOT NULL);",
+		TABLE_CLOSURE);
+	private static final String SQL_CREATE_LABELS = String.format(
+		"CREATE TABLE IF NOT EXISTS %s (label_id INTEGER NOT NULL);",
+		TABLE_CLOSURE_LABELS);
+	private static final String SQL_LIST_LABELS = String.format(
+		"SELECT label_id FROM %s;", TABLE_CLOSURE_LABELS);
+	private static final String SQL_CLEAR = String.format("DELETE FROM %s;", TABLE_CLOSURE);
+	private static final String SQL_CLEAR_LABELS = String.format("DELETE FROM %s;", TABLE_CLOSURE_LABELS);
+
+	private static final String SQL_ANCESTORS = String.format(
+		"SELECT ancestor_id FROM %s WHERE descendant_id = ? ORDER BY ancestor_id;", TABLE_CLOSURE);
+	private static final String SQL_DESCENDANTS = String.format(
+		"SELECT descendant_id FROM %s WHERE ancestor_id = ? ORDER BY descendant_id;", TABLE_CLOSURE);
+
+	/*
+	 * An edge from A to B connects A and its ancestors with B and its descendants.
+	 */
+	private static final String SQL_SOURCE_AND_ANCESTORS = String.format(
+		"SELECT ancestor_id FROM %s WHERE descendant_id = $1 UNION ALL SELECT $1", TABLE_CLOSURE);
+	private static final String SQL_TARGET_AND_DESCENDANTS = String.format(
+		"SELECT descendant_id FROM %s WHERE ancestor_id = $2 UNION ALL SELECT $2", TABLE_CLOSURE);
+	private static final String SQL_INSERT_PATHS = String.format(
+		"INSERT INTO %s (ancestor_id, descendant_id) SELECT x.ancestor_id, y.descendant_id FROM (%s) x, (%s) y;",
+		TABLE_CLOSURE, SQL_SOURCE_AND_ANCESTORS, SQL_TARGET_AND_DESCENDANTS);
+	private static final String SQL_DELETE_PATHS = String.format(
+		"DELETE FROM %s WHERE ancestor_id IN (%s) AND descendant_id IN (%s);",
+		TABLE_CLOSURE, SQL_SOURCE_AND_ANCESTORS, SQL_TARGET_AND_DESCENDANTS);
+	private static final String SQL_DELETE_PATHS_TO = String.format(
+		"DELETE FROM %s WHERE descendant_id = $2 AND ancestor_id IN (%s);",
+		TABLE_CLOSURE, SQL_SOURCE_AND_ANCESTORS);
+
+	/*
+	 * An edge from A to B breaks the forest if B already has a parent, or if it
+	 * closes a cycle because B is an ancestor of A.
+	 */
+	private static final String SQL_BREAKS_FOREST = String.format(
+		"SELECT EXISTS (SELECT 1 FROM %s WHERE descendant_id = $2 OR (ancestor_id = $2 AND descendant_id = $1));",
+		TABLE_CLOSURE);
+
+	private final DuckDatabase db;
+	private final Set<Integer> labelIds;
+	private final String sqlRebuild;
+	private final String sqlIsForest;
+	private boolean stale;
+	private boolean forest = true;
+
+	public DuckClosureTable(DuckDatabase db, Set<Integer> labelIds) {
+		this.db = db;
+		this.labelIds = Collections.unmodifiableSet(new HashSet<>(labelIds));
+
+		final String labelList = labelIds.stream().map(String::valueOf).collect(Collectors.joining(", "));
+		this.sqlRebuild = String.format(
+			"INSERT INTO %1$s (ancestor_id, descendant_id)"
+			+ " WITH RECURSIVE steps(a, d) AS (SELECT from_node_id, to_node_id FROM %2$s WHERE label_id IN (%3$s)),"
+			+ " paths(a, d) AS (SELECT a, d FROM steps UNION SELECT p.a, s.d FROM paths p JOIN steps s ON s.a = p.d)"
+			+ " SELECT a, d FROM paths;",
+			TABLE_CLOSURE, DuckDatabase.TABLE_EDGES, labelList);
+		this.sqlIsForest = String.format(
+			"SELECT NOT EXISTS (SELECT to_node_id FROM %2$s WHERE label_id IN (%3$s) GROUP BY to_node_id HAVING COUNT(*) > 1)"
+			+ " AND NOT EXISTS (SELECT 1 FROM %1$s WHERE ancestor_id = descendant_id);",
+			TABLE_CLOSURE, DuckDatabase.TABLE_EDGES, labelList);
+	}
+
+	/**
+	 * Returns the IDs of the labels stored by {@link #create()}, or an empty set if
+	 * the closure has not been created.
+	 */
+	static Set<Integer> loadLabelIds(DuckDatabase db) throws SQLException {
+		final Set<Integer> ids = new HashSet<>();
+		synchronized (db.getConnectionLock()) {
+			try (Statement stmt = ((DuckDBConnection) db.getGraph()).createStatement()) {
+				stmt.execute(SQL_CREATE_LABELS);
+				try (ResultSet rs = stmt.executeQuery(SQL_LIST_LABELS)) {
+					while (rs.next()) {
+						ids.add(rs.getInt(1));
+					}
+				}
+			}
+		}
+		return ids;
+	}
+
+	/**
+	 * Creates the closure table if needed, stores the labels and fills the
+	 * closure from the current edges.
+	 */
+	public void create() throws SQLException {
+		synchronized (db.getConnectionLock()) {
+			try (Statement stmt = ((DuckDBConnection) db.getGraph()).createStatement()) {
+				stmt.execute(SQL_CREATE);
+				stmt.execute(SQL_CREATE_LABELS);
+				stmt.execute(SQL_CLEAR_LABELS);
+				stmt.execute(String.format("CREATE INDEX IF NOT EXISTS %1$s_ancestor ON %1$s (ancestor_id);", TABLE_CLOSURE));
+				stmt.execute(String.format("CREATE INDEX IF NOT EXISTS %1$s_descendant ON %1$s (descendant_id);", TABLE_CLOSURE));
+			}
+
+			try (DuckDBAppender appender = ((DuckDBConnection) db.getGraph()).createAppender(SCHEMA, TABLE_CLOSURE_LABELS)) {
+				for (int labelId : labelIds) {
+					appender.beginRow();
+					appender.append(labelId);
+					appender.endRow();
+				}
+			}
+			rebuild();
+		}
+	}
+
+	/**
+	 * Removes all the rows of the closure and its labels, so it will not be
+	 * maintained anymore.
+	 */
+	public void delete() throws SQLException {
+		db.prepareCachedSQL(SQL_CLEAR).execute();
+		db.prepareCachedSQL(SQL_CLEAR_LABELS).execute();
+	}
+
+	public Set<Integer> getLabelIds() {
+		return labelIds;
+	}
+
+	public boolean tracks(int labelId) {
+		return labelIds.contains(labelId);
+	}
+
+	/**
+	 * Recomputes the closure from the current edges.
+	 */
+	public void rebuild() throws SQLException {
+		db.prepareCachedSQL(SQL_CLEAR).execute();
+		db.prepareCachedSQL(sqlRebuild).execute();
+		stale = false;
+		checkForest();
+	}
+
+	/**
+	 * Checks if the edges with the labels of the closure form a forest, which is
+	 * needed to update the closure incrementally. The closure must be up to date.
+	 */
+	void checkForest() throws SQLException {
+		try (ResultSet rs = db.prepareCachedSQL(sqlIsForest).executeQuery()) {
+			forest = rs.next() && rs.getBoolean(1);
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the closure is updated incrementally, as its
+	 * edges form a forest.
+	 */
+	public boolean isIncremental() {
+		return forest && !stale;
+	}
+
+	/**
+	 * Marks the closure as out of date, so it will be rebuilt before it is used.
+	 */
+	void invalidate() {
+		stale = true;
+	}
+
+	/**
+	 * Rebuilds the closure if it is out of date.
+	 */
+	void refresh() throws SQLException {
+		if (stale) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Adds the paths through a new edge with one of the labels of the closure.
+	 */
+	void edgeCreated(long fromId, long toId) throws SQLException {
+		if (stale) {
+			return;
+		}
+		if (!forest || fromId == toId || breaksForest(fromId, toId)) {
+			forest = false;
+			invalidate();
+			return;
+		}
+
+		final PreparedStatement stmt = db.prepareCachedSQL(SQL_INSERT_PATHS);
+		stmt.setLong(1, fromId);
+		stmt.setLong(2, toId);
+		stmt.execute();
+	}
+
+	/**
+	 * Removes the paths through a deleted edge with one of the labels of the closure.
+	 */
+	void edgeDeleted(long fromId, long toId) throws SQLException {
+		if (stale) {
+			return;
+		}
+		if (!forest) {
+			invalidate();
+			return;
+		}
+
+		final PreparedStatement stmtDescendants = db.prepareCachedSQL(SQL_DESCENDANTS);
+		stmtDescendants.setLong(1, toId);
+		final long[] descendants = readIds(stmtDescendants).toArray();
+		if (descendants.length > MAX_DESCENDANTS_FOR_POINT_DELETES) {
+			final PreparedStatement stmt = db.prepareCachedSQL(SQL_DELETE_PATHS);
+			stmt.setLong(1, fromId);
+			stmt.setLong(2, toId);
+			stmt.execute();
+			return;
+		}
+
+		final PreparedStatement stmt = db.prepareCachedSQL(SQL_DELETE_PATHS_TO);
+		stmt.setLong(1, fromId);
+		stmt.setLong(2, toId);
+		stmt.execute();
+		for (long descendantId : descendants) {
+			stmt.setLong(2, descendantId);
+			stmt.execute();
+		}
+	}
+
+	/**
+	 * Removes the paths through any of the nodes in the temporary table, before
+	 * they are deleted together with their edges. These are the paths from the
+	 * node or its ancestors to the node or its descendants.
+	 */
+	void nodesDeleted(DuckIdTable nodeIds) throws SQLException {
+		if (stale) {
+			return;
+		}
+		if (!forest) {
+			invalidate();
+			return;
+		}
+
+		// The SQL depends on the table with the IDs, so it is not worth caching
+		try (PreparedStatement stmt = db.prepareSQL(String.format(
+			"DELETE FROM %1$s c USING ("
+			+ "SELECT x.ancestor_id, y.descendant_id FROM"
+			+ " (SELECT ancestor_id, descendant_id AS node_id FROM %1$s WHERE descendant_id IN (SELECT id FROM %2$s)"
+			+ " UNION ALL SELECT id, id FROM %2$s) x"
+			+ " JOIN (SELECT ancestor_id AS node_id, descendant_id FROM %1$s WHERE ancestor_id IN (SELECT id FROM %2$s)"
+			+ " UNION ALL SELECT id, id FROM %2$s) y ON x.node_id = y.node_id"
+			+ ") p WHERE c.ancestor_id = p.ancestor_id AND c.descendant_id = p.descendant_id;",
+			TABLE_CLOSURE, nodeIds.getName()))) {
+			stmt.execute();
+		}
+	}
+
+	/**
+	 * Returns the IDs of the nodes with a path to the given node, in ascending order.
+	 */
+	public LongStream getAncestors(long nodeId) throws SQLException {
+		return query(SQL_ANCESTORS, nodeId);
+	}
+
+	/**
+	 * Returns the IDs of the nodes with a path from the given node, in ascending order.
+	 */
+	public LongStream getDescendants(long nodeId) throws SQLException {
+		return query(SQL_DESCENDANTS, nodeId);
+	}
+
+	private LongStream query(String sql, long nodeId) throws SQLException {
+		// Read connections see the committed closure, which is always up to date
+		if (!db.usesReadConnection()) {
+			refresh();
+		}
+
+		final PreparedStatement stmt = db.prepareCachedReadSQL(sql);
+		stmt.setLong(1, nodeId);
+		return readIds(stmt);
+	}
+
+	private boolean breaksForest(long fromId, long toId) throws SQLException {
+		final PreparedStatement stmt = db.prepareCachedSQL(SQL_BREAKS_FOREST);
+		stmt.setLong(1, fromId);
+		stmt.setLong(2, toId);
+		try (ResultSet rs = stmt.executeQuery()) {
+			return rs.next() && rs.getBoolean(1);
+		}
+	}
+
+	private static LongStream readIds(PreparedStatement stmt) throws SQLException {
+		final LongStream.Builder ids = LongStream.builder();
+		try (ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				ids.add(rs.getLong(1));
+			}
+		}
+		return ids.build();
+	}
+
+}
@@ -0,0 +1,43 @@
+package org.eclipse.hawk.duckdb;
+
+/**
+ * Batch of values of a property, as read by a columnar scan such as
+ * {@link DuckDatabase#scanLongProperty(String, String, int)}. The IDs of the
+ * elements are in ascending order, and their values are in a primitive array at
+ * the same positions.
+ */
+public final class DuckColumnBatch {
+
+	private final long[] ids;
+	private final long[] longValues;
+	private final double[] doubleValues;
+
+	DuckColumnBatch(long[] ids, long[] longValues, double[] doubleValues) {
+		this.ids = ids;
+		this.longValues = longValues;
+		this.doubleValues = doubleValues;
+	}
+
+	public int size() {
+		return ids.length;
+	}
+
+	public long[] getIds() {
+		return ids;
+	}
+
+	/**
+	 * Returns the values of a scan for long values, or <code>null</code> for other scans.
+	 */
+	public long[] getLongValues() {
+		return longValues;
+	}
+
+	/**
+	 * Returns the values of a scan for double values, or <code>null</code> for other scans.
+	 */
+	public double[] getDoubleValues() {
+		return doubleValues;
+	}
+
+}
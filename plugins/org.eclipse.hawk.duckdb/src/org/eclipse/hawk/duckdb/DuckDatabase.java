@@ -8,13 +8,23 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.stream.LongStream;
 
+import org.duckdb.DuckDBAppender;
+import org.duckdb.DuckDBConnection;
 import org.eclipse.hawk.core.IConsole;
 import org.eclipse.hawk.core.graph.IGraphDatabase;
 import org.eclipse.hawk.core.graph.IGraphEdge;
@@ -23,6 +33,9 @@ import org.eclipse.hawk.core.graph.IGraphNode;
 import org.eclipse.hawk.core.graph.IGraphNodeIndex;
 import org.eclipse.hawk.core.graph.IGraphTransaction;
 import org.eclipse.hawk.core.util.FileOperations;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Adjacency;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.AdjacencyBuilder;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Direction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,11 +49,262 @@ public class DuckDatabase implements IGraphDatabase {
 	protected static final String TABLE_NODES = "nodes";
 	protected static final String TABLE_EDGES = "edges";
 	protected static final String TABLE_PROPERTIES = "properties";
+	protected static final String TABLE_PROPERTY_LISTS = "property_lists";
+	protected static final String TABLE_NODE_INDICES = "node_indices";
+	protected static final String TABLE_LABELS = "labels";
+	protected static final String TABLE_PROPERTY_NAMES = "property_names";
 
 	// turn to true to see all SQL printed on the console
 	static final boolean DEBUG_SQL = false;
 
+	private static final String SQL_MAX_ELEMENT_ID = String.format(
+		"SELECT GREATEST((SELECT COALESCE(max(id), 0) FROM %s), (SELECT COALESCE(max(id), 0) FROM %s));",
+		TABLE_NODES, TABLE_EDGES);
+	private static final String SQL_INSERT_NODE = String.format(
+		"INSERT INTO %s (id, label_id) VALUES (?, ?);", TABLE_NODES);
+	private static final String SQL_FROM_NODES_BY_LABEL = String.format(
+		"FROM %s WHERE label_id = ?", TABLE_NODES);
+	private static final String SQL_FROM_NODES_BY_LABEL_NAME = String.format(
+		"FROM %s WHERE label_id = (SELECT id FROM %s WHERE label = ?)", TABLE_NODES, TABLE_LABELS);
+	private static final String SQL_FROM_PROPERTIES_BY_NAME = String.format(
+		"FROM %s p WHERE p.name_id = ?", TABLE_PROPERTIES);
+	private static final String SQL_FROM_NODE_PROPERTIES_BY_NAME = String.format(
+		"FROM %s p JOIN %s n ON n.id = p.elem_id WHERE p.name_id = ? AND n.label_id = ?", TABLE_PROPERTIES, TABLE_NODES);
+	private static final String SQL_FIND_EDGE = String.format(
+		"SELECT id FROM %s WHERE from_node_id = ? AND to_node_id = ? AND label_id = ?;", TABLE_EDGES);
+	/*
+	 * ON CONFLICT DO NOTHING cannot be used here, as DuckDB 0.10 still returns
+	 * the conflicting row from RETURNING, even though it is not inserted.
+	 */
+	private static final String SQL_INSERT_EDGE_IF_ABSENT = String.format(
+		"INSERT INTO %1$s (id, from_node_id, to_node_id, label_id) SELECT $1, $2, $3, $4"
+		+ " WHERE NOT EXISTS (SELECT 1 FROM %1$s WHERE from_node_id = $2 AND to_node_id = $3 AND label_id = $4)"
+		+ " RETURNING id;", TABLE_EDGES);
+
+	private static final String TEMP_SCHEMA = "main";
+	private static final String TABLE_EDGE_SPECS = "edge_specs";
+	private static final String SQL_CREATE_EDGE_SPECS = String.format(
+		"CREATE TEMP TABLE IF NOT EXISTS %s (idx INTEGER NOT NULL, id BIGINT NOT NULL,"
+		+ " from_node_id BIGINT NOT NULL, to_node_id BIGINT NOT NULL, label_id INTEGER NOT NULL);",
+		TABLE_EDGE_SPECS);
+	private static final String SQL_INSERT_EDGE_SPECS = String.format(
+		"INSERT INTO %1$s (id, from_node_id, to_node_id, label_id)"
+		+ " SELECT min(s.id), s.from_node_id, s.to_node_id, s.label_id FROM %2$s s"
+		+ " WHERE NOT EXISTS (SELECT 1 FROM %1$s e WHERE e.from_node_id = s.from_node_id"
+		+ " AND e.to_node_id = s.to_node_id AND e.label_id = s.label_id)"
+		+ " GROUP BY s.from_node_id, s.to_node_id, s.label_id;",
+		TABLE_EDGES, TABLE_EDGE_SPECS);
+	private static final String SQL_FIND_EDGE_SPECS = String.format(
+		"SELECT s.idx, e.id FROM %s s JOIN %s e ON e.from_node_id = s.from_node_id"
+		+ " AND e.to_node_id = s.to_node_id AND e.label_id = s.label_id ORDER BY s.idx;",
+		TABLE_EDGE_SPECS, TABLE_EDGES);
+	private static final String SQL_CLEAR_EDGE_SPECS = String.format("DELETE FROM %s;", TABLE_EDGE_SPECS);
+
+	private static final String TABLE_NEIGHBOURHOOD_IDS = "neighbourhood_ids";
+	private static final String SQL_NEIGHBOURHOOD_OUTGOING = sqlNeighbourhood("from_node_id", false);
+	private static final String SQL_NEIGHBOURHOOD_OUTGOING_WITH_TYPE = sqlNeighbourhood("from_node_id", true);
+	private static final String SQL_NEIGHBOURHOOD_INCOMING = sqlNeighbourhood("to_node_id", false);
+	private static final String SQL_NEIGHBOURHOOD_INCOMING_WITH_TYPE = sqlNeighbourhood("to_node_id", true);
+
+	private static String sqlNeighbourhood(String nodeColumn, boolean withType) {
+		return String.format(
+			"SELECT q.id, e.id, e.label_id, e.from_node_id, e.to_node_id FROM %s q"
+			+ " JOIN %s e ON e.%s = q.id%s;",
+			TABLE_NEIGHBOURHOOD_IDS, TABLE_EDGES, nodeColumn, withType ? " AND e.label_id = ?" : "");
+	}
+
+	private static final String SQL_NEIGHBOURHOOD_OUTGOING_DEGREES = sqlNeighbourhoodDegrees("from_node_id", false);
+	private static final String SQL_NEIGHBOURHOOD_OUTGOING_DEGREES_WITH_TYPE = sqlNeighbourhoodDegrees("from_node_id", true);
+	private static final String SQL_NEIGHBOURHOOD_INCOMING_DEGREES = sqlNeighbourhoodDegrees("to_node_id", false);
+	private static final String SQL_NEIGHBOURHOOD_INCOMING_DEGREES_WITH_TYPE = sqlNeighbourhoodDegrees("to_node_id", true);
+
+	private static String sqlNeighbourhoodDegrees(String nodeColumn, boolean withType) {
+		return String.format(
+			"SELECT q.id, COUNT(*) FROM %s q"
+			+ " JOIN %s e ON e.%s = q.id%s GROUP BY q.id;",
+			TABLE_NEIGHBOURHOOD_IDS, TABLE_EDGES, nodeColumn, withType ? " AND e.label_id = ?" : "");
+	}
+
+	private static final String TABLE_TRAVERSAL_START_IDS = "traversal_start_ids";
+
+	/**
+	 * Returns the recursive query for {@link #traverse(Collection, Collection, Direction, int, Collection)}.
+	 * The <code>steps</code> CTE lists the edges as <code>(src, dst)</code> pairs in the
+	 * direction they are followed, and <code>reached</code> keeps the depth at which
+	 * each node was reached.
+	 */
+	private static String sqlTraversal(Direction direction, String edgeFilter, String nodeFilter) {
+		final String outgoing = String.format("SELECT from_node_id AS src, to_node_id AS dst FROM %s WHERE TRUE%s", TABLE_EDGES, edgeFilter);
+		final String incoming = String.format("SELECT to_node_id AS src, from_node_id AS dst FROM %s WHERE TRUE%s", TABLE_EDGES, edgeFilter);
+		final String steps;
+		if (direction == Direction.OUTGOING) {
+			steps = outgoing;
+		} else if (direction == Direction.INCOMING) {
+			steps = incoming;
+		} else {
+			steps = outgoing + " UNION ALL " + incoming;
+		}
+
+		return String.format(
+			"WITH RECURSIVE steps(src, dst) AS (%s),"
+			+ " reached(id, depth) AS ("
+			+ "SELECT id, 0 FROM %s"
+			+ " UNION SELECT s.dst, r.depth + 1 FROM reached r JOIN steps s ON s.src = r.id WHERE r.depth < ?"
+			+ ") SELECT DISTINCT r.id FROM reached r%s WHERE r.depth > 0%s ORDER BY r.id;",
+			steps, TABLE_TRAVERSAL_START_IDS,
+			nodeFilter.isEmpty() ? "" : String.format(" JOIN %s n ON n.id = r.id", TABLE_NODES),
+			nodeFilter);
+	}
+
+	private static final String TABLE_DELETED_NODE_IDS = "deleted_node_ids";
+	private static final String TABLE_DELETED_ELEM_IDS = "deleted_elem_ids";
+	private static final String SQL_COLLECT_DELETED_ELEMS = String.format(
+		"INSERT INTO %1$s (id) SELECT id FROM %2$s"
+		+ " UNION SELECT e.id FROM %3$s e JOIN %2$s d ON e.from_node_id = d.id"
+		+ " UNION SELECT e.id FROM %3$s e JOIN %2$s d ON e.to_node_id = d.id;",
+		TABLE_DELETED_ELEM_IDS, TABLE_DELETED_NODE_IDS, TABLE_EDGES);
+	private static final String SQL_DELETED_EDGE_KEYS = String.format(
+		"SELECT e.from_node_id, e.to_node_id, e.label_id FROM %s e JOIN %s d ON e.id = d.id;",
+		TABLE_EDGES, TABLE_DELETED_ELEM_IDS);
+	private static final String SQL_DELETE_ELEM_PROPERTIES = String.format(
+		"DELETE FROM %s WHERE elem_id IN (SELECT id FROM %s);", TABLE_PROPERTIES, TABLE_DELETED_ELEM_IDS);
+	private static final String SQL_DELETE_ELEM_PROPERTY_LISTS = String.format(
+		"DELETE FROM %s WHERE elem_id IN (SELECT id FROM %s);", TABLE_PROPERTY_LISTS, TABLE_DELETED_ELEM_IDS);
+	private static final String SQL_DELETE_ELEM_EDGES = String.format(
+		"DELETE FROM %s WHERE id IN (SELECT id FROM %s);", TABLE_EDGES, TABLE_DELETED_ELEM_IDS);
+	private static final String SQL_DELETE_ELEM_NODES = String.format(
+		"DELETE FROM %s WHERE id IN (SELECT id FROM %s);", TABLE_NODES, TABLE_DELETED_NODE_IDS);
+
+	private static final String SQL_LIST_NODE_INDICES = String.format(
+		"SELECT id, name FROM %s;", TABLE_NODE_INDICES);
+	private static final String SQL_NEXT_NODE_INDEX_ID = String.format(
+		"SELECT COALESCE(max(id), 0) + 1 FROM %s;", TABLE_NODE_INDICES);
+	private static final String SQL_INSERT_NODE_INDEX = String.format(
+		"INSERT INTO %s (id, name) VALUES (?, ?);", TABLE_NODE_INDICES);
+	private static final String SQL_DELETE_NODE_INDEX = String.format(
+		"DELETE FROM %s WHERE name = ?;", TABLE_NODE_INDICES);
+
+	private static final String TABLE_MIGRATIONS = "migrations";
+	private static final String SQL_FIND_MIGRATION = String.format(
+		"SELECT 1 FROM %s WHERE name = ?;", TABLE_MIGRATIONS);
+	private static final String SQL_INSERT_MIGRATION = String.format(
+		"INSERT OR IGNORE INTO %s (name) VALUES (?);", TABLE_MIGRATIONS);
+
+	private static final String MIGRATION_LEGACY_BLOBS = "legacy_blobs";
+	private static final String TABLE_BLOB_QUARANTINE = "blob_quarantine";
+	private static final String SQL_CREATE_BLOB_QUARANTINE = String.format(
+		"CREATE TABLE IF NOT EXISTS %s (elem_id BIGINT NOT NULL, name_id INTEGER NOT NULL,"
+		+ " value_blob BLOB, error VARCHAR, PRIMARY KEY (elem_id, name_id));",
+		TABLE_BLOB_QUARANTINE);
+	private static final String SQL_QUARANTINE_BLOB = String.format(
+		"INSERT OR IGNORE INTO %s (elem_id, name_id, value_blob, error)"
+		+ " SELECT elem_id, name_id, value_blob, ? FROM %s WHERE elem_id = ? AND name_id = ?;",
+		TABLE_BLOB_QUARANTINE, TABLE_PROPERTIES);
+
+	private static final int BLOB_MIGRATION_CHUNK_SIZE = 10_000;
+	private static final String SQL_LEGACY_BLOBS = String.format(
+		"SELECT elem_id, name_id, value_blob FROM %s"
+		+ " WHERE value_blob >= '\\x%2$02X'::BLOB AND value_blob < '\\x%3$02X'::BLOB"
+		+ " AND (elem_id > ? OR (elem_id = ? AND name_id > ?))"
+		+ " ORDER BY elem_id, name_id LIMIT %4$d;",
+		TABLE_PROPERTIES, DuckBlobCodec.LEGACY_PREFIX & 0xFF, (DuckBlobCodec.LEGACY_PREFIX & 0xFF) + 1,
+		BLOB_MIGRATION_CHUNK_SIZE);
+
+	private final Map<String, DuckNodeIndex> nodeIndices = new ConcurrentHashMap<>();
+	private final DuckIdTable neighbourhoodIds = new DuckIdTable(this, TABLE_NEIGHBOURHOOD_IDS, true);
+	private final DuckIdTable traversalStartIds = new DuckIdTable(this, TABLE_TRAVERSAL_START_IDS, true);
+	private final DuckIdTable deletedNodeIds = new DuckIdTable(this, TABLE_DELETED_NODE_IDS);
+	private final DuckIdTable deletedElemIds = new DuckIdTable(this, TABLE_DELETED_ELEM_IDS);
+	private final Map<String, Integer> nodeCountsByLabel = new ConcurrentHashMap<>();
+
 	private Connection duckDB;
+	private DuckStatementCache statementCache;
+	private DuckIdAllocator idAllocator;
+	private DuckDictionary labels;
+	private DuckDictionary propertyNames;
+	private int idBlockSize = DuckIdAllocator.DEFAULT_BLOCK_SIZE;
+	private DuckPropertyCache propertyCache;
+	private DuckPropertyBuffer propertyBuffer;
+	private long propertyCacheSize;
+	private DuckAdjacencyCache adjacencyCache;
+	private long adjacencyCacheSize;
+	private DuckDegreeCache degreeCache;
+	private long degreeCacheSize;
+	private volatile DuckEdgeKeyFilter recentEdges = new DuckEdgeKeyFilter(DuckEdgeKeyFilter.DEFAULT_CAPACITY);
+	private volatile DuckReadConnections readConnections;
+	private volatile DuckAsyncQueries asyncQueries;
+	private DuckClosureTable closureTable;
+	private Collection<String> closureLabels;
+	private int maxReadConnections;
+	private final Set<Thread> writerThreads = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Ways to load the nodes, edges and properties created during batch mode.
+	 */
+	public enum BatchLoader {
+		/** Appends rows through the DuckDB appender API. */
+		APPENDER,
+		/** Writes rows into CSV staging files under the temporary folder, and loads them with COPY. */
+		COPY_CSV
+	}
+
+	/**
+	 * Label and properties of a node to be created by {@link DuckDatabase#createNodes(List)}.
+	 */
+	public static final class NodeSpec {
+		private final String label;
+		private final Map<String, Object> props;
+
+		public NodeSpec(String label, Map<String, Object> props) {
+			this.label = label;
+			this.props = props;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		public Map<String, Object> getProperties() {
+			return props;
+		}
+	}
+
+	/**
+	 * Endpoints, type and properties of an edge to be created by
+	 * {@link DuckDatabase#createRelationships(List)}.
+	 */
+	public static final class EdgeSpec {
+		private final IGraphNode start, end;
+		private final String type;
+		private final Map<String, Object> props;
+
+		public EdgeSpec(IGraphNode start, IGraphNode end, String type, Map<String, Object> props) {
+			this.start = start;
+			this.end = end;
+			this.type = type;
+			this.props = props;
+		}
+
+		public IGraphNode getStart() {
+			return start;
+		}
+
+		public IGraphNode getEnd() {
+			return end;
+		}
+
+		public String getType() {
+			return type;
+		}
+
+		public Map<String, Object> getProperties() {
+			return props;
+		}
+	}
+
+	private AbstractDuckBatch batch;
+	private BatchLoader batchLoader = BatchLoader.APPENDER;
+	private int batchFlushThreshold = AbstractDuckBatch.DEFAULT_FLUSH_THRESHOLD;
 
 	private File duckDBFile;
 	private DuckTransaction tx;
@@ -65,18 +329,101 @@ public class DuckDatabase implements IGraphDatabase {
 
 			// Disable autocommit - discouraged by DuckDB
 			duckDB.setAutoCommit(false);
+			statementCache = new DuckStatementCache(duckDB, DuckStatementCache.DEFAULT_MAX_SIZE, true);
 
 			// Create base schema
 			try (Statement stmt = duckDB.createStatement()) {
+				if (!tableExists(TABLE_LABELS)) {
+					runSQL(stmt, DuckDictionary.createTableSQL(TABLE_LABELS, "label"));
+				}
+				if (!tableExists(TABLE_PROPERTY_NAMES)) {
+					runSQL(stmt, DuckDictionary.createTableSQL(TABLE_PROPERTY_NAMES, "name"));
+				}
 				if (!tableExists(TABLE_NODES)) {
 					initialiseSchema(stmt);
+				} else if (!columnExists(TABLE_NODES, "label_id")) {
+					moveLabelsToDictionary(stmt);
+				}
+				if (!tableExists(TABLE_PROPERTY_LISTS)) {
+					runSQL(stmt, createPropertyListsTableSQL(TABLE_PROPERTY_LISTS));
+					createIndex(stmt, TABLE_PROPERTY_LISTS, "elemid", "elem_id");
+				}
+				addTypeTagColumn(stmt, TABLE_PROPERTIES, PropertyValueType.scalarValues());
+				addTypeTagColumn(stmt, TABLE_PROPERTY_LISTS, PropertyValueType.listValues());
+				if (!columnExists(TABLE_PROPERTIES, "name_id")) {
+					movePropertyNamesToDictionary(stmt, TABLE_PROPERTIES,
+						createPropertiesTableSQL(TABLE_PROPERTIES + "_renamed"), PropertyValueType.scalarValues());
+				}
+				if (!columnExists(TABLE_PROPERTY_LISTS, "name_id")) {
+					movePropertyNamesToDictionary(stmt, TABLE_PROPERTY_LISTS,
+						createPropertyListsTableSQL(TABLE_PROPERTY_LISTS + "_renamed"), PropertyValueType.listValues());
+				}
+				if (!tableExists(TABLE_NODE_INDICES)) {
+					createNodeIndicesTable(stmt);
+				}
+				if (!tableExists(TABLE_MIGRATIONS)) {
+					runSQL(stmt, String.format("CREATE TABLE %s (name VARCHAR PRIMARY KEY);", TABLE_MIGRATIONS));
 				}
 			} catch (SQLException e) {
 				LOGGER.error("Could not ensure the table exists", e);
 			}
 			
+			// Element IDs are handed out from blocks reserved from the sequence
+			idAllocator = new DuckIdAllocator(this, SEQUENCE_ELEMENTS, idBlockSize);
+			idAllocator.ensureAbove(maxElementId());
+
+			labels = new DuckDictionary(this, TABLE_LABELS, "label");
+			labels.load();
+			propertyNames = new DuckDictionary(this, TABLE_PROPERTY_NAMES, "name");
+			propertyNames.load();
+
 			// By default, we're on transactional mode
 			tx = new DuckTransaction(duckDB);
+			tx.addListener(idAllocator);
+			tx.addListener(labels);
+			tx.addListener(propertyNames);
+
+			// Property changes are buffered until the transaction is committed
+			propertyBuffer = new DuckPropertyBuffer(this);
+			tx.addListener(propertyBuffer);
+			tx.addListener(new DuckTransaction.Listener() {
+				@Override
+				public void beforeCommit() throws SQLException {
+					flushNodeIndices();
+					if (closureTable != null) {
+						closureTable.refresh();
+					}
+				}
+
+				@Override
+				public void afterCommit() {
+					writerThreads.clear();
+				}
+
+				@Override
+				public void afterRollback() {
+					// Index creations and deletions may have been rolled back as well
+					loadNodeIndices();
+					loadClosureTable();
+					invalidateNodeCounts();
+					writerThreads.clear();
+				}
+			});
+			loadNodeIndices();
+			loadClosureTable();
+			if (closureLabels != null) {
+				setClosureLabels(closureLabels);
+			}
+			if (!isMigrationDone(MIGRATION_LEGACY_BLOBS)) {
+				migrateLegacyBlobs();
+			}
+
+			// Rolling back the first transaction must not undo the schema
+			duckDB.commit();
+			setPropertyCacheSize(propertyCacheSize);
+			setAdjacencyCacheSize(adjacencyCacheSize);
+			setDegreeCacheSize(degreeCacheSize);
+			setMaxReadConnections(maxReadConnections);
 			exitBatchMode();
 		} catch (ClassNotFoundException e) {
 			LOGGER.error("Could not find the class for the DuckDB driver", e);
@@ -91,42 +438,180 @@ public class DuckDatabase implements IGraphDatabase {
 		createSequence(stmt, SEQUENCE_ELEMENTS);
 
 		// Nodes
+		createNodesTable(stmt, TABLE_NODES);
+		createNodesIndices(stmt);
+
+		// Edges
+		createEdgesTable(stmt, TABLE_EDGES);
+		createEdgesIndices(stmt);
+
+		// Properties
+
+		runSQL(stmt, createPropertiesTableSQL(TABLE_PROPERTIES));
+		createIndex(stmt, TABLE_PROPERTIES, "elemid", "elem_id");
+	}
+
+	/**
+	 * Creates the nodes table. Labels are stored as IDs from a {@link DuckDictionary}.
+	 */
+	private void createNodesTable(Statement stmt, String table) throws SQLException {
 		runSQL(stmt, String.format(
 			"CREATE TABLE %s ("
 			+ "  id BIGINT PRIMARY KEY,"
-			+ "  label VARCHAR NOT NULL"
+			+ "  label_id INTEGER NOT NULL"
 			+ ");",
-			TABLE_NODES
-			));
-
-		createIndex(stmt, TABLE_NODES, "label", "label");
+			table));
+	}
 
-		// Edges
+	private void createNodesIndices(Statement stmt) throws SQLException {
+		createIndex(stmt, TABLE_NODES, "label", "label_id");
+	}
 
+	/**
+	 * Creates the edges table. Labels are stored as IDs from a {@link DuckDictionary}.
+	 */
+	private void createEdgesTable(Statement stmt, String table) throws SQLException {
 		runSQL(stmt, String.format(
 			"CREATE TABLE %s ("
 			+ "id BIGINT PRIMARY KEY,"
 			+ "from_node_id BIGINT NOT NULL,"
 			+ "to_node_id BIGINT NOT NULL,"
-			+ "label STRING NOT NULL,"
-			+ "UNIQUE (from_node_id, to_node_id, label)"
+			+ "label_id INTEGER NOT NULL,"
+			+ "UNIQUE (from_node_id, to_node_id, label_id)"
 			+ ");",
-			TABLE_EDGES));
+			table));
+	}
 
-		createIndex(stmt, TABLE_EDGES, "outgoing", "from_node_id", "label");
-		createIndex(stmt, TABLE_EDGES, "incoming", "to_node_id", "label");
+	private void createEdgesIndices(Statement stmt) throws SQLException {
+		createIndex(stmt, TABLE_EDGES, "outgoing", "from_node_id", "label_id");
+		createIndex(stmt, TABLE_EDGES, "incoming", "to_node_id", "label_id");
+	}
 
-		// Properties
+	/**
+	 * Rebuilds the nodes and edges tables of stores created by older versions,
+	 * which kept the labels as strings, so they use the label dictionary instead.
+	 * The indices are created in a separate transaction, as otherwise they would
+	 * miss the copied rows.
+	 */
+	private void moveLabelsToDictionary(Statement stmt) throws SQLException {
+		runSQL(stmt, String.format(
+			"INSERT INTO %s (id, label) SELECT row_number() OVER (ORDER BY label), label"
+			+ " FROM (SELECT label FROM %s UNION SELECT label FROM %s);",
+			TABLE_LABELS, TABLE_NODES, TABLE_EDGES));
+
+		final String newNodes = TABLE_NODES + "_relabelled";
+		createNodesTable(stmt, newNodes);
+		runSQL(stmt, String.format(
+			"INSERT INTO %s SELECT n.id, l.id FROM %s n JOIN %s l ON n.label = l.label;",
+			newNodes, TABLE_NODES, TABLE_LABELS));
+		replaceTable(stmt, TABLE_NODES, newNodes);
 
+		final String newEdges = TABLE_EDGES + "_relabelled";
+		createEdgesTable(stmt, newEdges);
 		runSQL(stmt, String.format(
+			"INSERT INTO %s SELECT e.id, e.from_node_id, e.to_node_id, l.id FROM %s e JOIN %s l ON e.label = l.label;",
+			newEdges, TABLE_EDGES, TABLE_LABELS));
+		replaceTable(stmt, TABLE_EDGES, newEdges);
+		duckDB.commit();
+
+		createNodesIndices(stmt);
+		createEdgesIndices(stmt);
+		duckDB.commit();
+
+		LOGGER.info("Moved the node and edge labels to the {} table", TABLE_LABELS);
+	}
+
+	private void replaceTable(Statement stmt, String table, String replacement) throws SQLException {
+		runSQL(stmt, String.format("DROP TABLE %s;", table));
+		runSQL(stmt, String.format("ALTER TABLE %s RENAME TO %s;", replacement, table));
+	}
+
+	/**
+	 * Returns the statement which creates the table with the scalar and BLOB
+	 * properties. Names are stored as IDs from a {@link DuckDictionary}.
+	 */
+	private static String createPropertiesTableSQL(String table) {
+		return String.format(
 			"CREATE TABLE %s ("
 			+ "  elem_id BIGINT NOT NULL,"
-			+ "  name VARCHAR NOT NULL, %s,"
-			+ "  PRIMARY KEY (elem_id, name)"
+			+ "  name_id INTEGER NOT NULL, %s,"
+			+ "  PRIMARY KEY (elem_id, name_id)"
 			+ ");",
-			TABLE_PROPERTIES, PropertyValueType.sqlTableColumns()));
+			table, PropertyValueType.sqlTableColumns(PropertyValueType.scalarValues()));
+	}
 
-		createIndex(stmt, TABLE_PROPERTIES, "elemid", "elem_id");
+	/**
+	 * Returns the statement which creates the table with the list-valued properties.
+	 * It has no primary key, as DuckDB cannot update LIST columns in tables with one:
+	 * list values are replaced by deleting and inserting their rows instead.
+	 */
+	private static String createPropertyListsTableSQL(String table) {
+		return String.format(
+			"CREATE TABLE %s ("
+			+ "  elem_id BIGINT NOT NULL,"
+			+ "  name_id INTEGER NOT NULL, %s"
+			+ ");",
+			table, PropertyValueType.sqlTableColumns(PropertyValueType.listValues()));
+	}
+
+	/**
+	 * Rebuilds a property table of a store created by an older version, which kept
+	 * the property names as strings, so it uses the property name dictionary instead.
+	 * As with the labels, the index is created in a separate transaction.
+	 */
+	private void movePropertyNamesToDictionary(Statement stmt, String table, String sqlCreateReplacement, PropertyValueType[] types) throws SQLException {
+		runSQL(stmt, String.format(
+			"INSERT INTO %1$s (id, name)"
+			+ " SELECT (SELECT COALESCE(max(id), 0) FROM %1$s) + row_number() OVER (ORDER BY name), name"
+			+ " FROM (SELECT DISTINCT name FROM %2$s WHERE name NOT IN (SELECT name FROM %1$s));",
+			TABLE_PROPERTY_NAMES, table));
+
+		final String replacement = table + "_renamed";
+		final String valueColumns = PropertyValueType.sqlColumnNames(types);
+		runSQL(stmt, sqlCreateReplacement);
+		runSQL(stmt, String.format(
+			"INSERT INTO %s (elem_id, name_id, %s) SELECT p.elem_id, n.id, %s FROM %s p JOIN %s n ON p.name = n.name;",
+			replacement, valueColumns, valueColumns, table, TABLE_PROPERTY_NAMES));
+		replaceTable(stmt, table, replacement);
+		duckDB.commit();
+
+		createIndex(stmt, table, "elemid", "elem_id");
+		duckDB.commit();
+
+		LOGGER.info("Moved the property names in the {} table to the {} table", table, TABLE_PROPERTY_NAMES);
+	}
+
+	/**
+	 * Adds the type tag column to a property table created by an older version,
+	 * and fills it in from the value columns. DuckDB cannot add columns to tables
+	 * with indices, so the element ID index is recreated around the change. The
+	 * index must be recreated in a separate transaction, or it will miss the
+	 * updated rows.
+	 */
+	private void addTypeTagColumn(Statement stmt, String table, PropertyValueType[] types) throws SQLException {
+		if (columnExists(table, PropertyValueType.TAG_COLUMN)) {
+			return;
+		}
+
+		runSQL(stmt, String.format("DROP INDEX %s_elemid;", table));
+		runSQL(stmt, String.format("ALTER TABLE %s ADD COLUMN %s %s;",
+			table, PropertyValueType.TAG_COLUMN, PropertyValueType.TAG_COLUMN_TYPE));
+		runSQL(stmt, String.format("UPDATE %s SET %s = %s;",
+			table, PropertyValueType.TAG_COLUMN, PropertyValueType.sqlInferTag(types)));
+		duckDB.commit();
+		createIndex(stmt, table, "elemid", "elem_id");
+		duckDB.commit();
+
+		LOGGER.info("Added the type tag column to the {} table", table);
+	}
+
+	private void createNodeIndicesTable(Statement stmt) throws SQLException {
+		runSQL(stmt, String.format(
+			"CREATE TABLE %s ("
+			+ "  id BIGINT PRIMARY KEY,"
+			+ "  name VARCHAR NOT NULL UNIQUE"
+			+ ");",
+			TABLE_NODE_INDICES));
 	}
 
 	private void createIndex(Statement stmt, String table, String idxSuffix, String... keys) throws SQLException {
@@ -148,14 +633,194 @@ public class DuckDatabase implements IGraphDatabase {
 	}
 
 	protected PreparedStatement prepareSQL(final String sql) throws SQLException {
+		markWriter();
+		flushBatch();
+		if (DEBUG_SQL) {
+			System.out.println(sql);
+		}
+		synchronized (duckDB) {
+			return new DuckSynchronizedStatement(duckDB, duckDB.prepareStatement(sql));
+		}
+	}
+
+	/**
+	 * Variant of {@link #prepareSQL(String)} for read-only queries, which uses the
+	 * read connection of the current thread if it has one.
+	 */
+	PreparedStatement prepareReadSQL(final String sql) throws SQLException {
+		if (usesReadConnection()) {
+			final Connection conn = getReadConnection();
+			if (conn != duckDB) {
+				if (DEBUG_SQL) {
+					System.out.println(sql);
+				}
+				return conn.prepareStatement(sql);
+			}
+		}
+		return prepareSQL(sql);
+	}
+
+	/**
+	 * Returns the monitor to hold while running several statements in a row on the
+	 * primary connection (e.g. filling and querying a temporary table, or using an
+	 * appender). DuckDB aborts the pending query of a connection when another one
+	 * starts, and temporary tables are shared by all the users of a connection.
+	 */
+	Object getConnectionLock() {
+		return duckDB;
+	}
+
+	/**
+	 * Returns a prepared statement from the statement cache. The statement must
+	 * not be closed by the caller, and its results must be fully consumed before
+	 * the same SQL is used again: use {@link #prepareSQL(String)} for lazily
+	 * consumed results.
+	 */
+	protected PreparedStatement prepareCachedSQL(final String sql) throws SQLException {
+		flushBatch();
+		return prepareCachedInternalSQL(sql);
+	}
+
+	/**
+	 * Variant of {@link #prepareCachedSQL(String)} for statements which do not
+	 * access the graph tables, and therefore do not need to see the rows pending
+	 * in the current batch.
+	 */
+	PreparedStatement prepareCachedInternalSQL(final String sql) throws SQLException {
+		markWriter();
 		if (DEBUG_SQL) {
 			System.out.println(sql);
 		}
-		return duckDB.prepareStatement(sql);
+		return statementCache.get(sql);
+	}
+
+	/**
+	 * Variant of {@link #prepareCachedSQL(String)} for read-only queries, which
+	 * uses the read connection of the current thread if it has one (see
+	 * {@link #usesReadConnection()}).
+	 */
+	PreparedStatement prepareCachedReadSQL(final String sql) throws SQLException {
+		final DuckReadConnections pool = getReadConnections();
+		if (pool != null && usesReadConnection()) {
+			final PreparedStatement stmt = pool.prepare(sql);
+			if (stmt != null) {
+				if (DEBUG_SQL) {
+					System.out.println(sql);
+				}
+				return stmt;
+			}
+		}
+		return prepareCachedSQL(sql);
+	}
+
+	/**
+	 * Returns the read connection of the current thread if it has one, or the
+	 * primary connection otherwise.
+	 */
+	Connection getReadConnection() throws SQLException {
+		final DuckReadConnections pool = getReadConnections();
+		if (pool != null && usesReadConnection()) {
+			final Connection conn = pool.getConnection();
+			if (conn != null) {
+				return conn;
+			}
+		}
+		return duckDB;
+	}
+
+	/**
+	 * Returns <code>true</code> if read-only queries from the current thread run on
+	 * its own read connection. This is the case when read connections are enabled,
+	 * we are not in batch mode, one is available for the thread, and the thread has
+	 * not changed the graph in the current transaction.
+	 *
+	 * Read connections only see committed data, so these threads must not use the
+	 * property buffer or the caches, which may hold uncommitted changes.
+	 */
+	boolean usesReadConnection() {
+		final DuckReadConnections pool = getReadConnections();
+		if (pool == null || batch != null || writerThreads.contains(Thread.currentThread())) {
+			return false;
+		}
+
+		try {
+			return pool.getConnection() != null;
+		} catch (SQLException e) {
+			LOGGER.error("Could not open a read connection", e);
+			return false;
+		}
+	}
+
+	/**
+	 * Applies the buffered property changes before a query, unless the query will
+	 * run on a read connection, which cannot see them until they are committed.
+	 */
+	void flushPropertiesBeforeQuery() throws SQLException {
+		if (!usesReadConnection()) {
+			propertyBuffer.flush();
+		}
+	}
+
+	/**
+	 * Returns the read connections available to the current thread: those of its
+	 * {@link DuckAsyncQueries} for background query threads, and the shared pool
+	 * otherwise.
+	 */
+	private DuckReadConnections getReadConnections() {
+		final DuckReadConnections own = DuckAsyncQueries.getConnections(this);
+		return own != null ? own : readConnections;
+	}
+
+	/**
+	 * Records that the current thread is changing the graph, so its queries run on
+	 * the primary connection and see its changes until the transaction ends.
+	 */
+	void markWriter() {
+		if (readConnections != null) {
+			writerThreads.add(Thread.currentThread());
+		}
+	}
+
+	/**
+	 * Returns the appender batch used in batch mode, or <code>null</code> if we are
+	 * in transactional mode.
+	 */
+	AbstractDuckBatch getBatch() {
+		return batch;
+	}
+
+	/**
+	 * Makes rows appended in batch mode visible to queries.
+	 */
+	private void flushBatch() throws SQLException {
+		if (batch != null && batch.hasPendingRows()) {
+			synchronized (duckDB) {
+				batch.flush();
+			}
+		}
 	}
 
 	@Override
 	public void shutdown() throws Exception {
+		try {
+			exitBatchMode();
+		} finally {
+			closeConnections();
+		}
+	}
+
+	private void closeConnections() throws SQLException {
+		if (asyncQueries != null) {
+			asyncQueries.close();
+			asyncQueries = null;
+		}
+		if (readConnections != null) {
+			readConnections.close();
+			readConnections = null;
+		}
+		if (statementCache != null) {
+			statementCache.close();
+		}
 		duckDB.close();
 	}
 
@@ -167,9 +832,102 @@ public class DuckDatabase implements IGraphDatabase {
 	}
 
 	@Override
-	public IGraphNodeIndex getOrCreateNodeIndex(String name) {
-		// TODO Auto-generated method stub
-		return null;
+	public synchronized IGraphNodeIndex getOrCreateNodeIndex(String name) {
+		DuckNodeIndex index = nodeIndices.get(name);
+		if (index != null) {
+			return index;
+		}
+
+		try {
+			long indexId;
+			try (ResultSet rs = prepareCachedSQL(SQL_NEXT_NODE_INDEX_ID).executeQuery()) {
+				rs.next();
+				indexId = rs.getLong(1);
+			}
+
+			final PreparedStatement stmtInsert = prepareCachedSQL(SQL_INSERT_NODE_INDEX);
+			stmtInsert.setLong(1, indexId);
+			stmtInsert.setString(2, name);
+			stmtInsert.execute();
+
+			synchronized (duckDB) {
+				try (Statement stmt = duckDB.createStatement()) {
+					runSQL(stmt, DuckNodeIndex.createTableSQL(indexId));
+				}
+			}
+
+			index = new DuckNodeIndex(this, name, indexId);
+			nodeIndices.put(name, index);
+			return index;
+		} catch (SQLException e) {
+			LOGGER.error("Could not create node index " + name, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Drops the table of a node index and removes it from the list of indices.
+	 * Invoked from {@link DuckNodeIndex#delete()}.
+	 */
+	synchronized void deleteNodeIndex(DuckNodeIndex index) {
+		try {
+			final PreparedStatement stmtDelete = prepareCachedSQL(SQL_DELETE_NODE_INDEX);
+			stmtDelete.setString(1, index.getName());
+			stmtDelete.execute();
+
+			synchronized (duckDB) {
+				try (Statement stmt = duckDB.createStatement()) {
+					runSQL(stmt, String.format("DROP TABLE IF EXISTS %s;", index.getTable()));
+				}
+			}
+
+			nodeIndices.remove(index.getName());
+		} catch (SQLException e) {
+			LOGGER.error("Could not delete node index " + index.getName(), e);
+		}
+	}
+
+	/**
+	 * Writes out the changes buffered in all node indices.
+	 */
+	private void flushNodeIndices() throws SQLException {
+		for (DuckNodeIndex index : nodeIndices.values()) {
+			index.flushChanges();
+		}
+	}
+
+	/**
+	 * Discards any buffered changes in the node indices, and reloads the list of
+	 * node indices from the database.
+	 */
+	private synchronized void loadNodeIndices() {
+		for (DuckNodeIndex index : nodeIndices.values()) {
+			index.discardChanges();
+		}
+		nodeIndices.clear();
+
+		try (ResultSet rs = prepareCachedSQL(SQL_LIST_NODE_INDICES).executeQuery()) {
+			while (rs.next()) {
+				final long id = rs.getLong(1);
+				final String name = rs.getString(2);
+				nodeIndices.put(name, new DuckNodeIndex(this, name, id));
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not load the list of node indices", e);
+		}
+	}
+
+	private void loadClosureTable() {
+		try {
+			final Set<Integer> labelIds = DuckClosureTable.loadLabelIds(this);
+			final DuckClosureTable closure = labelIds.isEmpty() ? null : new DuckClosureTable(this, labelIds);
+			if (closure != null) {
+				closure.checkForest();
+			}
+			closureTable = closure;
+		} catch (SQLException e) {
+			LOGGER.error("Could not load the labels of the closure table", e);
+		}
 	}
 
 	@Override
@@ -198,66 +956,198 @@ public class DuckDatabase implements IGraphDatabase {
 
 	@Override
 	public void enterBatchMode() {
-		// no-op for now (may switch to using CSVs in the future)
+		if (batch == null) {
+			try {
+				switch (batchLoader) {
+				case COPY_CSV:
+					batch = new DuckCSVBatch(duckDB, new File(getTempDir()), propertyNames, batchFlushThreshold);
+					break;
+				default:
+					batch = new DuckAppenderBatch((DuckDBConnection) duckDB, propertyNames, batchFlushThreshold);
+					break;
+				}
+			} catch (SQLException | IOException e) {
+				LOGGER.error("Could not set up the " + batchLoader + " loader for batch mode", e);
+			}
+		}
 		mode = Mode.NO_TX_MODE;
 	}
 
+	/**
+	 * Loads the rows created in batch mode and commits them through the
+	 * transaction, so its listeners flush their buffered changes and update
+	 * their state as after any other commit.
+	 *
+	 * @throws IllegalStateException
+	 *             The rows could not be loaded or committed, and have been rolled
+	 *             back.
+	 */
 	@Override
 	public void exitBatchMode() {
-		// no-op for now
 		mode = Mode.TX_MODE;
-	}
+		if (batch == null) {
+			return;
+		}
 
-	@Override
-	public IGraphIterable<? extends IGraphNode> allNodes(String label) {
+		final AbstractDuckBatch closedBatch = batch;
+		batch = null;
+		try {
+			synchronized (duckDB) {
+				closedBatch.close();
+			}
+			if (closureTable != null) {
+				closureTable.refresh();
+			}
+			tx.commit();
+		} catch (SQLException e) {
+			// A failed commit has rolled back already, and rolling back again is harmless
+			tx.failure();
+			throw new IllegalStateException("Could not load the rows created in batch mode: they have been rolled back", e);
+		}
+	}
 
-		return new IGraphIterable<DuckNode>() {
+	public BatchLoader getBatchLoader() {
+		return batchLoader;
+	}
 
-			@Override
-			public Iterator<DuckNode> iterator() {
-				// TODO Auto-generated method stub
-				return null;
-			}
+	/**
+	 * Changes how rows created in batch mode are loaded into the tables. Takes
+	 * effect the next time batch mode is entered.
+	 */
+	public void setBatchLoader(BatchLoader batchLoader) {
+		this.batchLoader = batchLoader;
+	}
 
-			@Override
-			public int size() {
-				try (PreparedStatement stmt = prepareSQL("SELECT COUNT(1) FROM nodes WHERE label = ?;")) {
-					stmt.setString(1, label);
-					ResultSet rs = stmt.executeQuery();
-					if (rs.next()) {
-						return rs.getInt(1);
-					}
-				} catch (SQLException e) {
-					LOGGER.error("Could not fetch the number of nodes with label " + label, e);
-				}
+	/**
+	 * Returns the number of rows that will be buffered in batch mode before they
+	 * are flushed into the tables.
+	 */
+	public int getBatchFlushThreshold() {
+		return batchFlushThreshold;
+	}
 
-				return 0;
+	/**
+	 * Changes the number of rows that will be buffered in batch mode before they are
+	 * flushed into the tables. Takes effect the next time batch mode is entered.
+	 */
+	public void setBatchFlushThreshold(int threshold) {
+		this.batchFlushThreshold = threshold;
+	}
+
+	@Override
+	public IGraphIterable<? extends IGraphNode> allNodes(String label) {
+		return allNodes(label, DuckNodeIterable.DEFAULT_FETCH_SIZE);
+	}
+
+	/**
+	 * Returns the IDs of the nodes with the given label in ascending order, in
+	 * batches of up to <code>batchSize</code> IDs. This is cheaper than iterating
+	 * over {@link #allNodes(String)} when only the IDs are needed.
+	 */
+	public Iterable<long[]> scanNodeIds(String label, int batchSize) {
+		return allNodes(label, batchSize).batches();
+	}
+
+	/**
+	 * Returns the values of a long or integer property in batches of up to
+	 * <code>batchSize</code> values, in ascending order of element ID. If
+	 * <code>label</code> is not <code>null</code>, only the nodes with that label
+	 * are scanned: otherwise, all the nodes and edges with the property are
+	 * scanned. Values with other types are skipped.
+	 */
+	public Iterable<DuckColumnBatch> scanLongProperty(String label, String name, int batchSize) {
+		return scanProperty(label, name, AbstractDuckElement.LONG_TYPES, false, batchSize);
+	}
+
+	/**
+	 * Returns the values of a numeric property as doubles, in the same way as
+	 * {@link #scanLongProperty(String, String, int)}.
+	 */
+	public Iterable<DuckColumnBatch> scanDoubleProperty(String label, String name, int batchSize) {
+		return scanProperty(label, name, AbstractDuckElement.DOUBLE_TYPES, true, batchSize);
+	}
+
+	private Iterable<DuckColumnBatch> scanProperty(String label, String name, PropertyValueType[] types, boolean asDouble, int batchSize) {
+		return () -> {
+			/*
+			 * Values set in the current transaction may still be buffered, and a new
+			 * property name is only added to the dictionary when they are flushed.
+			 */
+			try {
+				flushPropertiesBeforeQuery();
+			} catch (SQLException e) {
+				LOGGER.error("Could not flush the property buffer before scanning " + name, e);
+				return Collections.emptyIterator();
 			}
 
+			final int nameId = propertyNames.find(name);
+			final int labelId = label == null ? DuckAdjacencyCache.ANY_LABEL : labels.find(label);
+			if (nameId == DuckDictionary.UNKNOWN || labelId == DuckDictionary.UNKNOWN) {
+				return Collections.emptyIterator();
+			} else if (label == null) {
+				return new DuckPropertyScan(this, SQL_FROM_PROPERTIES_BY_NAME, types, asDouble, batchSize, nameId);
+			} else {
+				return new DuckPropertyScan(this, SQL_FROM_NODE_PROPERTIES_BY_NAME, types, asDouble, batchSize, nameId, labelId);
+			}
+		};
+	}
+
+	private DuckNodeIterable allNodes(String label, int fetchSize) {
+		/*
+		 * The iterable may be used after nodes with a new label are created, so
+		 * unknown labels are looked up by name when the query runs.
+		 */
+		final int labelId = labels.find(label);
+		final String sqlFromWhere = labelId == DuckDictionary.UNKNOWN ? SQL_FROM_NODES_BY_LABEL_NAME : SQL_FROM_NODES_BY_LABEL;
+		final Object labelParam = labelId == DuckDictionary.UNKNOWN ? label : labelId;
+
+		return new DuckNodeIterable(this, "id", sqlFromWhere, false, fetchSize, new Object[] { labelParam }) {
 			@Override
-			public DuckNode getSingle() {
-				try (PreparedStatement stmt = prepareSQL("SELECT id FROM nodes WHERE label = ? LIMIT 1;")) {
-					stmt.setString(1, label);
-					ResultSet rs = stmt.executeQuery();
-					if (rs.next()) {
-						return new DuckNode(DuckDatabase.this, rs.getLong(1));
-					}
-				} catch (SQLException e) {
-					LOGGER.error("Could not fetch the first node of label " + label, e);
+			public int size() {
+				if (usesReadConnection()) {
+					// Cached counts may include uncommitted nodes
+					return super.size();
 				}
 
-				return null;
+				Integer count = nodeCountsByLabel.get(label);
+				if (count == null) {
+					count = super.size();
+					nodeCountsByLabel.put(label, count);
+				}
+				return count;
 			}
-			
 		};
 	}
 
+	/**
+	 * Drops the cached node counts for all labels. Should be called after nodes are deleted.
+	 */
+	void invalidateNodeCounts() {
+		nodeCountsByLabel.clear();
+	}
+
 	@Override
 	public IGraphNode createNode(Map<String, Object> props, String label) {
-		try (PreparedStatement stmt = prepareSQL(String.format("INSERT INTO %s (id, label) VALUES (?, ?);", TABLE_NODES))) {
-			long nodeId = nextValue(SEQUENCE_ELEMENTS);
+		nodeCountsByLabel.remove(label);
+		if (batch != null) {
+			try {
+				final long nodeId = idAllocator.nextId();
+				synchronized (duckDB) {
+					batch.appendNode(nodeId, labels.getOrCreate(label), props);
+				}
+				bufferListProperties(nodeId, props);
+				return new DuckNode(this, nodeId);
+			} catch (SQLException | IOException e) {
+				LOGGER.error("Failed to append the node row", e);
+				return null;
+			}
+		}
+
+		try {
+			final PreparedStatement stmt = prepareCachedSQL(SQL_INSERT_NODE);
+			long nodeId = idAllocator.nextId();
 			stmt.setLong(1, nodeId);
-			stmt.setString(2, label);
+			stmt.setInt(2, labels.getOrCreate(label));
 			stmt.execute();
 
 			final DuckNode dn = new DuckNode(this, nodeId);
@@ -274,6 +1164,447 @@ public class DuckDatabase implements IGraphDatabase {
 		}
 	}
 
+	/**
+	 * Creates several nodes at once, returning them in the same order as the specs.
+	 * Outside batch mode, the nodes and their properties are written through appenders
+	 * instead of one INSERT per node and property.
+	 *
+	 * @return The created nodes, or <code>null</code> if they could not be created.
+	 *         In that case, some of the nodes may have been created already, so the
+	 *         transaction should be rolled back.
+	 */
+	public List<IGraphNode> createNodes(List<NodeSpec> specs) {
+		final List<IGraphNode> nodes = new ArrayList<>(specs.size());
+		if (batch != null) {
+			for (NodeSpec spec : specs) {
+				nodes.add(createNode(spec.getProperties(), spec.getLabel()));
+			}
+			return nodes;
+		}
+
+		// New nodes cannot have any rows yet, so we can append them like in batch mode
+		try {
+			synchronized (duckDB) {
+				try (AbstractDuckBatch nodeBatch = new DuckAppenderBatch((DuckDBConnection) duckDB, propertyNames, Integer.MAX_VALUE)) {
+					for (NodeSpec spec : specs) {
+						nodeCountsByLabel.remove(spec.getLabel());
+						final long nodeId = idAllocator.nextId();
+						nodeBatch.appendNode(nodeId, labels.getOrCreate(spec.getLabel()), spec.getProperties());
+						nodes.add(new DuckNode(this, nodeId));
+					}
+				}
+			}
+
+			// The property buffer may flush, so it is used after releasing the connection
+			for (int i = 0; i < specs.size(); i++) {
+				bufferListProperties((long) nodes.get(i).getId(), specs.get(i).getProperties());
+			}
+		} catch (SQLException | IOException e) {
+			LOGGER.error("Failed to append the node rows", e);
+			return null;
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Creates several edges at once, returning them in the same order as the specs.
+	 * As in {@link #createRelationship(IGraphNode, IGraphNode, String, Map)}, existing
+	 * edges with the same endpoints and type are reused. Outside batch mode, the specs
+	 * are staged through an appender and all missing edges are inserted with a single
+	 * statement.
+	 *
+	 * @return The created or reused edges, or <code>null</code> if they could not be
+	 *         created. In that case, some of the edges may have been created already,
+	 *         so the transaction should be rolled back.
+	 */
+	public List<IGraphEdge> createRelationships(List<EdgeSpec> specs) {
+		final List<IGraphEdge> edges = new ArrayList<>(specs.size());
+		if (batch != null) {
+			for (EdgeSpec spec : specs) {
+				edges.add(createRelationship(spec.getStart(), spec.getEnd(), spec.getType(), spec.getProperties()));
+			}
+			return edges;
+		}
+
+		try {
+			final long[] allocatedIds = new long[specs.size()];
+			final List<DuckEdge> newEdges = new ArrayList<>();
+			synchronized (duckDB) {
+				prepareCachedSQL(SQL_CREATE_EDGE_SPECS).execute();
+				try {
+					// The appender finds temporary tables through the default schema
+					try (DuckDBAppender appender = ((DuckDBConnection) duckDB).createAppender(TEMP_SCHEMA, TABLE_EDGE_SPECS)) {
+						int idx = 0;
+						for (EdgeSpec spec : specs) {
+							final long startId = (long) spec.getStart().getId();
+							final long endId = (long) spec.getEnd().getId();
+							final int labelId = labels.getOrCreate(spec.getType());
+							allocatedIds[idx] = idAllocator.nextId();
+							appender.beginRow();
+							appender.append(idx);
+							appender.append(allocatedIds[idx]);
+							appender.append(startId);
+							appender.append(endId);
+							appender.append(labelId);
+							appender.endRow();
+							idx++;
+
+							// We do not know yet which of the edges are new
+							invalidateAdjacency(startId, endId, labelId);
+						}
+					}
+
+					// IDs allocated for edges that already existed are simply skipped
+					prepareCachedSQL(SQL_INSERT_EDGE_SPECS).execute();
+					try (ResultSet rs = prepareCachedSQL(SQL_FIND_EDGE_SPECS).executeQuery()) {
+						while (rs.next()) {
+							final int idx = rs.getInt(1);
+							final EdgeSpec spec = specs.get(idx);
+							final DuckEdge edge = new DuckEdge(this, rs.getLong(2), spec.getType(),
+								(long) spec.getStart().getId(), (long) spec.getEnd().getId());
+							if (edge.getId() == allocatedIds[idx]) {
+								newEdges.add(edge);
+							}
+							edges.add(edge);
+						}
+					}
+				} finally {
+					// Leftover specs would be matched by position in the next call
+					prepareCachedSQL(SQL_CLEAR_EDGE_SPECS).execute();
+				}
+			}
+
+			// The property buffer may flush, so it is used after releasing the connection
+			for (int i = 0; i < specs.size(); i++) {
+				final Map<String, Object> props = specs.get(i).getProperties();
+				if (props != null) {
+					for (Entry<String, Object> entry : props.entrySet()) {
+						edges.get(i).setProperty(entry.getKey(), entry.getValue());
+					}
+				}
+			}
+
+			// An edge is new if it kept the ID allocated for its spec
+			for (DuckEdge edge : newEdges) {
+				addClosurePaths((long) edge.getStartNode().getId(), (long) edge.getEndNode().getId(), labels.find(edge.getType()));
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Failed to insert the edge rows", e);
+			return null;
+		}
+
+		return edges;
+	}
+
+	/**
+	 * Returns the edges of several nodes at once, grouped by node in the same order
+	 * as the given IDs. A <code>null</code> type matches edges of any type, and a
+	 * <code>null</code> direction returns both outgoing and incoming edges.
+	 *
+	 * The edges of all the nodes are read with one query per direction, joining
+	 * against a temporary table with the node IDs. Nodes whose edges are in the
+	 * adjacency cache are served from it, and the edges read for the other nodes
+	 * are added to the cache. Returns <code>null</code> if the edges could not be read.
+	 */
+	public Map<Long, List<IGraphEdge>> getEdges(Collection<Long> nodeIds, Direction direction, String type) {
+		final Map<Long, List<IGraphEdge>> results = new LinkedHashMap<>();
+		for (Long nodeId : nodeIds) {
+			results.put(nodeId, new ArrayList<>());
+		}
+
+		final int labelId = type == null ? DuckAdjacencyCache.ANY_LABEL : labels.find(type);
+		if (labelId == DuckDictionary.UNKNOWN || results.isEmpty()) {
+			return results;
+		}
+
+		try {
+			if (direction != Direction.INCOMING) {
+				addEdges(results, Direction.OUTGOING, labelId);
+			}
+			if (direction != Direction.OUTGOING) {
+				addEdges(results, Direction.INCOMING, labelId);
+			}
+		} catch (SQLException e) {
+			LOGGER.error(String.format("Failed to retrieve the edges of %d nodes", results.size()), e);
+			return null;
+		}
+
+		return results;
+	}
+
+	/**
+	 * Returns the number of edges of several nodes at once, in the same order as
+	 * the given IDs, without reading the edges themselves. As in
+	 * {@link #getEdges(Collection, Direction, String)}, a <code>null</code> type
+	 * counts edges of any type, and a <code>null</code> direction counts both
+	 * outgoing and incoming edges.
+	 *
+	 * The degrees which are not cached are counted with one <code>GROUP BY</code>
+	 * query per direction. Returns <code>null</code> if the edges could not be counted.
+	 */
+	public Map<Long, Integer> getDegrees(Collection<Long> nodeIds, Direction direction, String type) {
+		final Map<Long, Integer> results = new LinkedHashMap<>();
+		for (Long nodeId : nodeIds) {
+			results.put(nodeId, 0);
+		}
+
+		final int labelId = type == null ? DuckAdjacencyCache.ANY_LABEL : labels.find(type);
+		if (labelId == DuckDictionary.UNKNOWN || results.isEmpty()) {
+			return results;
+		}
+
+		try {
+			if (direction != Direction.INCOMING) {
+				addDegrees(results, Direction.OUTGOING, labelId);
+			}
+			if (direction != Direction.OUTGOING) {
+				addDegrees(results, Direction.INCOMING, labelId);
+			}
+		} catch (SQLException e) {
+			LOGGER.error(String.format("Failed to count the edges of %d nodes", results.size()), e);
+			return null;
+		}
+
+		return results;
+	}
+
+	private void addDegrees(Map<Long, Integer> results, Direction direction, int labelId) throws SQLException {
+		final List<Long> misses = new ArrayList<>();
+		for (Entry<Long, Integer> entry : results.entrySet()) {
+			final Integer degree = getCachedDegree(entry.getKey(), direction, labelId);
+			if (degree == null) {
+				misses.add(entry.getKey());
+			} else {
+				entry.setValue(entry.getValue() + degree);
+			}
+		}
+		if (misses.isEmpty()) {
+			return;
+		}
+
+		final String sql;
+		if (direction == Direction.OUTGOING) {
+			sql = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_NEIGHBOURHOOD_OUTGOING_DEGREES : SQL_NEIGHBOURHOOD_OUTGOING_DEGREES_WITH_TYPE;
+		} else {
+			sql = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_NEIGHBOURHOOD_INCOMING_DEGREES : SQL_NEIGHBOURHOOD_INCOMING_DEGREES_WITH_TYPE;
+		}
+
+		synchronized (neighbourhoodIds.getLock()) {
+			neighbourhoodIds.fill(misses);
+			try {
+				final PreparedStatement stmt = prepareCachedReadSQL(sql);
+				if (labelId != DuckAdjacencyCache.ANY_LABEL) {
+					stmt.setInt(1, labelId);
+				}
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						final long nodeId = rs.getLong(1);
+						final int degree = rs.getInt(2);
+						results.merge(nodeId, degree, Integer::sum);
+						cacheDegree(nodeId, direction, labelId, degree);
+					}
+				}
+			} finally {
+				neighbourhoodIds.clear();
+			}
+		}
+	}
+
+	private void addEdges(Map<Long, List<IGraphEdge>> results, Direction direction, int labelId) throws SQLException {
+		final DuckAdjacencyCache cache = usesReadConnection() ? null : adjacencyCache;
+		final Map<Long, Adjacency> adjacencies = new HashMap<>();
+		final List<Long> misses = new ArrayList<>();
+		for (Long nodeId : results.keySet()) {
+			final Adjacency adj = cache == null ? null : cache.get(nodeId, direction, labelId);
+			if (adj == null) {
+				misses.add(nodeId);
+			} else {
+				adjacencies.put(nodeId, adj);
+			}
+		}
+
+		if (!misses.isEmpty()) {
+			final String sql;
+			if (direction == Direction.OUTGOING) {
+				sql = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_NEIGHBOURHOOD_OUTGOING : SQL_NEIGHBOURHOOD_OUTGOING_WITH_TYPE;
+			} else {
+				sql = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_NEIGHBOURHOOD_INCOMING : SQL_NEIGHBOURHOOD_INCOMING_WITH_TYPE;
+			}
+
+			final Map<Long, AdjacencyBuilder> builders = new HashMap<>();
+			synchronized (neighbourhoodIds.getLock()) {
+				neighbourhoodIds.fill(misses);
+				try {
+					final PreparedStatement stmt = prepareCachedReadSQL(sql);
+					if (labelId != DuckAdjacencyCache.ANY_LABEL) {
+						stmt.setInt(1, labelId);
+					}
+					try (ResultSet rs = stmt.executeQuery()) {
+						while (rs.next()) {
+							builders.computeIfAbsent(rs.getLong(1), k -> new AdjacencyBuilder())
+								.add(rs.getLong(2), rs.getInt(3), rs.getLong(direction == Direction.OUTGOING ? 5 : 4));
+						}
+					}
+				} finally {
+					neighbourhoodIds.clear();
+				}
+			}
+
+			for (Long nodeId : misses) {
+				final AdjacencyBuilder builder = builders.get(nodeId);
+				final Adjacency adj = builder == null ? Adjacency.EMPTY : builder.build();
+				adjacencies.put(nodeId, adj);
+				if (cache != null) {
+					cache.put(nodeId, direction, labelId, adj);
+				}
+			}
+		}
+
+		for (Entry<Long, List<IGraphEdge>> entry : results.entrySet()) {
+			final long nodeId = entry.getKey();
+			final Adjacency adj = adjacencies.get(nodeId);
+			for (int i = 0; i < adj.size(); i++) {
+				entry.getValue().add(adj.getEdge(this, nodeId, direction, i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the IDs of the nodes reached from the start nodes by following between
+	 * 1 and <code>maxDepth</code> edges in the given direction, in ascending order.
+	 * Start nodes are only included if they can be reached from a start node.
+	 *
+	 * A <code>null</code> direction follows edges both ways. A <code>null</code> or
+	 * empty collection of edge labels follows edges of any label. If node labels are
+	 * given, only the reached nodes with those labels are returned, but edges are
+	 * still followed through nodes with other labels.
+	 *
+	 * The whole traversal runs as a single recursive query, joining against a
+	 * temporary table with the start node IDs.
+	 */
+	public LongStream traverse(Collection<Long> startIds, Collection<String> edgeLabels, Direction direction, int maxDepth, Collection<String> nodeLabels) {
+		final String edgeFilter = sqlLabelFilter("label_id", edgeLabels);
+		final String nodeFilter = sqlLabelFilter("n.label_id", nodeLabels);
+		if (startIds.isEmpty() || maxDepth < 1 || edgeFilter == null || nodeFilter == null) {
+			return LongStream.empty();
+		}
+
+		final String sql = sqlTraversal(direction, edgeFilter, nodeFilter);
+		try {
+			synchronized (traversalStartIds.getLock()) {
+				traversalStartIds.fill(startIds);
+
+				// The SQL depends on the filters, so it is not worth caching
+				try (PreparedStatement stmt = prepareReadSQL(sql)) {
+					stmt.setInt(1, maxDepth);
+
+					final LongStream.Builder reached = LongStream.builder();
+					try (ResultSet rs = stmt.executeQuery()) {
+						while (rs.next()) {
+							reached.add(rs.getLong(1));
+						}
+					}
+					return reached.build();
+				} finally {
+					traversalStartIds.clear();
+				}
+			}
+		} catch (SQLException e) {
+			LOGGER.error(String.format("Failed to traverse the graph from %d nodes", startIds.size()), e);
+			return LongStream.empty();
+		}
+	}
+
+	/**
+	 * Returns the condition on the label ID column for the given labels, an empty
+	 * string if no labels are given, or <code>null</code> if none of the labels
+	 * exist (so nothing can match).
+	 */
+	private String sqlLabelFilter(String column, Collection<String> labelNames) {
+		if (labelNames == null || labelNames.isEmpty()) {
+			return "";
+		}
+
+		final StringBuilder sb = new StringBuilder();
+		for (String name : labelNames) {
+			final int labelId = labels.find(name);
+			if (labelId != DuckDictionary.UNKNOWN) {
+				sb.append(sb.length() == 0 ? "" : ", ").append(labelId);
+			}
+		}
+		return sb.length() == 0 ? null : String.format(" AND %s IN (%s)", column, sb);
+	}
+
+	/**
+	 * Deletes several nodes at once, together with their properties, their incident
+	 * edges and the properties of those edges. This is equivalent to calling
+	 * {@link DuckNode#delete()} on each node, but it runs a fixed number of set-based
+	 * statements against temporary tables with the IDs of the deleted nodes and of
+	 * all the deleted elements, regardless of how many nodes are deleted.
+	 */
+	public void deleteNodes(Collection<Long> nodeIds) {
+		if (nodeIds.isEmpty()) {
+			return;
+		}
+
+		try {
+			// Buffered changes to the deleted elements must not be applied after they are deleted
+			propertyBuffer.flush();
+
+			synchronized (deletedNodeIds.getLock()) {
+				deletedNodeIds.fill(nodeIds);
+				deletedElemIds.create();
+				try {
+					prepareCachedSQL(SQL_COLLECT_DELETED_ELEMS).execute();
+					if (closureTable != null) {
+						if (batch != null) {
+							closureTable.invalidate();
+						} else {
+							closureTable.nodesDeleted(deletedNodeIds);
+						}
+					}
+					if (adjacencyCache != null || degreeCache != null) {
+						try (ResultSet rs = prepareCachedSQL(SQL_DELETED_EDGE_KEYS).executeQuery()) {
+							while (rs.next()) {
+								invalidateAdjacency(rs.getLong(1), rs.getLong(2), rs.getInt(3));
+							}
+						}
+					}
+
+					prepareCachedSQL(SQL_DELETE_ELEM_PROPERTIES).execute();
+					prepareCachedSQL(SQL_DELETE_ELEM_PROPERTY_LISTS).execute();
+					prepareCachedSQL(SQL_DELETE_ELEM_EDGES).execute();
+					prepareCachedSQL(SQL_DELETE_ELEM_NODES).execute();
+				} finally {
+					deletedNodeIds.clear();
+					deletedElemIds.clear();
+				}
+			}
+		} catch (SQLException e) {
+			LOGGER.error(String.format("Failed to delete %d nodes", nodeIds.size()), e);
+		} finally {
+			if (propertyCache != null) {
+				propertyCache.invalidateAll();
+			}
+			invalidateNodeCounts();
+		}
+	}
+
+	/**
+	 * Sends the list-valued properties of an element created in batch mode to the
+	 * property buffer, as the batch cannot append them.
+	 */
+	private void bufferListProperties(long elemId, Map<String, Object> props) throws SQLException {
+		if (props != null) {
+			for (Entry<String, Object> entry : props.entrySet()) {
+				final Object value = entry.getValue();
+				if (value != null && PropertyValueType.from(value).isList()) {
+					propertyBuffer.put(elemId, entry.getKey(), value);
+				}
+			}
+		}
+	}
 
 	@Override
 	public IGraphEdge createRelationship(IGraphNode start, IGraphNode end, String type) {
@@ -288,6 +1619,7 @@ public class DuckDatabase implements IGraphDatabase {
 		final long endId = dEnd.getId();
 
 		try {
+			final int labelId = labels.getOrCreate(type);
 			Function<Long, DuckEdge> createEdge = (id) -> {
 				DuckEdge edge = new DuckEdge(this, id, type, startId, endId);
 				
@@ -300,38 +1632,77 @@ public class DuckDatabase implements IGraphDatabase {
 				return edge;
 			};
 
-			final String sqlFindExisting = String.format(
-				"SELECT id FROM %s WHERE from_node_id = ? AND to_node_id = ? AND label = ?;",
-				TABLE_EDGES);
-
-			try (PreparedStatement stmt = prepareSQL(sqlFindExisting)) {
-				stmt.setLong(1, startId);
-				stmt.setLong(2, endId);
-				stmt.setString(3, type);
+			if (batch != null) {
+				final Long pendingId = batch.findPendingEdge(startId, endId, labelId);
+				if (pendingId != null) {
+					return createEdge.apply(pendingId);
+				}
 
-				ResultSet rs = stmt.executeQuery();
-				if  (rs.next()) {
-					return createEdge.apply(rs.getLong(1));
+				// An edge involving a node created since the last flush cannot be in the table yet
+				if (batch.isFresh(startId) || batch.isFresh(endId)) {
+					final long newEdgeId = idAllocator.nextId();
+					invalidateAdjacency(startId, endId, labelId);
+					addClosurePaths(startId, endId, labelId);
+					synchronized (duckDB) {
+						batch.appendEdge(newEdgeId, startId, endId, labelId, props);
+					}
+					bufferListProperties(newEdgeId, props);
+					return new DuckEdge(this, newEdgeId, type, startId, endId);
 				}
-			}
 
-			final String sqlAddNewEdge = String.format(
-				"INSERT INTO %s (id, from_node_id, to_node_id, label) VALUES (?, ?, ?, ?);",
-				TABLE_EDGES);
+				final Long existingId = findEdge(startId, endId, labelId);
+				if (existingId != null) {
+					return createEdge.apply(existingId);
+				}
 
-			try (PreparedStatement stmt = prepareSQL(sqlAddNewEdge)) {
-				final long newEdgeId = nextValue(SEQUENCE_ELEMENTS);
+				final long newEdgeId = idAllocator.nextId();
+				invalidateAdjacency(startId, endId, labelId);
+				addClosurePaths(startId, endId, labelId);
+				synchronized (duckDB) {
+					batch.appendEdge(newEdgeId, startId, endId, labelId, props);
+				}
+				bufferListProperties(newEdgeId, props);
+				return new DuckEdge(this, newEdgeId, type, startId, endId);
+			}
 
-				stmt.setLong(1, newEdgeId);
-				stmt.setLong(2, startId);
-				stmt.setLong(3, endId);
-				stmt.setString(4, type);
-				stmt.execute();
+			/*
+			 * Edges are usually new, so we try to insert them straight away, and only
+			 * look for the existing edge if nothing was inserted. Edges seen recently are
+			 * likely to be created again, so for those we look for them first instead.
+			 */
+			final DuckEdgeKeyFilter filter = recentEdges;
+			if (filter != null && filter.mightContain(startId, endId, labelId)) {
+				final Long existingId = findEdge(startId, endId, labelId);
+				if (existingId != null) {
+					return createEdge.apply(existingId);
+				}
+			}
 
-				return createEdge.apply(newEdgeId);
+			final long newEdgeId = idAllocator.nextId();
+			final PreparedStatement stmtInsert = prepareCachedSQL(SQL_INSERT_EDGE_IF_ABSENT);
+			stmtInsert.setLong(1, newEdgeId);
+			stmtInsert.setLong(2, startId);
+			stmtInsert.setLong(3, endId);
+			stmtInsert.setInt(4, labelId);
+			try (ResultSet rs = stmtInsert.executeQuery()) {
+				if (!rs.next()) {
+					// The allocated ID is simply skipped
+					final Long existingId = findEdge(startId, endId, labelId);
+					if (existingId == null) {
+						throw new SQLException("Edge was neither inserted nor found");
+					}
+					return createEdge.apply(existingId);
+				}
+			}
+			if (filter != null) {
+				filter.add(startId, endId, labelId);
 			}
+			invalidateAdjacency(startId, endId, labelId);
+			addClosurePaths(startId, endId, labelId);
 
-		} catch (SQLException e) {
+			return createEdge.apply(newEdgeId);
+
+		} catch (SQLException | IOException e) {
 			LOGGER.error(String.format(
 				"Failed to add a new edge from %d to %d of type %s",
 				startId, endId, type), e);
@@ -340,6 +1711,23 @@ public class DuckDatabase implements IGraphDatabase {
 		return null;
 	}
 
+	private Long findEdge(long startId, long endId, int labelId) throws SQLException {
+		final PreparedStatement stmtFind = prepareCachedSQL(SQL_FIND_EDGE);
+		stmtFind.setLong(1, startId);
+		stmtFind.setLong(2, endId);
+		stmtFind.setInt(3, labelId);
+		try (ResultSet rs = stmtFind.executeQuery()) {
+			if (rs.next()) {
+				final DuckEdgeKeyFilter filter = recentEdges;
+				if (filter != null) {
+					filter.add(startId, endId, labelId);
+				}
+				return rs.getLong(1);
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public Object getGraph() {
 		return duckDB;
@@ -356,8 +1744,7 @@ public class DuckDatabase implements IGraphDatabase {
 
 	@Override
 	public boolean nodeIndexExists(String name) {
-		// TODO Auto-generated method stub
-		return false;
+		return nodeIndices.containsKey(name);
 	}
 
 	@Override
@@ -372,8 +1759,7 @@ public class DuckDatabase implements IGraphDatabase {
 
 	@Override
 	public Set<String> getNodeIndexNames() {
-		// TODO Auto-generated method stub
-		return null;
+		return new HashSet<>(nodeIndices.keySet());
 	}
 
 	@Override
@@ -383,14 +1769,473 @@ public class DuckDatabase implements IGraphDatabase {
 	}
 
 	/**
-	 * Returns the next value in a sequence.
+	 * Returns the number of element IDs reserved at a time from the sequence.
+	 */
+	public int getElementIdBlockSize() {
+		return idBlockSize;
+	}
+
+	/**
+	 * Changes the number of element IDs reserved at a time from the sequence. Bulk
+	 * loads may want larger blocks to further reduce the number of round trips.
+	 */
+	public void setElementIdBlockSize(int blockSize) {
+		if (idAllocator != null) {
+			idAllocator.setBlockSize(blockSize);
+		}
+		this.idBlockSize = blockSize;
+	}
+
+	/**
+	 * Returns how many recently created edges are tracked to speed up the creation
+	 * of edges that already exist, or 0 if they are not tracked.
 	 */
-	private long nextValue(String sequence) throws SQLException {
-		try (PreparedStatement stmt = prepareSQL("SELECT nextval(?);")) {
-			stmt.setString(1, sequence);
-			ResultSet rs = stmt.executeQuery();
-			rs.next();
-			return rs.getLong(1);
+	public int getRecentEdgeFilterCapacity() {
+		return recentEdges == null ? 0 : recentEdges.getCapacity();
+	}
+
+	/**
+	 * Changes how many recently created edges are tracked in a probabilistic filter.
+	 * Edges in the filter are looked up before trying to insert them, and other edges
+	 * are inserted straight away. Passing 0 disables the filter, so all edges will be
+	 * inserted straight away.
+	 */
+	public void setRecentEdgeFilterCapacity(int capacity) {
+		this.recentEdges = capacity > 0 ? new DuckEdgeKeyFilter(capacity) : null;
+	}
+
+	/**
+	 * Returns the maximum estimated size in bytes of the cache of element properties,
+	 * or 0 if the cache is disabled.
+	 */
+	public long getPropertyCacheSize() {
+		return propertyCacheSize;
+	}
+
+	/**
+	 * Enables the cache of element properties, which loads all the properties of an
+	 * element in one query the first time any of them is read. The cache will hold
+	 * up to <code>maxSize</code> bytes (as estimated by the cache). Passing 0 disables
+	 * the cache, which is the default.
+	 */
+	public void setPropertyCacheSize(long maxSize) {
+		this.propertyCacheSize = maxSize;
+		if (tx == null) {
+			return;
+		}
+
+		if (propertyCache != null) {
+			tx.removeListener(propertyCache);
+		}
+		if (maxSize > 0) {
+			propertyCache = new DuckPropertyCache(maxSize);
+			tx.addListener(propertyCache);
+		} else {
+			propertyCache = null;
+		}
+	}
+
+	/**
+	 * Returns the buffer of property changes in the current transaction.
+	 */
+	DuckPropertyBuffer getPropertyBuffer() {
+		return propertyBuffer;
+	}
+
+	/**
+	 * Returns the dictionary between node and edge labels and their IDs.
+	 */
+	DuckDictionary getLabelDictionary() {
+		return labels;
+	}
+
+	/**
+	 * Returns the dictionary between property names and their IDs.
+	 */
+	DuckDictionary getPropertyNameDictionary() {
+		return propertyNames;
+	}
+
+	/**
+	 * Returns the cache of element properties, or <code>null</code> if it is disabled.
+	 */
+	DuckPropertyCache getPropertyCache() {
+		return propertyCache;
+	}
+
+	/**
+	 * Returns the maximum estimated size in bytes of the cache of node adjacencies,
+	 * or 0 if the cache is disabled.
+	 */
+	public long getAdjacencyCacheSize() {
+		return adjacencyCacheSize;
+	}
+
+	/**
+	 * Enables the cache of node adjacencies, which keeps the edges of recently
+	 * traversed nodes by direction and label. The cache will hold up to
+	 * <code>maxSize</code> bytes (as estimated by the cache). Passing 0 disables the
+	 * cache, which is the default.
+	 */
+	public void setAdjacencyCacheSize(long maxSize) {
+		this.adjacencyCacheSize = maxSize;
+		if (tx == null) {
+			return;
+		}
+
+		if (adjacencyCache != null) {
+			tx.removeListener(adjacencyCache);
+		}
+		if (maxSize > 0) {
+			adjacencyCache = new DuckAdjacencyCache(maxSize);
+			tx.addListener(adjacencyCache);
+		} else {
+			adjacencyCache = null;
+		}
+	}
+
+	/**
+	 * Returns the cache of node adjacencies (e.g. to read its hit rate and memory
+	 * use), or <code>null</code> if it is disabled.
+	 */
+	public DuckAdjacencyCache getAdjacencyCache() {
+		return adjacencyCache;
+	}
+
+	/**
+	 * Returns the maximum number of entries in the cache of node degrees, or 0 if
+	 * the cache is disabled.
+	 */
+	public long getDegreeCacheSize() {
+		return degreeCacheSize;
+	}
+
+	/**
+	 * Enables the cache of node degrees, which keeps the number of edges of the
+	 * nodes with many edges (e.g. type nodes) by direction and label. The cache
+	 * will hold up to <code>maxSize</code> entries. Passing 0 disables the cache,
+	 * which is the default.
+	 */
+	public void setDegreeCacheSize(long maxSize) {
+		this.degreeCacheSize = maxSize;
+		if (tx == null) {
+			return;
+		}
+
+		if (degreeCache != null) {
+			tx.removeListener(degreeCache);
+		}
+		if (maxSize > 0) {
+			degreeCache = new DuckDegreeCache(maxSize);
+			tx.addListener(degreeCache);
+		} else {
+			degreeCache = null;
+		}
+	}
+
+	/**
+	 * Returns the cache of node degrees, or <code>null</code> if it is disabled.
+	 */
+	public DuckDegreeCache getDegreeCache() {
+		return degreeCache;
+	}
+
+	/**
+	 * Returns the maximum number of read connections, or 0 if they are disabled.
+	 */
+	public int getMaxReadConnections() {
+		return maxReadConnections;
+	}
+
+	/**
+	 * Enables a pool of up to <code>max</code> read connections duplicated from the
+	 * primary connection, so several threads can query the graph at the same time.
+	 * Each thread gets its own connection on its first query, which only sees
+	 * committed data. Threads which change the graph keep using the primary
+	 * connection until the transaction is committed or rolled back, and so do all
+	 * threads in batch mode and the threads beyond the first <code>max</code>.
+	 * The primary connection is not safe for concurrent use, so the pool should be
+	 * as large as the number of threads which may query the graph at the same time.
+	 * Passing 0 disables the pool, which is the default.
+	 *
+	 * Enabling the pool also enables {@link #getAsyncQueries()}, whose threads
+	 * have their own read connections, so they do not take up this pool.
+	 */
+	public void setMaxReadConnections(int max) {
+		this.maxReadConnections = max;
+		if (tx == null) {
+			return;
+		}
+
+		final DuckAsyncQueries oldAsync = asyncQueries;
+		final DuckReadConnections old = readConnections;
+		readConnections = max > 0 ? new DuckReadConnections((DuckDBConnection) duckDB, max) : null;
+		asyncQueries = max > 0 ? new DuckAsyncQueries(this, max) : null;
+		if (oldAsync != null) {
+			oldAsync.close();
+		}
+		if (old != null) {
+			old.close();
+		}
+	}
+
+	/**
+	 * Returns the runner for queries in the background, or <code>null</code> if
+	 * read connections are disabled. It has as many threads as the pool has
+	 * connections, and opens as many read connections of its own.
+	 */
+	public DuckAsyncQueries getAsyncQueries() {
+		return asyncQueries;
+	}
+
+	/**
+	 * Returns the labels of the edges in the closure table, or an empty set if it
+	 * is disabled.
+	 */
+	public Set<String> getClosureLabels() {
+		final Set<String> names = new HashSet<>();
+		final DuckClosureTable closure = closureTable;
+		if (closure != null) {
+			for (int labelId : closure.getLabelIds()) {
+				names.add(labels.get(labelId));
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Enables the closure table over the edges with the given labels, which is
+	 * filled from the current edges and then kept up to date as edges are created
+	 * and deleted (see {@link DuckClosureTable}). Passing <code>null</code> or an
+	 * empty collection disables it, which is the default.
+	 *
+	 * Like node index creation, this is part of the current transaction. If called
+	 * before the database is started, it is applied and committed on startup.
+	 */
+	public void setClosureLabels(Collection<String> labelNames) {
+		this.closureLabels = labelNames;
+		if (tx == null) {
+			return;
+		}
+
+		try {
+			final Set<Integer> labelIds = new HashSet<>();
+			if (labelNames != null) {
+				for (String name : labelNames) {
+					labelIds.add(labels.getOrCreate(name));
+				}
+			}
+
+			if (labelIds.isEmpty()) {
+				if (closureTable != null) {
+					closureTable.delete();
+					closureTable = null;
+				}
+			} else if (closureTable == null || !closureTable.getLabelIds().equals(labelIds)) {
+				final DuckClosureTable closure = new DuckClosureTable(this, labelIds);
+				closure.create();
+				closureTable = closure;
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not set up the closure table", e);
+		}
+	}
+
+	/**
+	 * Returns the closure table, or <code>null</code> if it is disabled.
+	 */
+	public DuckClosureTable getClosureTable() {
+		return closureTable;
+	}
+
+	/**
+	 * Adds the paths through a new edge to the closure table, if it is enabled and
+	 * tracks its label. In batch mode, the closure is rebuilt later instead.
+	 */
+	private void addClosurePaths(long fromId, long toId, int labelId) throws SQLException {
+		final DuckClosureTable closure = closureTable;
+		if (closure != null && closure.tracks(labelId)) {
+			if (batch != null) {
+				closure.invalidate();
+			} else {
+				closure.edgeCreated(fromId, toId);
+			}
+		}
+	}
+
+	/**
+	 * Removes the paths through a deleted edge from the closure table, if it is
+	 * enabled and tracks its label. In batch mode, the closure is rebuilt later instead.
+	 */
+	void removeClosurePaths(long fromId, long toId, int labelId) throws SQLException {
+		final DuckClosureTable closure = closureTable;
+		if (closure != null && closure.tracks(labelId)) {
+			if (batch != null) {
+				closure.invalidate();
+			} else {
+				closure.edgeDeleted(fromId, toId);
+			}
+		}
+	}
+
+	/**
+	 * Drops the cached adjacencies and degrees affected by the creation or deletion
+	 * of an edge.
+	 */
+	void invalidateAdjacency(long fromId, long toId, int labelId) {
+		final DuckAdjacencyCache cache = adjacencyCache;
+		if (cache != null) {
+			cache.invalidateEdge(fromId, toId, labelId);
+		}
+		final DuckDegreeCache degrees = degreeCache;
+		if (degrees != null) {
+			degrees.invalidateEdge(fromId, toId, labelId);
+		}
+	}
+
+	/**
+	 * Returns the number of edges of a node from the adjacency or degree caches, or
+	 * <code>null</code> if neither has it. Threads with a read connection do not use
+	 * the caches, as they may include uncommitted edges.
+	 */
+	Integer getCachedDegree(long nodeId, Direction direction, int labelId) {
+		if (usesReadConnection()) {
+			return null;
+		}
+
+		final DuckAdjacencyCache adjacencies = adjacencyCache;
+		if (adjacencies != null) {
+			final Adjacency adj = adjacencies.get(nodeId, direction, labelId);
+			if (adj != null) {
+				return adj.size();
+			}
+		}
+
+		final DuckDegreeCache degrees = degreeCache;
+		return degrees == null ? null : degrees.get(nodeId, direction, labelId);
+	}
+
+	/**
+	 * Adds the counted number of edges of a node to the degree cache, if it is
+	 * enabled and the count can be shared with other threads.
+	 */
+	void cacheDegree(long nodeId, Direction direction, int labelId, int degree) {
+		final DuckDegreeCache degrees = degreeCache;
+		if (degrees != null && !usesReadConnection()) {
+			degrees.put(nodeId, direction, labelId, degree);
+		}
+	}
+
+	/**
+	 * Rewrites the BLOB property values stored by older versions of this backend
+	 * into the format of {@link DuckBlobCodec}, and commits the changes. This is
+	 * done automatically when the database is started, until a migration has
+	 * gone through all the values.
+	 *
+	 * Values which cannot be decoded are left as they are, and copied into the
+	 * <code>blob_quarantine</code> table together with the reason.
+	 *
+	 * @return Number of values which were rewritten.
+	 */
+	public long migrateLegacyBlobs() {
+		long migrated = 0, quarantined = 0;
+		long lastElemId = Long.MIN_VALUE;
+		int lastNameId = 0;
+
+		try {
+			boolean more = true;
+			while (more) {
+				final PreparedStatement stmt = prepareCachedSQL(SQL_LEGACY_BLOBS);
+				stmt.setLong(1, lastElemId);
+				stmt.setLong(2, lastElemId);
+				stmt.setInt(3, lastNameId);
+
+				int rows = 0;
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						rows++;
+						lastElemId = rs.getLong(1);
+						lastNameId = rs.getInt(2);
+						try {
+							propertyBuffer.put(lastElemId, propertyNames.get(lastNameId), PropertyValueType.BLOB.getValue(rs, 3));
+							migrated++;
+						} catch (IOException | ClassNotFoundException e) {
+							quarantineBlob(lastElemId, lastNameId, e);
+							quarantined++;
+						}
+					}
+				}
+
+				propertyBuffer.flush();
+				more = rows == BLOB_MIGRATION_CHUNK_SIZE;
+			}
+
+			final PreparedStatement stmtDone = prepareCachedSQL(SQL_INSERT_MIGRATION);
+			stmtDone.setString(1, MIGRATION_LEGACY_BLOBS);
+			stmtDone.execute();
+			synchronized (duckDB) {
+				duckDB.commit();
+			}
+
+			if (migrated > 0) {
+				LOGGER.info("Migrated {} BLOB property values to the new format", migrated);
+			}
+			if (quarantined > 0) {
+				LOGGER.warn("Could not decode {} BLOB property values: see the {} table", quarantined, TABLE_BLOB_QUARANTINE);
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not migrate the BLOB property values", e);
+		}
+
+		return migrated;
+	}
+
+	private void quarantineBlob(long elemId, int nameId, Exception cause) throws SQLException {
+		prepareCachedSQL(SQL_CREATE_BLOB_QUARANTINE).execute();
+
+		final PreparedStatement stmt = prepareCachedSQL(SQL_QUARANTINE_BLOB);
+		stmt.setString(1, cause.toString());
+		stmt.setLong(2, elemId);
+		stmt.setInt(3, nameId);
+		stmt.execute();
+	}
+
+	/**
+	 * Returns <code>true</code> if the migration with the given name has been
+	 * completed on this database.
+	 */
+	private boolean isMigrationDone(String name) throws SQLException {
+		final PreparedStatement stmt = prepareCachedSQL(SQL_FIND_MIGRATION);
+		stmt.setString(1, name);
+		try (ResultSet rs = stmt.executeQuery()) {
+			return rs.next();
+		}
+	}
+
+	/**
+	 * Returns the highest ID used by any stored node or edge, or 0 if there are none.
+	 */
+	private long maxElementId() throws SQLException {
+		try (Statement stmt = duckDB.createStatement()) {
+			if (DEBUG_SQL) {
+				System.out.println(SQL_MAX_ELEMENT_ID);
+			}
+			try (ResultSet rs = stmt.executeQuery(SQL_MAX_ELEMENT_ID)) {
+				rs.next();
+				return rs.getLong(1);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a table has a column in the same way as {@link #tableExists(String)}.
+	 */
+	private boolean columnExists(String table, String column) {
+		try (Statement stmt = duckDB.createStatement()) {
+			runSQL(stmt, String.format("SELECT %s FROM %s LIMIT 1", column, table));
+			return true;
+		} catch (SQLException ex) {
+			return false;
 		}
 	}
 
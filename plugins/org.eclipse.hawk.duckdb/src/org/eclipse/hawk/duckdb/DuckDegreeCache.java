@@ -0,0 +1,104 @@
+package org.eclipse.hawk.duckdb;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Direction;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Key;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * Cache of the number of edges of nodes with many edges, keyed by node, direction
+ * and label (or {@link DuckAdjacencyCache#ANY_LABEL}). Counting the edges of a node
+ * scans one index entry per edge, so this mostly helps with nodes with a high
+ * fan-in, such as type nodes. Smaller degrees are cheap to count and are not
+ * cached, so they do not evict the larger ones.
+ *
+ * Entries are invalidated in the same way as in {@link DuckAdjacencyCache}.
+ */
+public class DuckDegreeCache implements DuckTransaction.Listener {
+
+	/** Default maximum number of entries in the cache. */
+	public static final long DEFAULT_MAX_SIZE = 100_000;
+
+	/** Degrees below this are not cached. */
+	public static final int MIN_CACHED_DEGREE = 64;
+
+	private final long maxSize;
+	private final Cache<Key, Integer> cache;
+	private final Set<Key> dirty = ConcurrentHashMap.newKeySet();
+
+	public DuckDegreeCache(long maxSize) {
+		this.maxSize = maxSize;
+		this.cache = CacheBuilder.newBuilder()
+			.maximumSize(maxSize)
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * Returns the cached number of edges of the node with the given label (or
+	 * {@link DuckAdjacencyCache#ANY_LABEL}), or <code>null</code> if it is not cached.
+	 */
+	public Integer get(long nodeId, Direction direction, int labelId) {
+		return cache.getIfPresent(new Key(nodeId, direction, labelId));
+	}
+
+	/**
+	 * Caches the number of edges of the node, if it is at least {@link #MIN_CACHED_DEGREE}.
+	 */
+	public void put(long nodeId, Direction direction, int labelId, int degree) {
+		if (degree >= MIN_CACHED_DEGREE) {
+			cache.put(new Key(nodeId, direction, labelId), degree);
+		}
+	}
+
+	/**
+	 * Drops the entries affected by the creation or deletion of an edge.
+	 */
+	public void invalidateEdge(long fromId, long toId, int labelId) {
+		invalidate(new Key(fromId, Direction.OUTGOING, labelId));
+		invalidate(new Key(fromId, Direction.OUTGOING, DuckAdjacencyCache.ANY_LABEL));
+		invalidate(new Key(toId, Direction.INCOMING, labelId));
+		invalidate(new Key(toId, Direction.INCOMING, DuckAdjacencyCache.ANY_LABEL));
+	}
+
+	public long getMaximumSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns the number of cached entries.
+	 */
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * Returns the hit, miss and eviction counts of the cache since it was created.
+	 */
+	public CacheStats getStats() {
+		return cache.stats();
+	}
+
+	@Override
+	public void afterCommit() {
+		dirty.clear();
+	}
+
+	@Override
+	public void afterRollback() {
+		// Entries for the changed keys may have been counted with rolled back edges
+		cache.invalidateAll(dirty);
+		dirty.clear();
+	}
+
+	private void invalidate(Key key) {
+		dirty.add(key);
+		cache.invalidate(key);
+	}
+
+}
@@ -0,0 +1,134 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dictionary between strings that are repeated across many rows (e.g. node and
+ * edge labels, or property names) and the small integer IDs stored in their
+ * place. Hawk only uses a few distinct values of each, so the whole dictionary
+ * is kept in memory and loaded when the database is started.
+ *
+ * New values are inserted in the current transaction. If it is rolled back, the
+ * dictionary is reloaded from its table.
+ */
+public class DuckDictionary implements DuckTransaction.Listener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DuckDictionary.class);
+
+	/**
+	 * ID returned by {@link #find(String)} for unknown values, which will not match any row.
+	 */
+	public static final int UNKNOWN = -1;
+
+	private final DuckDatabase db;
+	private final String table;
+	private final String sqlList;
+	private final String sqlInsert;
+
+	private final Map<String, Integer> idsByValue = new ConcurrentHashMap<>();
+	private final Map<Integer, String> valuesById = new ConcurrentHashMap<>();
+	private int lastId;
+
+	/**
+	 * Creates a dictionary backed by a table with an <code>id</code> column and
+	 * a column with the value.
+	 */
+	public DuckDictionary(DuckDatabase db, String table, String column) {
+		this.db = db;
+		this.table = table;
+		this.sqlList = String.format("SELECT id, %s FROM %s;", column, table);
+		this.sqlInsert = String.format("INSERT INTO %s (id, %s) VALUES (?, ?);", table, column);
+	}
+
+	/**
+	 * Creates the table for a dictionary.
+	 */
+	static String createTableSQL(String table, String column) {
+		return String.format(
+			"CREATE TABLE %s ("
+			+ "  id INTEGER PRIMARY KEY,"
+			+ "  %s VARCHAR NOT NULL UNIQUE"
+			+ ");",
+			table, column);
+	}
+
+	/**
+	 * Replaces the contents of the dictionary with the values in the table.
+	 */
+	public synchronized void load() throws SQLException {
+		idsByValue.clear();
+		valuesById.clear();
+		lastId = 0;
+
+		final PreparedStatement stmt = db.prepareCachedInternalSQL(sqlList);
+		try (ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				final int id = rs.getInt(1);
+				final String value = rs.getString(2);
+				idsByValue.put(value, id);
+				valuesById.put(id, value);
+				lastId = Math.max(lastId, id);
+			}
+		}
+	}
+
+	/**
+	 * Returns the ID of the value, or {@link #UNKNOWN} if it is not in use.
+	 */
+	public int find(String value) {
+		final Integer id = idsByValue.get(value);
+		return id == null ? UNKNOWN : id;
+	}
+
+	/**
+	 * Returns the ID of the value, adding it to the dictionary if needed.
+	 */
+	public int getOrCreate(String value) throws SQLException {
+		final Integer id = idsByValue.get(value);
+		if (id != null) {
+			return id;
+		}
+
+		synchronized (this) {
+			final Integer existing = idsByValue.get(value);
+			if (existing != null) {
+				return existing;
+			}
+
+			final int newId = lastId + 1;
+			final PreparedStatement stmt = db.prepareCachedInternalSQL(sqlInsert);
+			stmt.setInt(1, newId);
+			stmt.setString(2, value);
+			stmt.execute();
+
+			lastId = newId;
+			valuesById.put(newId, value);
+			idsByValue.put(value, newId);
+			return newId;
+		}
+	}
+
+	/**
+	 * Returns the value with the given ID, or <code>null</code> if there is none.
+	 */
+	public String get(int id) {
+		return valuesById.get(id);
+	}
+
+	@Override
+	public void afterRollback() {
+		try {
+			load();
+		} catch (SQLException e) {
+			LOGGER.error("Could not reload the dictionary in " + table, e);
+		}
+	}
+
+}
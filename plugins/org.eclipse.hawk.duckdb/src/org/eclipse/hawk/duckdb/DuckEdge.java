@@ -16,6 +16,9 @@ public class DuckEdge extends AbstractDuckElement implements IGraphEdge {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(DuckEdge.class);
 
+	private static final String SQL_DELETE_EDGE = String.format(
+		"DELETE FROM %s WHERE id = ?;", DuckDatabase.TABLE_EDGES);
+
 	private final String type;
 	private final long startNodeId;
 	private final long endNodeId;
@@ -45,20 +48,27 @@ public class DuckEdge extends AbstractDuckElement implements IGraphEdge {
 	@Override
 	public void delete() {
 		try {
-			deleteProperties();
-
-			final String sqlDeleteEdge = String.format(
-				"DELETE FROM %s WHERE id = ?;", DuckDatabase.TABLE_EDGES
-			);
-			try (PreparedStatement stmt = db.prepareSQL(sqlDeleteEdge)) {
-				stmt.setLong(1, id);
-				stmt.execute();
-			}
+			deleteEdge();
 		} catch (SQLException e) {
 			LOGGER.error("Failed to delete edge " + id, e);
 		}
 	}
 
+	/**
+	 * Deletes the edge and its properties, as in {@link #delete()}, but passes on any errors.
+	 */
+	void deleteEdge() throws SQLException {
+		deleteProperties();
+
+		final PreparedStatement stmt = db.prepareCachedSQL(SQL_DELETE_EDGE);
+		stmt.setLong(1, id);
+		stmt.execute();
+
+		final int labelId = db.getLabelDictionary().find(type);
+		db.invalidateAdjacency(startNodeId, endNodeId, labelId);
+		db.removeClosurePaths(startNodeId, endNodeId, labelId);
+	}
+
 	@Override
 	public String toString() {
 		return String.format(
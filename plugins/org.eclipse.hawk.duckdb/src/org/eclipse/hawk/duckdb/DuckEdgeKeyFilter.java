@@ -0,0 +1,73 @@
+package org.eclipse.hawk.duckdb;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+
+/**
+ * Probabilistic set of the <code>(from, to, label)</code> keys of recently created
+ * or found edges. It is only used as a hint to pick which statement to run first
+ * when creating an edge, so false positives and keys from rolled back transactions
+ * cost at most one extra round trip.
+ *
+ * Once it has seen as many keys as its capacity, it starts over with an empty filter
+ * to keep its false positive rate in check.
+ */
+public class DuckEdgeKeyFilter {
+
+	public static final int DEFAULT_CAPACITY = 100_000;
+
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+
+	private static final class EdgeKey {
+		private final long fromId, toId;
+		private final int labelId;
+
+		private EdgeKey(long fromId, long toId, int labelId) {
+			this.fromId = fromId;
+			this.toId = toId;
+			this.labelId = labelId;
+		}
+	}
+
+	private static final Funnel<EdgeKey> FUNNEL = (key, into) -> into
+		.putLong(key.fromId)
+		.putLong(key.toId)
+		.putInt(key.labelId);
+
+	private final int capacity;
+	private volatile BloomFilter<EdgeKey> filter;
+
+	public DuckEdgeKeyFilter(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive, but was " + capacity);
+		}
+		this.capacity = capacity;
+		this.filter = BloomFilter.create(FUNNEL, capacity, FALSE_POSITIVE_RATE);
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns <code>false</code> if the edge has certainly not been seen recently, and
+	 * <code>true</code> if it probably has.
+	 */
+	public boolean mightContain(long fromId, long toId, int labelId) {
+		return filter.mightContain(new EdgeKey(fromId, toId, labelId));
+	}
+
+	public void add(long fromId, long toId, int labelId) {
+		BloomFilter<EdgeKey> current = filter;
+		if (current.approximateElementCount() >= capacity) {
+			synchronized (this) {
+				if (filter == current) {
+					filter = BloomFilter.create(FUNNEL, capacity, FALSE_POSITIVE_RATE);
+				}
+				current = filter;
+			}
+		}
+		current.put(new EdgeKey(fromId, toId, labelId));
+	}
+
+}
@@ -0,0 +1,118 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out element IDs from blocks reserved in bulk from a DuckDB sequence,
+ * so we do not need a <code>nextval</code> round trip per element.
+ *
+ * Unused IDs in a block are simply skipped. Since the sequence may not agree with
+ * the stored IDs after a rollback or a crash, reserved blocks never start below the
+ * highest ID that has been handed out or stored so far.
+ */
+public class DuckIdAllocator implements DuckTransaction.Listener {
+
+	public static final int DEFAULT_BLOCK_SIZE = 1_000;
+
+	private static final class Block {
+		private final AtomicLong next;
+		private final long last;
+
+		private Block(long first, long last) {
+			this.next = new AtomicLong(first);
+			this.last = last;
+		}
+	}
+
+	private static final Block EMPTY_BLOCK = new Block(1, 0);
+
+	private final DuckDatabase db;
+	private final String sequence;
+
+	private volatile Block block = EMPTY_BLOCK;
+	private volatile int blockSize;
+	private long floor;
+
+	public DuckIdAllocator(DuckDatabase db, String sequence) {
+		this(db, sequence, DEFAULT_BLOCK_SIZE);
+	}
+
+	public DuckIdAllocator(DuckDatabase db, String sequence, int blockSize) {
+		this.db = db;
+		this.sequence = sequence;
+		setBlockSize(blockSize);
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Changes the size of the blocks reserved from now on (e.g. larger blocks for bulk loads).
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize < 1) {
+			throw new IllegalArgumentException("Block size must be positive, but was " + blockSize);
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Ensures that no ID at or below <code>minimum</code> will be handed out.
+	 */
+	public synchronized void ensureAbove(long minimum) {
+		floor = Math.max(floor, minimum);
+	}
+
+	/**
+	 * Drops the rest of the current block, e.g. after a rollback. The next ID will
+	 * come from a freshly reserved block.
+	 */
+	public synchronized void discard() {
+		block = EMPTY_BLOCK;
+	}
+
+	@Override
+	public void afterRollback() {
+		discard();
+	}
+
+	public long nextId() throws SQLException {
+		while (true) {
+			final Block current = block;
+			final long id = current.next.getAndIncrement();
+			if (id <= current.last) {
+				return id;
+			}
+
+			synchronized (this) {
+				if (block == current) {
+					block = reserveBlock();
+				}
+			}
+		}
+	}
+
+	private Block reserveBlock() throws SQLException {
+		final int size = blockSize;
+
+		// DuckDB cannot bind parameters inside table functions, so the size is inlined
+		final PreparedStatement stmt = db.prepareCachedInternalSQL(String.format(
+			"SELECT max(nextval('%s')) FROM range(%d);", sequence, size));
+		try (ResultSet rs = stmt.executeQuery()) {
+			rs.next();
+			final long seqLast = rs.getLong(1);
+
+			// If the sequence fell behind the IDs in use, move the block above them
+			final long first = Math.max(seqLast - size + 1, floor + 1);
+			final long last = Math.max(seqLast, first + size - 1);
+			floor = last;
+
+			return new Block(first, last);
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.duckdb.DuckDBAppender;
+import org.duckdb.DuckDBConnection;
+
+/**
+ * Temporary table with a single <code>id</code> column, which is filled through
+ * an appender so queries over many elements can join against it instead of
+ * running once per element.
+ *
+ * Temporary tables belong to a connection. Tables for read-only queries live in
+ * the read connection of the current thread if it has one (see
+ * {@link DuckDatabase#usesReadConnection()}), and in the primary connection
+ * otherwise. Users should hold the monitor returned by {@link #getLock()} from
+ * the moment they fill the table until they clear it.
+ */
+public class DuckIdTable {
+
+	private static final String SCHEMA = "main";
+
+	private final DuckDatabase db;
+	private final String table;
+	private final boolean forReads;
+	private final String sqlCreate;
+	private final String sqlClear;
+
+	public DuckIdTable(DuckDatabase db, String table) {
+		this(db, table, false);
+	}
+
+	public DuckIdTable(DuckDatabase db, String table, boolean forReads) {
+		this.db = db;
+		this.table = table;
+		this.forReads = forReads;
+		this.sqlCreate = String.format("CREATE TEMP TABLE IF NOT EXISTS %s (id BIGINT NOT NULL);", table);
+		this.sqlClear = String.format("DELETE FROM %s;", table);
+	}
+
+	public String getName() {
+		return table;
+	}
+
+	/**
+	 * Creates the table if it does not exist yet.
+	 */
+	public void create() throws SQLException {
+		prepare(sqlCreate).execute();
+	}
+
+	/**
+	 * Appends the IDs to the table, creating it if needed.
+	 */
+	public void fill(Iterable<Long> ids) throws SQLException {
+		create();
+
+		// The appender finds temporary tables through the default schema
+		final DuckDBConnection duckDB = (DuckDBConnection) (forReads ? db.getReadConnection() : db.getGraph());
+		try (DuckDBAppender appender = duckDB.createAppender(SCHEMA, table)) {
+			for (Long id : ids) {
+				appender.beginRow();
+				appender.append((long) id);
+				appender.endRow();
+			}
+		}
+	}
+
+	/**
+	 * Returns the monitor to hold while filling, querying and clearing the table,
+	 * as other threads may be sharing the same connection.
+	 */
+	public Object getLock() throws SQLException {
+		return forReads ? db.getReadConnection() : db.getConnectionLock();
+	}
+
+	public void clear() throws SQLException {
+		prepare(sqlClear).execute();
+	}
+
+	private PreparedStatement prepare(String sql) throws SQLException {
+		return forReads ? db.prepareCachedReadSQL(sql) : db.prepareCachedInternalSQL(sql);
+	}
+
+}
@@ -3,13 +3,18 @@ package org.eclipse.hawk.duckdb;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.eclipse.hawk.core.graph.IGraphDatabase;
 import org.eclipse.hawk.core.graph.IGraphEdge;
 import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Adjacency;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.AdjacencyBuilder;
+import org.eclipse.hawk.duckdb.DuckAdjacencyCache.Direction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,72 +26,130 @@ import com.google.common.collect.Iterables;
  */
 public class DuckNode extends AbstractDuckElement implements IGraphNode {
 
-	private final class EdgeResultSetIterator implements Iterator<IGraphEdge> {
-		private final ResultSet rs;
-		Boolean hasNext;
+	/**
+	 * Iterates over the edges of the node in ascending order of ID, fetching them
+	 * in chunks like {@link DuckNodeIterable}. Each chunk is read in full into
+	 * primitive arrays and its result set is closed straight away, so nothing needs
+	 * to be released if the iteration is abandoned, and other queries can run
+	 * while iterating.
+	 */
+	private final class ChunkedEdgeIterator implements Iterator<IGraphEdge> {
+		private final Direction direction;
+		private final int labelId;
+		private final String sqlChunk;
 
-		private EdgeResultSetIterator(ResultSet rs) {
-			this.rs = rs;
+		private Adjacency chunk = Adjacency.EMPTY;
+		private int next;
+		private long lastId = Long.MIN_VALUE;
+		private boolean exhausted;
+
+		private ChunkedEdgeIterator(Direction direction, int labelId) {
+			this.direction = direction;
+			this.labelId = labelId;
+			if (direction == Direction.OUTGOING) {
+				sqlChunk = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_OUTGOING_CHUNK : SQL_OUTGOING_WITH_TYPE_CHUNK;
+			} else {
+				sqlChunk = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_INCOMING_CHUNK : SQL_INCOMING_WITH_TYPE_CHUNK;
+			}
 		}
 
 		@Override
 		public boolean hasNext() {
-			if (hasNext == null) {
-				try {
-					hasNext = rs.next();
-				} catch (SQLException e) {
-					LOGGER.error("Failed at fetching the next result", e);
-					hasNext = false;
-				}
+			if (next == chunk.size() && !exhausted) {
+				fetchChunk();
 			}
-			return hasNext;
+			return next < chunk.size();
 		}
 
 		@Override
 		public IGraphEdge next() {
-			try {
-				if (hasNext()) {
-					final DuckEdge next = new DuckEdge(db, rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getLong(4));
-					hasNext = null;
-					return next;
-				} else {
-					throw new NoSuchElementException();
-				}
-			} catch (SQLException e) {
-				LOGGER.error("Failed at fetching the next result", e);
+			if (!hasNext()) {
 				throw new NoSuchElementException();
 			}
-		}
-	}
-
-	private final class EdgeResultSetIterable implements Iterable<IGraphEdge> {
-		private final String type;
-		private final PreparedStatement stmt;
-
-		private EdgeResultSetIterable(String type, PreparedStatement stmt) {
-			this.type = type;
-			this.stmt = stmt;
+			return chunk.getEdge(db, id, direction, next++);
 		}
 
-		@Override
-		public Iterator<IGraphEdge> iterator() {
+		private void fetchChunk() {
+			next = 0;
+			chunk = Adjacency.EMPTY;
 			try {
-				stmt.setLong(1, id);
-				if (type != null) {
-					stmt.setString(2, type);
+				final PreparedStatement stmt = db.prepareCachedReadSQL(sqlChunk);
+				int iParam = 1;
+				stmt.setLong(iParam++, id);
+				if (labelId != DuckAdjacencyCache.ANY_LABEL) {
+					stmt.setInt(iParam++, labelId);
 				}
-				final ResultSet rs = stmt.executeQuery();
-				return new EdgeResultSetIterator(rs);
+				stmt.setLong(iParam, lastId);
+
+				final AdjacencyBuilder builder = new AdjacencyBuilder();
+				try (ResultSet rs = stmt.executeQuery()) {
+					while (rs.next()) {
+						builder.add(rs.getLong(1), rs.getInt(2), rs.getLong(direction == Direction.OUTGOING ? 4 : 3));
+					}
+				}
+				chunk = builder.build();
 			} catch (SQLException e) {
-				LOGGER.error("Failed to retrieve outgoing edges from node " + id, e);
+				LOGGER.error("Failed to retrieve the edges of node " + id, e);
 			}
 
-			return Collections.emptyIterator();
+			if (chunk.size() < EDGE_FETCH_SIZE) {
+				exhausted = true;
+			} else {
+				lastId = chunk.getEdgeId(chunk.size() - 1);
+			}
 		}
 	}
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(DuckNode.class);
 
+	private static final String SQL_OUTGOING = String.format(
+		"SELECT id, label_id, from_node_id, to_node_id FROM %s WHERE from_node_id = ?;",
+		DuckDatabase.TABLE_EDGES);
+	private static final String SQL_OUTGOING_WITH_TYPE = String.format(
+		"SELECT id, label_id, from_node_id, to_node_id FROM %s WHERE from_node_id = ? AND label_id = ?;",
+		DuckDatabase.TABLE_EDGES);
+	private static final String SQL_INCOMING = String.format(
+		"SELECT id, label_id, from_node_id, to_node_id FROM %s WHERE to_node_id = ?;",
+		DuckDatabase.TABLE_EDGES);
+	private static final String SQL_INCOMING_WITH_TYPE = String.format(
+		"SELECT id, label_id, from_node_id, to_node_id FROM %s WHERE to_node_id = ? AND label_id = ?;",
+		DuckDatabase.TABLE_EDGES);
+
+	private static final String SQL_OUTGOING_DEGREE = sqlDegree(SQL_OUTGOING);
+	private static final String SQL_OUTGOING_WITH_TYPE_DEGREE = sqlDegree(SQL_OUTGOING_WITH_TYPE);
+	private static final String SQL_INCOMING_DEGREE = sqlDegree(SQL_INCOMING);
+	private static final String SQL_INCOMING_WITH_TYPE_DEGREE = sqlDegree(SQL_INCOMING_WITH_TYPE);
+
+	private static String sqlDegree(String sql) {
+		return "SELECT COUNT(*)" + sql.substring(sql.indexOf(" FROM "));
+	}
+
+	private static final int EDGE_FETCH_SIZE = 1_024;
+	private static final String SQL_OUTGOING_CHUNK = sqlChunk(SQL_OUTGOING);
+	private static final String SQL_OUTGOING_WITH_TYPE_CHUNK = sqlChunk(SQL_OUTGOING_WITH_TYPE);
+	private static final String SQL_INCOMING_CHUNK = sqlChunk(SQL_INCOMING);
+	private static final String SQL_INCOMING_WITH_TYPE_CHUNK = sqlChunk(SQL_INCOMING_WITH_TYPE);
+
+	private static String sqlChunk(String sql) {
+		return String.format("%s AND id > ? ORDER BY id LIMIT %d;",
+			sql.substring(0, sql.length() - 1), EDGE_FETCH_SIZE);
+	}
+
+	private static final String SQL_DELETE_NODE = String.format(
+		"DELETE FROM %s WHERE id = ?;",
+		DuckDatabase.TABLE_NODES);
+	private static final String SQL_INCIDENT_EDGES = String.format(
+		"SELECT id, label_id, from_node_id, to_node_id FROM %1$s WHERE from_node_id = $1"
+		+ " UNION SELECT id, label_id, from_node_id, to_node_id FROM %1$s WHERE to_node_id = $1;",
+		DuckDatabase.TABLE_EDGES);
+
+	/**
+	 * Nodes with more incident edges than this are deleted through
+	 * {@link DuckDatabase#deleteNodes(java.util.Collection)}, as its set-based statements scan
+	 * the tables and only pay off once they replace enough indexed single-row deletes.
+	 */
+	static final int MAX_EDGES_FOR_SINGLE_DELETE = 32;
+
 	public DuckNode(DuckDatabase db, long nodeId) {
 		super(db, nodeId);
 	}
@@ -110,36 +173,163 @@ public class DuckNode extends AbstractDuckElement implements IGraphNode {
 
 	@Override
 	public Iterable<IGraphEdge> getOutgoingWithType(String type) {
-		final String sqlOutgoing = String.format(
-			"SELECT id, label, from_node_id, to_node_id FROM %s WHERE from_node_id = ? %s;",
-			DuckDatabase.TABLE_EDGES,
-			type == null ? "" : "AND label = ?"
-		);
-		return getEdgeQueryIterable(type, sqlOutgoing);
+		return () -> getEdgeIterator(Direction.OUTGOING, type);
 	}
 
 	@Override
 	public Iterable<IGraphEdge> getIncomingWithType(String type) {
-		final String sqlIncoming = String.format(
-			"SELECT id, label, from_node_id, to_node_id FROM %s WHERE to_node_id = ? %s;",
-			DuckDatabase.TABLE_EDGES,
-			type == null ? "" : "AND label = ?"
-		);
+		return () -> getEdgeIterator(Direction.INCOMING, type);
+	}
+
+	/**
+	 * Returns an iterator over the edges from the adjacency cache if it is enabled,
+	 * or over the edges read in chunks from the database otherwise. Threads with a
+	 * read connection always read from the database, as the cache may hold
+	 * uncommitted edges.
+	 */
+	private Iterator<IGraphEdge> getEdgeIterator(Direction direction, String type) {
+		// Types are looked up when iterating, as the iterable may be created before the type exists
+		final int labelId = type == null ? DuckAdjacencyCache.ANY_LABEL : db.getLabelDictionary().find(type);
+		if (labelId == DuckDictionary.UNKNOWN) {
+			return Collections.emptyIterator();
+		}
+
+		final DuckAdjacencyCache cache = db.getAdjacencyCache();
+		if (cache == null || db.usesReadConnection()) {
+			return new ChunkedEdgeIterator(direction, labelId);
+		}
+
+		Adjacency adj = cache.get(id, direction, labelId);
+		if (adj == null) {
+			try {
+				adj = loadAdjacency(direction, labelId);
+				cache.put(id, direction, labelId, adj);
+			} catch (SQLException e) {
+				LOGGER.error("Failed to retrieve the edges of node " + id, e);
+				return Collections.emptyIterator();
+			}
+		}
+
+		final Adjacency edges = adj;
+		return new Iterator<IGraphEdge>() {
+			private int i = 0;
 
-		return getEdgeQueryIterable(type, sqlIncoming);
+			@Override
+			public boolean hasNext() {
+				return i < edges.size();
+			}
+
+			@Override
+			public IGraphEdge next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				return edges.getEdge(db, id, direction, i++);
+			}
+		};
+	}
+
+	private Adjacency loadAdjacency(Direction direction, int labelId) throws SQLException {
+		final String sql;
+		if (direction == Direction.OUTGOING) {
+			sql = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_OUTGOING : SQL_OUTGOING_WITH_TYPE;
+		} else {
+			sql = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_INCOMING : SQL_INCOMING_WITH_TYPE;
+		}
+
+		// The results are fully consumed right away, so the statement can be cached
+		final PreparedStatement stmt = db.prepareCachedSQL(sql);
+		stmt.setLong(1, id);
+		if (labelId != DuckAdjacencyCache.ANY_LABEL) {
+			stmt.setInt(2, labelId);
+		}
+
+		final AdjacencyBuilder builder = new AdjacencyBuilder();
+		try (ResultSet rs = stmt.executeQuery()) {
+			while (rs.next()) {
+				builder.add(rs.getLong(1), rs.getInt(2), rs.getLong(direction == Direction.OUTGOING ? 4 : 3));
+			}
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Returns the number of outgoing edges of the node, without reading them.
+	 */
+	public int getOutDegree() {
+		return getDegree(Direction.OUTGOING, null);
+	}
+
+	/**
+	 * Returns the number of outgoing edges of the node with the given type.
+	 */
+	public int getOutDegree(String type) {
+		return getDegree(Direction.OUTGOING, type);
+	}
+
+	/**
+	 * Returns the number of incoming edges of the node, without reading them.
+	 */
+	public int getInDegree() {
+		return getDegree(Direction.INCOMING, null);
+	}
+
+	/**
+	 * Returns the number of incoming edges of the node with the given type.
+	 */
+	public int getInDegree(String type) {
+		return getDegree(Direction.INCOMING, type);
 	}
 
-	private Iterable<IGraphEdge> getEdgeQueryIterable(String type, final String sqlOutgoing) {
+	/**
+	 * Returns the number of edges of the node in the given direction (or both, if
+	 * <code>null</code>) with the given type (or any type, if <code>null</code>).
+	 * The edges are counted by the database, unless the adjacency or degree caches
+	 * already have their number.
+	 */
+	public int getDegree(Direction direction, String type) {
+		if (direction == null) {
+			return getDegree(Direction.OUTGOING, type) + getDegree(Direction.INCOMING, type);
+		}
+
+		final int labelId = type == null ? DuckAdjacencyCache.ANY_LABEL : db.getLabelDictionary().find(type);
+		if (labelId == DuckDictionary.UNKNOWN) {
+			return 0;
+		}
+
+		final Integer cached = db.getCachedDegree(id, direction, labelId);
+		if (cached != null) {
+			return cached;
+		}
+
+		final String sql;
+		if (direction == Direction.OUTGOING) {
+			sql = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_OUTGOING_DEGREE : SQL_OUTGOING_WITH_TYPE_DEGREE;
+		} else {
+			sql = labelId == DuckAdjacencyCache.ANY_LABEL ? SQL_INCOMING_DEGREE : SQL_INCOMING_WITH_TYPE_DEGREE;
+		}
+
 		try {
-			final PreparedStatement stmt = db.prepareSQL(sqlOutgoing);
-			return new EdgeResultSetIterable(type, stmt);
+			final PreparedStatement stmt = db.prepareCachedReadSQL(sql);
+			stmt.setLong(1, id);
+			if (labelId != DuckAdjacencyCache.ANY_LABEL) {
+				stmt.setInt(2, labelId);
+			}
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				rs.next();
+				final int degree = rs.getInt(1);
+				db.cacheDegree(id, direction, labelId, degree);
+				return degree;
+			}
 		} catch (SQLException e) {
-			LOGGER.error("Failed to parse query to retrieve outgoing edges from node " + id, e);
+			LOGGER.error("Failed to count the edges of node " + id, e);
+			return 0;
 		}
-
-		return null;
 	}
-	
+
 	@Override
 	public Iterable<IGraphEdge> getIncoming() {
 		return getIncomingWithType(null);
@@ -153,36 +343,31 @@ public class DuckNode extends AbstractDuckElement implements IGraphNode {
 	@Override
 	public void delete() {
 		try {
-			deleteProperties();
-
-			final String sqlDeleteNode = String.format(
-				"DELETE FROM %s WHERE id = ?;",
-				DuckDatabase.TABLE_NODES
-			);
-			try (PreparedStatement stmt = db.prepareSQL(sqlDeleteNode)) {
-				stmt.setLong(1, id);
-				stmt.execute();
+			// Incident edges are found through the endpoint indices, and then deleted by ID
+			final List<DuckEdge> edges = new ArrayList<>();
+			final PreparedStatement stmtEdges = db.prepareCachedSQL(SQL_INCIDENT_EDGES);
+			stmtEdges.setLong(1, id);
+			try (ResultSet rs = stmtEdges.executeQuery()) {
+				final DuckDictionary labels = db.getLabelDictionary();
+				while (rs.next()) {
+					edges.add(new DuckEdge(db, rs.getLong(1), labels.get(rs.getInt(2)), rs.getLong(3), rs.getLong(4)));
+				}
 			}
 
-			final String sqlDeleteEdgeProperties = String.format(
-				"DELETE FROM %s WHERE elem_id IN (SELECT id FROM %s WHERE from_node_id = ? OR to_node_id = ?);",
-				DuckDatabase.TABLE_PROPERTIES, DuckDatabase.TABLE_EDGES
-			);
-			try (PreparedStatement stmt = db.prepareSQL(sqlDeleteEdgeProperties)) {
-				stmt.setLong(1, id);
-				stmt.setLong(2, id);
-				stmt.execute();
+			if (edges.size() > MAX_EDGES_FOR_SINGLE_DELETE) {
+				db.deleteNodes(Collections.singleton(id));
+				return;
 			}
 
-			final String sqlDeleteEdges = String.format(
-				"DELETE FROM %s WHERE from_node_id = ? OR to_node_id = ?;",
-				DuckDatabase.TABLE_EDGES
-			);
-			try (PreparedStatement stmt = db.prepareSQL(sqlDeleteEdges)) {
-				stmt.setLong(1, id);
-				stmt.setLong(2, id);
-				stmt.execute();
+			for (DuckEdge edge : edges) {
+				edge.deleteEdge();
 			}
+			deleteProperties();
+
+			final PreparedStatement stmtNode = db.prepareCachedSQL(SQL_DELETE_NODE);
+			stmtNode.setLong(1, id);
+			stmtNode.execute();
+			db.invalidateNodeCounts();
 		} catch (SQLException e) {
 			LOGGER.error("Failed to delete node " + id, e);
 		}
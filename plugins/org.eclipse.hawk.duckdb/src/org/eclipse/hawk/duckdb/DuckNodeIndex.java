@@ -0,0 +1,365 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.duckdb.DuckDBAppender;
+import org.duckdb.DuckDBConnection;
+import org.eclipse.hawk.core.graph.IGraphIterable;
+import org.eclipse.hawk.core.graph.IGraphNode;
+import org.eclipse.hawk.core.graph.IGraphNodeIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Node index stored in its own table, following the layout that performed best in
+ * <code>IndexBenchmarks</code>. Each row is a <code>(key, value, node)</code> entry:
+ * values are kept in their string form for exact and glob matching, and also as a
+ * double if they are numbers, for range queries.
+ *
+ * Additions and removals are buffered, and applied in bulk when the index is
+ * flushed. This happens before the index is queried, before the transaction is
+ * committed, and when too many changes have been buffered.
+ */
+public class DuckNodeIndex implements IGraphNodeIndex {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DuckNodeIndex.class);
+
+	public static final int DEFAULT_FLUSH_THRESHOLD = 10_000;
+
+	static final String TABLE_PREFIX = "node_index_";
+
+	private static final String SCHEMA = "main";
+	private static final String TABLE_REMOVALS = "node_index_removals";
+	private static final String ANY = "*";
+	private static final char LIKE_ESCAPE = '\\';
+
+	private static final String SQL_CREATE_REMOVALS = String.format(
+		"CREATE TEMP TABLE IF NOT EXISTS %s (node_id BIGINT NOT NULL, key VARCHAR, value VARCHAR, value_number DOUBLE);",
+		TABLE_REMOVALS);
+	private static final String SQL_CLEAR_REMOVALS = String.format(
+		"DELETE FROM %s;", TABLE_REMOVALS);
+
+	private static final class Change {
+		private final boolean addition;
+		private final long nodeId;
+		private final String key;
+		private final Object value;
+
+		private Change(boolean addition, long nodeId, String key, Object value) {
+			this.addition = addition;
+			this.nodeId = nodeId;
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	private final DuckDatabase db;
+	private final String name;
+	private final String table;
+	private final String sqlApplyRemovals;
+
+	private final List<Change> pending = new ArrayList<>();
+
+	public DuckNodeIndex(DuckDatabase db, String name, long id) {
+		this.db = db;
+		this.name = name;
+		this.table = TABLE_PREFIX + id;
+		// As in queries, numbers are matched by value and other values by their strings
+		this.sqlApplyRemovals = String.format(
+			"DELETE FROM %1$s WHERE EXISTS (SELECT 1 FROM %2$s r WHERE r.node_id = %1$s.node_id"
+			+ " AND (r.key IS NULL OR r.key = %1$s.key)"
+			+ " AND (r.value IS NULL"
+			+ " OR r.value_number = %1$s.value_number"
+			+ " OR (r.value_number IS NULL AND r.value = %1$s.value_string)));",
+			table, TABLE_REMOVALS);
+	}
+
+	static String createTableSQL(long id) {
+		return String.format(
+			"CREATE TABLE %s%d ("
+			+ "key VARCHAR NOT NULL,"
+			+ "value_string VARCHAR NOT NULL,"
+			+ "value_number DOUBLE,"
+			+ "node_id BIGINT NOT NULL"
+			+ ");", TABLE_PREFIX, id);
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public IGraphIterable<? extends IGraphNode> query(String key, Object valueExpr) {
+		flushBeforeQuery();
+
+		final List<Object> params = new ArrayList<>();
+		final StringBuilder sbWhere = new StringBuilder("WHERE TRUE");
+		if (key != null && !ANY.equals(key)) {
+			addGlobCondition(sbWhere, params, "key", key);
+		}
+		if (valueExpr instanceof Number) {
+			sbWhere.append(" AND value_number = ?");
+			params.add(((Number) valueExpr).doubleValue());
+		} else if (valueExpr != null && !ANY.equals(valueExpr)) {
+			addGlobCondition(sbWhere, params, "value_string", valueExpr.toString());
+		}
+
+		return results(sbWhere, params);
+	}
+
+	@Override
+	public IGraphIterable<? extends IGraphNode> query(String key, Number from, Number to, boolean fromInclusive, boolean toInclusive) {
+		flushBeforeQuery();
+
+		final List<Object> params = new ArrayList<>();
+		final StringBuilder sbWhere = new StringBuilder("WHERE key = ?");
+		params.add(key);
+
+		// Non-numeric values have a NULL value_number, so they are always left out
+		sbWhere.append(" AND value_number IS NOT NULL");
+		if (from != null) {
+			sbWhere.append(fromInclusive ? " AND value_number >= ?" : " AND value_number > ?");
+			params.add(from.doubleValue());
+		}
+		if (to != null) {
+			sbWhere.append(toInclusive ? " AND value_number <= ?" : " AND value_number < ?");
+			params.add(to.doubleValue());
+		}
+
+		return results(sbWhere, params);
+	}
+
+	@Override
+	public IGraphIterable<? extends IGraphNode> get(String key, Object valueExpr) {
+		flushBeforeQuery();
+
+		final List<Object> params = new ArrayList<>();
+		final StringBuilder sbWhere = new StringBuilder("WHERE key = ?");
+		params.add(key);
+		if (valueExpr instanceof Number) {
+			sbWhere.append(" AND value_number = ?");
+			params.add(((Number) valueExpr).doubleValue());
+		} else if (valueExpr != null) {
+			sbWhere.append(" AND value_string = ?");
+			params.add(valueExpr.toString());
+		}
+
+		return results(sbWhere, params);
+	}
+
+	@Override
+	public void add(IGraphNode n, Map<String, Object> derived) {
+		for (Entry<String, Object> entry : derived.entrySet()) {
+			add(n, entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public void add(IGraphNode n, String key, Object value) {
+		if (value == null) {
+			// Hawk's node index API silently ignores null values
+			return;
+		}
+		addChange(new Change(true, (long) n.getId(), key, value));
+	}
+
+	@Override
+	public void remove(IGraphNode n) {
+		addChange(new Change(false, (long) n.getId(), null, null));
+	}
+
+	/**
+	 * Removes the entries for the node with the given key and value. A null key
+	 * or value will match any key or value. As in {@link #get(String, Object)}, a
+	 * number matches the numeric entries with the same value, regardless of their
+	 * type.
+	 */
+	@Override
+	public void remove(IGraphNode n, String key, Object value) {
+		addChange(new Change(false, (long) n.getId(), key, value));
+	}
+
+	@Override
+	public void flush() {
+		try {
+			flushChanges();
+		} catch (SQLException e) {
+			LOGGER.error("Could not apply the changes to node index " + name, e);
+		}
+	}
+
+	/**
+	 * Applies the pending changes to the index table. If this fails, the changes
+	 * are kept until they are flushed again or rolled back.
+	 */
+	public synchronized void flushChanges() throws SQLException {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		synchronized (db.getConnectionLock()) {
+			// Apply runs of consecutive additions or removals together, preserving their order
+			int runStart = 0;
+			for (int i = 1; i <= pending.size(); i++) {
+				if (i == pending.size() || pending.get(i).addition != pending.get(runStart).addition) {
+					final List<Change> run = pending.subList(runStart, i);
+					if (pending.get(runStart).addition) {
+						applyAdditions(run);
+					} else {
+						applyRemovals(run);
+					}
+					runStart = i;
+				}
+			}
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Applies the pending changes before a query, unless the query will run on a
+	 * read connection, which cannot see them until they are committed anyway.
+	 */
+	private void flushBeforeQuery() {
+		if (!db.usesReadConnection()) {
+			flush();
+		}
+	}
+
+	/**
+	 * Drops all changes which have not been flushed yet.
+	 */
+	public synchronized void discardChanges() {
+		pending.clear();
+	}
+
+	@Override
+	public void delete() {
+		discardChanges();
+		db.deleteNodeIndex(this);
+	}
+
+	String getTable() {
+		return table;
+	}
+
+	@Override
+	public String toString() {
+		return "DuckNodeIndex [name=" + name + ", table=" + table + "]";
+	}
+
+	private synchronized void addChange(Change change) {
+		db.markWriter();
+		pending.add(change);
+		if (pending.size() >= DEFAULT_FLUSH_THRESHOLD) {
+			flush();
+		}
+	}
+
+	private void applyAdditions(List<Change> additions) throws SQLException {
+		final DuckDBConnection duckDB = (DuckDBConnection) db.getGraph();
+		try (DuckDBAppender appender = duckDB.createAppender(SCHEMA, table)) {
+			for (Change c : additions) {
+				appender.beginRow();
+				appender.append(c.key);
+				appender.append(c.value.toString());
+				if (c.value instanceof Number) {
+					appender.append(((Number) c.value).doubleValue());
+				} else {
+					appender.append((String) null);
+				}
+				appender.append(c.nodeId);
+				appender.endRow();
+			}
+		}
+	}
+
+	private void applyRemovals(List<Change> removals) throws SQLException {
+		db.prepareCachedSQL(SQL_CREATE_REMOVALS).execute();
+
+		final DuckDBConnection duckDB = (DuckDBConnection) db.getGraph();
+		try {
+			// The appender finds temporary tables through the default schema
+			try (DuckDBAppender appender = duckDB.createAppender(SCHEMA, TABLE_REMOVALS)) {
+				for (Change c : removals) {
+					appender.beginRow();
+					appender.append(c.nodeId);
+					appender.append(c.key);
+					appender.append(c.value == null ? null : c.value.toString());
+					if (c.value instanceof Number) {
+						appender.append(((Number) c.value).doubleValue());
+					} else {
+						appender.append((String) null);
+					}
+					appender.endRow();
+				}
+			}
+
+			// Each index has its own SQL, so it is not worth caching
+			try (PreparedStatement stmt = db.prepareSQL(sqlApplyRemovals)) {
+				stmt.execute();
+			}
+		} finally {
+			clearRemovals();
+		}
+	}
+
+	/**
+	 * Empties the staging table for removals, so rows left by a failed flush are
+	 * not applied again by the next one.
+	 */
+	private void clearRemovals() {
+		try {
+			db.prepareCachedSQL(SQL_CLEAR_REMOVALS).execute();
+		} catch (SQLException e) {
+			// The transaction may have to be rolled back first
+			LOGGER.warn("Could not clear the node index removals table", e);
+		}
+	}
+
+	private IGraphIterable<DuckNode> results(StringBuilder sbWhere, List<Object> params) {
+		return new DuckNodeIterable(db, "node_id",
+			String.format("FROM %s %s", table, sbWhere), true,
+			params.toArray());
+	}
+
+	/**
+	 * Adds a condition on a string column, where any <code>*</code> in the value
+	 * is treated as a wildcard.
+	 */
+	private static void addGlobCondition(StringBuilder sbWhere, List<Object> params, String column, String value) {
+		if (value.contains(ANY)) {
+			sbWhere.append(String.format(" AND %s LIKE ? ESCAPE '%c'", column, LIKE_ESCAPE));
+			params.add(globToLike(value));
+		} else {
+			sbWhere.append(String.format(" AND %s = ?", column));
+			params.add(value);
+		}
+	}
+
+	private static String globToLike(String glob) {
+		final StringBuilder sb = new StringBuilder(glob.length() + 8);
+		for (int i = 0; i < glob.length(); i++) {
+			final char c = glob.charAt(i);
+			switch (c) {
+			case '*':
+				sb.append('%');
+				break;
+			case '%':
+			case '_':
+			case LIKE_ESCAPE:
+				sb.append(LIKE_ESCAPE).append(c);
+				break;
+			default:
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,159 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.eclipse.hawk.core.graph.IGraphIterable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterable over the nodes whose IDs are returned by a query. The query is given as
+ * the ID column plus its <code>FROM ... WHERE ...</code> part, from which we derive
+ * the queries for iterating, counting, and fetching the first node.
+ *
+ * Iteration is streamed: node IDs are fetched in chunks of a fixed size, so large
+ * results are never fully held in memory. Chunks are read through windows of
+ * IDs (see {@link DuckChunkedScan}) rather than by sorting all the remaining
+ * rows each time, so iterating over all the results takes linear time. The
+ * chunks can also be read directly as arrays of IDs through {@link #batches()}.
+ */
+public class DuckNodeIterable implements IGraphIterable<DuckNode> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DuckNodeIterable.class);
+
+	public static final int DEFAULT_FETCH_SIZE = 4_096;
+
+	/**
+	 * Iterates over the node IDs in ascending order, fetching them in chunks
+	 * through a {@link DuckChunkedScan}.
+	 */
+	private final class ChunkedNodeIterator implements Iterator<DuckNode> {
+		private final Iterator<long[]> chunks = new IdChunkIterator();
+		private long[] ids = new long[0];
+		private int next;
+
+		@Override
+		public boolean hasNext() {
+			if (next == ids.length && chunks.hasNext()) {
+				ids = chunks.next();
+				next = 0;
+			}
+			return next < ids.length;
+		}
+
+		@Override
+		public DuckNode next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return new DuckNode(db, ids[next++]);
+		}
+	}
+
+	private final class IdChunkIterator extends DuckChunkedScan<long[]> {
+		private IdChunkIterator() {
+			super(db, idColumn, null, fromWhere, distinct, fetchSize, params);
+		}
+
+		@Override
+		protected long[] finishChunk(long[] keys, int size) {
+			return keys;
+		}
+	}
+
+	private final DuckDatabase db;
+	private final String idColumn;
+	private final String fromWhere;
+	private final boolean distinct;
+	private final String sqlCount;
+	private final String sqlFirst;
+	private final Object[] params;
+	private final int fetchSize;
+
+	/**
+	 * Creates a new iterable.
+	 *
+	 * @param db Database to be queried.
+	 * @param idColumn Column with the node IDs.
+	 * @param fromWhere <code>FROM ... WHERE ...</code> part of the query, without a trailing semicolon. It must have a <code>WHERE</code> clause.
+	 * @param distinct If <code>true</code>, duplicate node IDs will be removed.
+	 * @param params Values for the parameters in <code>fromWhere</code>: only {@link Long}, {@link Double} and {@link String} are supported.
+	 */
+	public DuckNodeIterable(DuckDatabase db, String idColumn, String fromWhere, boolean distinct, Object... params) {
+		this(db, idColumn, fromWhere, distinct, DEFAULT_FETCH_SIZE, params);
+	}
+
+	/**
+	 * Creates a new iterable, which fetches up to <code>fetchSize</code> node IDs at a time.
+	 *
+	 * @see #DuckNodeIterable(DuckDatabase, String, String, boolean, Object...)
+	 */
+	public DuckNodeIterable(DuckDatabase db, String idColumn, String fromWhere, boolean distinct, int fetchSize, Object... params) {
+		this.db = db;
+		this.idColumn = idColumn;
+		this.fromWhere = fromWhere;
+		this.distinct = distinct;
+		this.params = params;
+		this.fetchSize = fetchSize;
+
+		final String distinctKeyword = distinct ? "DISTINCT " : "";
+		this.sqlCount = String.format("SELECT COUNT(%s%s) %s;", distinctKeyword, idColumn, fromWhere);
+		this.sqlFirst = String.format("SELECT %s %s LIMIT 1;", idColumn, fromWhere);
+	}
+
+	@Override
+	public Iterator<DuckNode> iterator() {
+		return new ChunkedNodeIterator();
+	}
+
+	/**
+	 * Returns the node IDs in ascending order, in batches of up to the fetch size.
+	 * This avoids creating a {@link DuckNode} for each ID when scanning many nodes.
+	 */
+	public Iterable<long[]> batches() {
+		return IdChunkIterator::new;
+	}
+
+	@Override
+	public int size() {
+		try {
+			final PreparedStatement stmt = db.prepareCachedReadSQL(sqlCount);
+			setParameters(stmt);
+			try (ResultSet rs = stmt.executeQuery()) {
+				if (rs.next()) {
+					return rs.getInt(1);
+				}
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not run query " + sqlCount, e);
+		}
+
+		return 0;
+	}
+
+	@Override
+	public DuckNode getSingle() {
+		try {
+			final PreparedStatement stmt = db.prepareCachedReadSQL(sqlFirst);
+			setParameters(stmt);
+			try (ResultSet rs = stmt.executeQuery()) {
+				if (rs.next()) {
+					return new DuckNode(db, rs.getLong(1));
+				}
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not run query " + sqlFirst, e);
+		}
+
+		return null;
+	}
+
+	private void setParameters(PreparedStatement stmt) throws SQLException {
+		DuckChunkedScan.setParameters(stmt, params);
+	}
+
+}
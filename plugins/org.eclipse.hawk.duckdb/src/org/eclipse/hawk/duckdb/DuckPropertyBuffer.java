@@ -0,0 +1,343 @@
+package org.eclipse.hawk.duckdb;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.duckdb.DuckDBAppender;
+import org.duckdb.DuckDBConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind buffer for property changes within a transaction. Repeated changes
+ * to the same property of an element are collapsed into the last one.
+ *
+ * The buffer is flushed before the transaction is committed, and when too many
+ * changes have been buffered. Flushing stages the changes into temporary tables
+ * through appenders, and then applies them with set-based statements: removed
+ * properties are deleted, scalar and BLOB values are written with one
+ * <code>INSERT ... ON CONFLICT DO UPDATE</code>, and list values are replaced
+ * in the property lists table.
+ */
+public class DuckPropertyBuffer implements DuckTransaction.Listener {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DuckPropertyBuffer.class);
+
+	public static final int DEFAULT_FLUSH_THRESHOLD = 50_000;
+
+	/**
+	 * Returned by {@link #get(long, String)} if there is no buffered change for the property.
+	 */
+	public static final Object NOT_BUFFERED = new Object();
+
+	private static final Object REMOVED = new Object();
+
+	private static final String SCHEMA = "main";
+	private static final String TABLE_WRITES = "property_writes";
+	private static final String TABLE_REMOVALS = "property_removals";
+	private static final String TABLE_LIST_ITEMS = "property_list_items";
+	private static final PropertyValueType[] SCALAR_TYPES = PropertyValueType.scalarValues();
+	private static final PropertyValueType[] LIST_TYPES = PropertyValueType.listValues();
+
+	private static final String SQL_CREATE_WRITES = String.format(
+		"CREATE TEMP TABLE IF NOT EXISTS %s (elem_id BIGINT NOT NULL, name_id INTEGER NOT NULL, %s);",
+		TABLE_WRITES, PropertyValueType.sqlTableColumns(SCALAR_TYPES));
+	private static final String SQL_CREATE_REMOVALS = String.format(
+		"CREATE TEMP TABLE IF NOT EXISTS %s (elem_id BIGINT NOT NULL, name_id INTEGER NOT NULL);",
+		TABLE_REMOVALS);
+	private static final String SQL_CREATE_LIST_ITEMS;
+
+	private static final String SQL_APPLY_WRITES;
+	private static final String SQL_APPLY_LIST_WRITES;
+
+	private static final String SQL_CLEAR_WRITES = String.format("DELETE FROM %s;", TABLE_WRITES);
+	private static final String SQL_CLEAR_REMOVALS = String.format("DELETE FROM %s;", TABLE_REMOVALS);
+	private static final String SQL_CLEAR_LIST_ITEMS = String.format("DELETE FROM %s;", TABLE_LIST_ITEMS);
+
+	static {
+		// The other value columns are set to NULL, in case the property changed its type
+		final StringBuilder sbSet = new StringBuilder();
+		for (PropertyValueType vt : SCALAR_TYPES) {
+			if (sbSet.length() > 0) {
+				sbSet.append(", ");
+			}
+			sbSet.append(String.format("%s = excluded.%s", vt.getColumnName(), vt.getColumnName()));
+		}
+		sbSet.append(String.format(", %s = excluded.%s", PropertyValueType.TAG_COLUMN, PropertyValueType.TAG_COLUMN));
+
+		final String scalarColumns = PropertyValueType.sqlColumnNames(SCALAR_TYPES);
+		SQL_APPLY_WRITES = String.format(
+			"INSERT INTO %s (elem_id, name_id, %s) SELECT elem_id, name_id, %s FROM %s"
+			+ " ON CONFLICT (elem_id, name_id) DO UPDATE SET %s;",
+			DuckDatabase.TABLE_PROPERTIES, scalarColumns, scalarColumns, TABLE_WRITES, sbSet);
+
+		/*
+		 * List values are staged as a header row with index -1 (so empty lists are
+		 * kept), followed by one row per element, and then aggregated back into lists.
+		 */
+		final StringBuilder sbItemColumns = new StringBuilder();
+		final StringBuilder sbListValues = new StringBuilder();
+		for (PropertyValueType vt : LIST_TYPES) {
+			final PropertyValueType et = vt.getElementType();
+			sbItemColumns.append(String.format(", %s %s", et.getColumnName(), et.getColumnType()));
+			sbListValues.append(String.format(
+				", CASE WHEN min(%s) = %d THEN COALESCE(list(%s ORDER BY idx) FILTER (WHERE idx >= 0), []) END",
+				PropertyValueType.TAG_COLUMN, vt.getTag(), et.getColumnName()));
+		}
+
+		SQL_CREATE_LIST_ITEMS = String.format(
+			"CREATE TEMP TABLE IF NOT EXISTS %s (elem_id BIGINT NOT NULL, name_id INTEGER NOT NULL,"
+			+ " %s %s NOT NULL, idx INTEGER NOT NULL%s);",
+			TABLE_LIST_ITEMS, PropertyValueType.TAG_COLUMN, PropertyValueType.TAG_COLUMN_TYPE, sbItemColumns);
+		SQL_APPLY_LIST_WRITES = String.format(
+			"INSERT INTO %s (elem_id, name_id, %s) SELECT elem_id, name_id%s, min(%s) FROM %s GROUP BY elem_id, name_id;",
+			DuckDatabase.TABLE_PROPERTY_LISTS, PropertyValueType.sqlColumnNames(LIST_TYPES),
+			sbListValues, PropertyValueType.TAG_COLUMN, TABLE_LIST_ITEMS);
+	}
+
+	/**
+	 * Returns a statement which deletes the rows in the target table with the same
+	 * element and property name as any row in the staging table.
+	 */
+	private static String deleteMatching(String target, String staging) {
+		return String.format(
+			"DELETE FROM %s WHERE EXISTS (SELECT 1 FROM %s s"
+			+ " WHERE s.elem_id = %s.elem_id AND s.name_id = %s.name_id);",
+			target, staging, target, target);
+	}
+
+	private static final String SQL_APPLY_REMOVALS = deleteMatching(DuckDatabase.TABLE_PROPERTIES, TABLE_REMOVALS);
+	private static final String SQL_APPLY_LIST_REMOVALS = deleteMatching(DuckDatabase.TABLE_PROPERTY_LISTS, TABLE_REMOVALS);
+	private static final String SQL_REPLACE_LISTS_WITH_SCALARS = deleteMatching(DuckDatabase.TABLE_PROPERTY_LISTS, TABLE_WRITES);
+	private static final String SQL_REPLACE_SCALARS_WITH_LISTS = deleteMatching(DuckDatabase.TABLE_PROPERTIES, TABLE_LIST_ITEMS);
+	private static final String SQL_REPLACE_LISTS = deleteMatching(DuckDatabase.TABLE_PROPERTY_LISTS, TABLE_LIST_ITEMS);
+
+	private final DuckDatabase db;
+	private final Map<Long, Map<String, Object>> pending = new HashMap<>();
+	private int pendingCount;
+
+	public DuckPropertyBuffer(DuckDatabase db) {
+		this.db = db;
+	}
+
+	/**
+	 * Returns the buffered value of a property, <code>null</code> if its removal
+	 * has been buffered, or {@link #NOT_BUFFERED} if it has not been changed.
+	 */
+	public synchronized Object get(long elemId, String name) {
+		final Map<String, Object> props = pending.get(elemId);
+		if (props == null || !props.containsKey(name)) {
+			return NOT_BUFFERED;
+		}
+
+		final Object value = props.get(name);
+		return value == REMOVED ? null : value;
+	}
+
+	/**
+	 * Returns the buffered changes for an element, where removed properties have
+	 * <code>null</code> values. The map will be empty if there are no changes.
+	 */
+	public synchronized Map<String, Object> getChanges(long elemId) {
+		final Map<String, Object> props = pending.get(elemId);
+		if (props == null) {
+			return Collections.emptyMap();
+		}
+
+		final Map<String, Object> changes = new HashMap<>(props);
+		changes.replaceAll((k, v) -> v == REMOVED ? null : v);
+		return changes;
+	}
+
+	public void put(long elemId, String name, Object value) throws SQLException {
+		addChange(elemId, name, value);
+	}
+
+	public void remove(long elemId, String name) throws SQLException {
+		addChange(elemId, name, REMOVED);
+	}
+
+	/**
+	 * Drops the buffered changes for an element, e.g. because it is being deleted.
+	 */
+	public synchronized void discard(long elemId) {
+		final Map<String, Object> props = pending.remove(elemId);
+		if (props != null) {
+			pendingCount -= props.size();
+		}
+	}
+
+	public synchronized boolean isEmpty() {
+		return pendingCount == 0;
+	}
+
+	/**
+	 * Applies all the buffered changes to the database. If this fails, the changes
+	 * are kept in the buffer until they are flushed again or rolled back.
+	 */
+	public synchronized void flush() throws SQLException {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		boolean flushed = false;
+		try {
+			synchronized (db.getConnectionLock()) {
+				final DuckDBConnection duckDB = (DuckDBConnection) db.getGraph();
+				final DuckDictionary names = db.getPropertyNameDictionary();
+				db.prepareCachedSQL(SQL_CREATE_WRITES).execute();
+				db.prepareCachedSQL(SQL_CREATE_REMOVALS).execute();
+				db.prepareCachedSQL(SQL_CREATE_LIST_ITEMS).execute();
+
+				boolean anyWrites = false, anyListWrites = false, anyRemovals = false;
+				// The appenders find temporary tables through the default schema
+				try (DuckDBAppender writes = duckDB.createAppender(SCHEMA, TABLE_WRITES);
+					 DuckDBAppender listItems = duckDB.createAppender(SCHEMA, TABLE_LIST_ITEMS);
+					 DuckDBAppender removals = duckDB.createAppender(SCHEMA, TABLE_REMOVALS)) {
+					for (Entry<Long, Map<String, Object>> elemEntry : pending.entrySet()) {
+						final long elemId = elemEntry.getKey();
+						for (Entry<String, Object> propEntry : elemEntry.getValue().entrySet()) {
+							final Object value = propEntry.getValue();
+							if (value == REMOVED) {
+								// Properties with names not in the dictionary cannot have been stored
+								final int nameId = names.find(propEntry.getKey());
+								if (nameId != DuckDictionary.UNKNOWN) {
+									removals.beginRow();
+									removals.append(elemId);
+									removals.append(nameId);
+									removals.endRow();
+									anyRemovals = true;
+								}
+							} else {
+								final int nameId = names.getOrCreate(propEntry.getKey());
+								final PropertyValueType vt = PropertyValueType.from(value);
+								if (vt.isList()) {
+									appendListItems(listItems, elemId, nameId, vt, value);
+									anyListWrites = true;
+								} else {
+									writes.beginRow();
+									writes.append(elemId);
+									writes.append(nameId);
+									PropertyValueType.appendValueColumns(writes, vt, value);
+									writes.endRow();
+									anyWrites = true;
+								}
+							}
+						}
+					}
+				}
+
+				if (anyRemovals) {
+					db.prepareCachedSQL(SQL_APPLY_REMOVALS).execute();
+					db.prepareCachedSQL(SQL_APPLY_LIST_REMOVALS).execute();
+					db.prepareCachedSQL(SQL_CLEAR_REMOVALS).execute();
+				}
+				if (anyWrites) {
+					db.prepareCachedSQL(SQL_REPLACE_LISTS_WITH_SCALARS).execute();
+					db.prepareCachedSQL(SQL_APPLY_WRITES).execute();
+					db.prepareCachedSQL(SQL_CLEAR_WRITES).execute();
+				}
+				if (anyListWrites) {
+					/*
+					 * Deleting a key from the properties table and upserting it again in
+					 * a later flush of the same transaction would run into a limitation of
+					 * DuckDB indices: this only happens if a property goes from a scalar
+					 * to a list and back in a transaction that is flushed in between.
+					 */
+					db.prepareCachedSQL(SQL_REPLACE_SCALARS_WITH_LISTS).execute();
+					db.prepareCachedSQL(SQL_REPLACE_LISTS).execute();
+					db.prepareCachedSQL(SQL_APPLY_LIST_WRITES).execute();
+					db.prepareCachedSQL(SQL_CLEAR_LIST_ITEMS).execute();
+				}
+			}
+			flushed = true;
+		} catch (IOException e) {
+			throw new SQLException("Could not encode a buffered property value", e);
+		} finally {
+			// Cached properties may have been loaded before the changes were applied
+			final DuckPropertyCache propertyCache = db.getPropertyCache();
+			if (propertyCache != null) {
+				for (Long elemId : pending.keySet()) {
+					propertyCache.invalidate(elemId);
+				}
+			}
+
+			if (flushed) {
+				pending.clear();
+				pendingCount = 0;
+			} else {
+				clearStagingTables();
+			}
+		}
+	}
+
+	/**
+	 * Removes any rows left in the staging tables by a failed flush, so they are
+	 * not applied again by the next one.
+	 */
+	private void clearStagingTables() {
+		try {
+			db.prepareCachedSQL(SQL_CLEAR_WRITES).execute();
+			db.prepareCachedSQL(SQL_CLEAR_REMOVALS).execute();
+			db.prepareCachedSQL(SQL_CLEAR_LIST_ITEMS).execute();
+		} catch (SQLException e) {
+			// The tables may not exist, or the transaction may have to be rolled back first
+			LOGGER.warn("Could not clear the property staging tables", e);
+		}
+	}
+
+	@Override
+	public void beforeCommit() throws SQLException {
+		flush();
+	}
+
+	@Override
+	public synchronized void afterRollback() {
+		pending.clear();
+		pendingCount = 0;
+	}
+
+	private static void appendListItems(DuckDBAppender items, long elemId, int nameId, PropertyValueType listType, Object value) throws SQLException, IOException {
+		final PropertyValueType elementType = listType.getElementType();
+		final int length = Array.getLength(value);
+		for (int i = -1; i < length; i++) {
+			items.beginRow();
+			items.append(elemId);
+			items.append(nameId);
+			items.append(listType.getTag());
+			items.append(i);
+			for (PropertyValueType vt : LIST_TYPES) {
+				final Object element = i >= 0 && vt == listType ? Array.get(value, i) : null;
+				if (element == null) {
+					items.append((String) null);
+				} else {
+					elementType.appendValue(items, element);
+				}
+			}
+			items.endRow();
+		}
+	}
+
+	private void addChange(long elemId, String name, Object value) throws SQLException {
+		db.markWriter();
+
+		boolean flush;
+		synchronized (this) {
+			if (pending.computeIfAbsent(elemId, k -> new HashMap<>()).put(name, value) == null) {
+				pendingCount++;
+			}
+			flush = pendingCount >= DEFAULT_FLUSH_THRESHOLD;
+		}
+
+		if (flush) {
+			LOGGER.debug("Flushing {} buffered property changes", pendingCount);
+			flush();
+		}
+	}
+
+}
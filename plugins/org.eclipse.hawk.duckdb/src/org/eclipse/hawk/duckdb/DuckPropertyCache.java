@@ -0,0 +1,114 @@
+package org.eclipse.hawk.duckdb;
+
+import java.lang.reflect.Array;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Cache of all the properties of recently accessed elements, keyed by element ID.
+ * The cache is bounded by the estimated size in bytes of the cached properties.
+ *
+ * Elements are invalidated whenever they are changed. The cache also keeps track
+ * of the elements changed in the current transaction, so their entries can be
+ * dropped if it is rolled back.
+ */
+public class DuckPropertyCache implements DuckTransaction.Listener {
+
+	/** Default maximum size of the cache, as estimated by {@link #estimateSize(Map)}. */
+	public static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+	private static final int ENTRY_OVERHEAD = 64;
+	private static final int PROPERTY_OVERHEAD = 48;
+
+	private final Cache<Long, Map<String, Object>> cache;
+	private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+	private volatile boolean allDirty;
+
+	public DuckPropertyCache(long maxSize) {
+		this.cache = CacheBuilder.newBuilder()
+			.maximumWeight(maxSize)
+			.weigher((Long id, Map<String, Object> props) -> estimateSize(props))
+			.build();
+	}
+
+	/**
+	 * Returns the cached properties of the element, or <code>null</code> if they
+	 * have not been loaded yet. The returned map must not be modified.
+	 */
+	public Map<String, Object> get(long elemId) {
+		return cache.getIfPresent(elemId);
+	}
+
+	/**
+	 * Caches all the properties of the element.
+	 */
+	public void put(long elemId, Map<String, Object> props) {
+		cache.put(elemId, Collections.unmodifiableMap(props));
+	}
+
+	/**
+	 * Drops the entry of an element which is being changed.
+	 */
+	public void invalidate(long elemId) {
+		dirty.add(elemId);
+		cache.invalidate(elemId);
+	}
+
+	/**
+	 * Drops all entries, e.g. after a change which affected an unknown set of elements.
+	 */
+	public void invalidateAll() {
+		allDirty = true;
+		cache.invalidateAll();
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	@Override
+	public void afterCommit() {
+		dirty.clear();
+		allDirty = false;
+	}
+
+	@Override
+	public void afterRollback() {
+		/*
+		 * Entries for elements changed in the transaction may have been loaded
+		 * with the changes that have been just rolled back.
+		 */
+		if (allDirty) {
+			cache.invalidateAll();
+		} else {
+			cache.invalidateAll(dirty);
+		}
+		dirty.clear();
+		allDirty = false;
+	}
+
+	private static int estimateSize(Map<String, Object> props) {
+		int size = ENTRY_OVERHEAD;
+		for (Map.Entry<String, Object> entry : props.entrySet()) {
+			size += PROPERTY_OVERHEAD + 2 * entry.getKey().length() + estimateSize(entry.getValue());
+		}
+		return size;
+	}
+
+	private static int estimateSize(Object value) {
+		if (value instanceof String) {
+			return 2 * ((String) value).length();
+		} else if (value instanceof byte[]) {
+			return ((byte[]) value).length;
+		} else if (value != null && value.getClass().isArray()) {
+			return 8 * Array.getLength(value);
+		}
+		return 16;
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Scans the values of a property with certain types, reading them into
+ * {@link DuckColumnBatch}es. Values are read as longs or as doubles, depending on
+ * how the scan is created.
+ */
+class DuckPropertyScan extends DuckChunkedScan<DuckColumnBatch> {
+
+	private final DuckDatabase db;
+	private final boolean asDouble;
+	private long[] longValues;
+	private double[] doubleValues;
+
+	/**
+	 * Creates a new scan.
+	 *
+	 * @param fromWhere <code>FROM ... WHERE ...</code> part of the query, where the properties table has the <code>p</code> alias.
+	 * @param types Types of the values to be read: values of other types are skipped.
+	 * @param asDouble If <code>true</code>, values are read as doubles, and otherwise as longs.
+	 */
+	DuckPropertyScan(DuckDatabase db, String fromWhere, PropertyValueType[] types, boolean asDouble, int fetchSize, Object... params) {
+		super(db, "p.elem_id", PropertyValueType.sqlTypedColumn(types),
+			String.format("%s AND p.%s IN (%s)", fromWhere, PropertyValueType.TAG_COLUMN, sqlTags(types)),
+			false, fetchSize, params);
+		this.db = db;
+		this.asDouble = asDouble;
+	}
+
+	@Override
+	protected void beforeQuery() throws SQLException {
+		// Values set in the current transaction may still be in the property buffer
+		db.flushPropertiesBeforeQuery();
+	}
+
+	private static String sqlTags(PropertyValueType[] types) {
+		final StringBuilder sb = new StringBuilder();
+		for (PropertyValueType vt : types) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(vt.getTag());
+		}
+		return sb.toString();
+	}
+
+	@Override
+	protected void startChunk(int capacity) {
+		if (asDouble) {
+			doubleValues = new double[capacity];
+		} else {
+			longValues = new long[capacity];
+		}
+	}
+
+	@Override
+	protected void readRow(ResultSet rs, int row) throws SQLException {
+		if (asDouble) {
+			doubleValues[row] = rs.getDouble(2);
+		} else {
+			longValues[row] = rs.getLong(2);
+		}
+	}
+
+	@Override
+	protected DuckColumnBatch finishChunk(long[] keys, int size) {
+		if (asDouble) {
+			return new DuckColumnBatch(keys, null, size == doubleValues.length ? doubleValues : Arrays.copyOf(doubleValues, size));
+		} else {
+			return new DuckColumnBatch(keys, size == longValues.length ? longValues : Arrays.copyOf(longValues, size), null);
+		}
+	}
+
+}
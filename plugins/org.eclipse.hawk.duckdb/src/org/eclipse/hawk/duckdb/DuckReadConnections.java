@@ -0,0 +1,128 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.duckdb.DuckDBConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of read connections duplicated from the primary DuckDB connection. Each
+ * read connection is confined to one thread, and has its own statement cache.
+ * Read connections run in autocommit mode, so every query sees the latest
+ * committed state of the database.
+ *
+ * Connections are handed out on first use by a thread. Once all of them have
+ * been handed out, the connections of finished threads are reused, and other
+ * threads get no read connection.
+ */
+public class DuckReadConnections implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DuckReadConnections.class);
+
+	private static final class ReadConnection {
+		private final Connection connection;
+		private final DuckStatementCache statements;
+		private Thread owner;
+
+		private ReadConnection(Connection connection, Thread owner) {
+			this.connection = connection;
+			this.statements = new DuckStatementCache(connection);
+			this.owner = owner;
+		}
+	}
+
+	private final DuckDBConnection primary;
+	private final int maxConnections;
+	private final ThreadLocal<ReadConnection> current = new ThreadLocal<>();
+	private final List<ReadConnection> connections = new ArrayList<>();
+	private boolean closed;
+
+	public DuckReadConnections(DuckDBConnection primary, int maxConnections) {
+		if (maxConnections < 1) {
+			throw new IllegalArgumentException("Maximum number of connections must be positive, but was " + maxConnections);
+		}
+		this.primary = primary;
+		this.maxConnections = maxConnections;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Returns the number of read connections opened so far.
+	 */
+	public synchronized int size() {
+		return connections.size();
+	}
+
+	/**
+	 * Returns the read connection of the current thread, or <code>null</code> if
+	 * no connection is available for it.
+	 */
+	public Connection getConnection() throws SQLException {
+		final ReadConnection rc = acquire();
+		return rc == null ? null : rc.connection;
+	}
+
+	/**
+	 * Returns the cached statement for the SQL text in the read connection of the
+	 * current thread, or <code>null</code> if no connection is available for it.
+	 */
+	public PreparedStatement prepare(String sql) throws SQLException {
+		final ReadConnection rc = acquire();
+		return rc == null ? null : rc.statements.get(sql);
+	}
+
+	@Override
+	public synchronized void close() {
+		closed = true;
+		for (ReadConnection rc : connections) {
+			rc.statements.close();
+			try {
+				rc.connection.close();
+			} catch (SQLException e) {
+				LOGGER.error("Could not close read connection", e);
+			}
+		}
+		connections.clear();
+	}
+
+	private ReadConnection acquire() throws SQLException {
+		ReadConnection rc = current.get();
+		if (rc != null) {
+			return rc;
+		}
+
+		synchronized (this) {
+			if (closed) {
+				return null;
+			}
+
+			final Thread thread = Thread.currentThread();
+			for (ReadConnection other : connections) {
+				if (!other.owner.isAlive()) {
+					other.owner = thread;
+					current.set(other);
+					return other;
+				}
+			}
+			if (connections.size() >= maxConnections) {
+				return null;
+			}
+
+			final Connection connection = primary.duplicate();
+			connection.setAutoCommit(true);
+			rc = new ReadConnection(connection, thread);
+			connections.add(rc);
+			current.set(rc);
+			return rc;
+		}
+	}
+
+}
@@ -0,0 +1,179 @@
+package org.eclipse.hawk.duckdb;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded LRU cache of prepared statements, keyed by their SQL text. Statements
+ * are owned by the cache: users must not close them, and must fully consume any
+ * result sets before preparing the same SQL again (DuckDB closes the previous
+ * result set of a statement when it is re-executed).
+ *
+ * A statement cannot be bound and executed by several threads at once, so each
+ * thread has its own statements. The statements of a thread are closed when
+ * another thread starts using the cache after it has finished.
+ *
+ * DuckDB aborts the pending query of a connection when another query starts on
+ * it, even from a different statement. Caches for connections shared between
+ * threads therefore run every execution while holding the monitor of the
+ * connection (see {@link DuckSynchronizedStatement}), and callers that need
+ * several statements in a row (e.g. to fill and read a temporary table) should
+ * hold that monitor as well.
+ */
+public class DuckStatementCache implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DuckStatementCache.class);
+
+	public static final int DEFAULT_MAX_SIZE = 128;
+
+	/**
+	 * Statements prepared by a single thread.
+	 */
+	private final class ThreadStatements extends LinkedHashMap<String, PreparedStatement> {
+		private static final long serialVersionUID = 1L;
+
+		private final transient Thread owner = Thread.currentThread();
+		private volatile boolean closed;
+
+		private ThreadStatements() {
+			// Access order turns the LinkedHashMap into an LRU structure
+			super(16, 0.75f, true);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+			if (size() > maxSize) {
+				closeQuietly(eldest.getKey(), eldest.getValue());
+				return true;
+			}
+			return false;
+		}
+
+		private synchronized void closeAll() {
+			closed = true;
+			for (Iterator<Map.Entry<String, PreparedStatement>> it = entrySet().iterator(); it.hasNext(); ) {
+				Map.Entry<String, PreparedStatement> entry = it.next();
+				closeQuietly(entry.getKey(), entry.getValue());
+				it.remove();
+			}
+		}
+	}
+
+	private final Connection duckDB;
+	private final int maxSize;
+	private final boolean shared;
+	private final ThreadLocal<ThreadStatements> current = new ThreadLocal<>();
+	private final List<ThreadStatements> threads = new ArrayList<>();
+
+	public DuckStatementCache(Connection duckDB) {
+		this(duckDB, DEFAULT_MAX_SIZE);
+	}
+
+	public DuckStatementCache(Connection duckDB, int maxSize) {
+		this(duckDB, maxSize, false);
+	}
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param shared
+	 *            If <code>true</code>, the connection is used by several threads
+	 *            and statement executions are serialized on its monitor.
+	 */
+	public DuckStatementCache(Connection duckDB, int maxSize, boolean shared) {
+		this.duckDB = duckDB;
+		this.maxSize = maxSize;
+		this.shared = shared;
+	}
+
+	/**
+	 * Returns the cached statement of the current thread for the SQL text,
+	 * preparing it on a miss.
+	 */
+	public PreparedStatement get(String sql) throws SQLException {
+		ThreadStatements statements = current.get();
+		if (statements == null || statements.closed) {
+			statements = register();
+		}
+
+		synchronized (statements) {
+			PreparedStatement stmt = statements.get(sql);
+			if (stmt == null || stmt.isClosed()) {
+				// DuckDB closes statements whose execution failed
+				stmt = prepare(sql);
+				statements.put(sql, stmt);
+			}
+			return stmt;
+		}
+	}
+
+	/**
+	 * Returns the number of statements cached for all threads.
+	 */
+	public synchronized int size() {
+		int size = 0;
+		for (ThreadStatements statements : threads) {
+			synchronized (statements) {
+				size += statements.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Closes and forgets all the cached statements.
+	 */
+	public synchronized void clear() {
+		for (ThreadStatements statements : threads) {
+			statements.closeAll();
+		}
+		threads.clear();
+	}
+
+	@Override
+	public void close() {
+		clear();
+	}
+
+	private PreparedStatement prepare(String sql) throws SQLException {
+		if (!shared) {
+			return duckDB.prepareStatement(sql);
+		}
+		synchronized (duckDB) {
+			return new DuckSynchronizedStatement(duckDB, duckDB.prepareStatement(sql));
+		}
+	}
+
+	private synchronized ThreadStatements register() {
+		for (Iterator<ThreadStatements> it = threads.iterator(); it.hasNext(); ) {
+			ThreadStatements other = it.next();
+			if (!other.owner.isAlive()) {
+				other.closeAll();
+				it.remove();
+			}
+		}
+
+		final ThreadStatements statements = new ThreadStatements();
+		threads.add(statements);
+		current.set(statements);
+		return statements;
+	}
+
+	private static void closeQuietly(String sql, PreparedStatement stmt) {
+		try {
+			stmt.close();
+		} catch (SQLException e) {
+			LOGGER.warn("Could not close cached statement: " + sql, e);
+		}
+	}
+
+}
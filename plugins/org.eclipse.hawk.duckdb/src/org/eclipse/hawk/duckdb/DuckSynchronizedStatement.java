@@ -0,0 +1,653 @@
+package org.eclipse.hawk.duckdb;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLType;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+/**
+ * Prepared statement whose executions hold the monitor of a lock object, for
+ * connections shared between threads: DuckDB aborts the pending query of a
+ * connection when another one starts on it. Result sets are materialised by
+ * DuckDB, so they can be read after the monitor has been released. All other
+ * methods are simply delegated to the wrapped statement.
+ */
+final class DuckSynchronizedStatement implements PreparedStatement {
+
+	private final Object lock;
+	private final PreparedStatement stmt;
+
+	DuckSynchronizedStatement(Object lock, PreparedStatement stmt) {
+		this.lock = lock;
+		this.stmt = stmt;
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		stmt.addBatch();
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException {
+		stmt.addBatch(sql);
+	}
+
+	@Override
+	public void cancel() throws SQLException {
+		stmt.cancel();
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		stmt.clearBatch();
+	}
+
+	@Override
+	public void clearParameters() throws SQLException {
+		stmt.clearParameters();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		stmt.clearWarnings();
+	}
+
+	@Override
+	public void close() throws SQLException {
+		stmt.close();
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException {
+		stmt.closeOnCompletion();
+	}
+
+	@Override
+	public String enquoteIdentifier(String identifier, boolean alwaysQuote) throws SQLException {
+		return stmt.enquoteIdentifier(identifier, alwaysQuote);
+	}
+
+	@Override
+	public String enquoteLiteral(String val) throws SQLException {
+		return stmt.enquoteLiteral(val);
+	}
+
+	@Override
+	public String enquoteNCharLiteral(String val) throws SQLException {
+		return stmt.enquoteNCharLiteral(val);
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		synchronized (lock) {
+			return stmt.execute();
+		}
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		synchronized (lock) {
+			return stmt.execute(sql);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+		synchronized (lock) {
+			return stmt.execute(sql, columnIndexes);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException {
+		synchronized (lock) {
+			return stmt.execute(sql, columnNames);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+		synchronized (lock) {
+			return stmt.execute(sql, autoGeneratedKeys);
+		}
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		synchronized (lock) {
+			return stmt.executeBatch();
+		}
+	}
+
+	@Override
+	public long[] executeLargeBatch() throws SQLException {
+		synchronized (lock) {
+			return stmt.executeLargeBatch();
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate() throws SQLException {
+		synchronized (lock) {
+			return stmt.executeLargeUpdate();
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql) throws SQLException {
+		synchronized (lock) {
+			return stmt.executeLargeUpdate(sql);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		synchronized (lock) {
+			return stmt.executeLargeUpdate(sql, columnIndexes);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+		synchronized (lock) {
+			return stmt.executeLargeUpdate(sql, columnNames);
+		}
+	}
+
+	@Override
+	public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		synchronized (lock) {
+			return stmt.executeLargeUpdate(sql, autoGeneratedKeys);
+		}
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		synchronized (lock) {
+			return stmt.executeQuery();
+		}
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException {
+		synchronized (lock) {
+			return stmt.executeQuery(sql);
+		}
+	}
+
+	@Override
+	public int executeUpdate() throws SQLException {
+		synchronized (lock) {
+			return stmt.executeUpdate();
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		synchronized (lock) {
+			return stmt.executeUpdate(sql);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		synchronized (lock) {
+			return stmt.executeUpdate(sql, columnIndexes);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+		synchronized (lock) {
+			return stmt.executeUpdate(sql, columnNames);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		synchronized (lock) {
+			return stmt.executeUpdate(sql, autoGeneratedKeys);
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return stmt.getConnection();
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException {
+		return stmt.getFetchDirection();
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		return stmt.getFetchSize();
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException {
+		return stmt.getGeneratedKeys();
+	}
+
+	@Override
+	public long getLargeMaxRows() throws SQLException {
+		return stmt.getLargeMaxRows();
+	}
+
+	@Override
+	public long getLargeUpdateCount() throws SQLException {
+		return stmt.getLargeUpdateCount();
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException {
+		return stmt.getMaxFieldSize();
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException {
+		return stmt.getMaxRows();
+	}
+
+	@Override
+	public ResultSetMetaData getMetaData() throws SQLException {
+		return stmt.getMetaData();
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException {
+		return stmt.getMoreResults();
+	}
+
+	@Override
+	public boolean getMoreResults(int current) throws SQLException {
+		return stmt.getMoreResults(current);
+	}
+
+	@Override
+	public ParameterMetaData getParameterMetaData() throws SQLException {
+		return stmt.getParameterMetaData();
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException {
+		return stmt.getQueryTimeout();
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		return stmt.getResultSet();
+	}
+
+	@Override
+	public int getResultSetConcurrency() throws SQLException {
+		return stmt.getResultSetConcurrency();
+	}
+
+	@Override
+	public int getResultSetHoldability() throws SQLException {
+		return stmt.getResultSetHoldability();
+	}
+
+	@Override
+	public int getResultSetType() throws SQLException {
+		return stmt.getResultSetType();
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		return stmt.getUpdateCount();
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		return stmt.getWarnings();
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() throws SQLException {
+		return stmt.isCloseOnCompletion();
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return stmt.isClosed();
+	}
+
+	@Override
+	public boolean isPoolable() throws SQLException {
+		return stmt.isPoolable();
+	}
+
+	@Override
+	public boolean isSimpleIdentifier(String identifier) throws SQLException {
+		return stmt.isSimpleIdentifier(identifier);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return stmt.isWrapperFor(iface);
+	}
+
+	@Override
+	public void setArray(int parameterIndex, Array x) throws SQLException {
+		stmt.setArray(parameterIndex, x);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+		stmt.setAsciiStream(parameterIndex, x);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		stmt.setAsciiStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		stmt.setAsciiStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+		stmt.setBigDecimal(parameterIndex, x);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+		stmt.setBinaryStream(parameterIndex, x);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		stmt.setBinaryStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+		stmt.setBinaryStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+		stmt.setBlob(parameterIndex, inputStream);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, Blob x) throws SQLException {
+		stmt.setBlob(parameterIndex, x);
+	}
+
+	@Override
+	public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+		stmt.setBlob(parameterIndex, inputStream, length);
+	}
+
+	@Override
+	public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+		stmt.setBoolean(parameterIndex, x);
+	}
+
+	@Override
+	public void setByte(int parameterIndex, byte x) throws SQLException {
+		stmt.setByte(parameterIndex, x);
+	}
+
+	@Override
+	public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+		stmt.setBytes(parameterIndex, x);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+		stmt.setCharacterStream(parameterIndex, reader);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+		stmt.setCharacterStream(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+		stmt.setCharacterStream(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader) throws SQLException {
+		stmt.setClob(parameterIndex, reader);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Clob x) throws SQLException {
+		stmt.setClob(parameterIndex, x);
+	}
+
+	@Override
+	public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		stmt.setClob(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException {
+		stmt.setCursorName(name);
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x) throws SQLException {
+		stmt.setDate(parameterIndex, x);
+	}
+
+	@Override
+	public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+		stmt.setDate(parameterIndex, x, cal);
+	}
+
+	@Override
+	public void setDouble(int parameterIndex, double x) throws SQLException {
+		stmt.setDouble(parameterIndex, x);
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) throws SQLException {
+		stmt.setEscapeProcessing(enable);
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException {
+		stmt.setFetchDirection(direction);
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		stmt.setFetchSize(rows);
+	}
+
+	@Override
+	public void setFloat(int parameterIndex, float x) throws SQLException {
+		stmt.setFloat(parameterIndex, x);
+	}
+
+	@Override
+	public void setInt(int parameterIndex, int x) throws SQLException {
+		stmt.setInt(parameterIndex, x);
+	}
+
+	@Override
+	public void setLargeMaxRows(long max) throws SQLException {
+		stmt.setLargeMaxRows(max);
+	}
+
+	@Override
+	public void setLong(int parameterIndex, long x) throws SQLException {
+		stmt.setLong(parameterIndex, x);
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) throws SQLException {
+		stmt.setMaxFieldSize(max);
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		stmt.setMaxRows(max);
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+		stmt.setNCharacterStream(parameterIndex, value);
+	}
+
+	@Override
+	public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+		stmt.setNCharacterStream(parameterIndex, value, length);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+		stmt.setNClob(parameterIndex, reader);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, NClob value) throws SQLException {
+		stmt.setNClob(parameterIndex, value);
+	}
+
+	@Override
+	public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+		stmt.setNClob(parameterIndex, reader, length);
+	}
+
+	@Override
+	public void setNString(int parameterIndex, String value) throws SQLException {
+		stmt.setNString(parameterIndex, value);
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType) throws SQLException {
+		stmt.setNull(parameterIndex, sqlType);
+	}
+
+	@Override
+	public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+		stmt.setNull(parameterIndex, sqlType, typeName);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x) throws SQLException {
+		stmt.setObject(parameterIndex, x);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+		stmt.setObject(parameterIndex, x, targetSqlType);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType) throws SQLException {
+		stmt.setObject(parameterIndex, x, targetSqlType);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+		stmt.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+	}
+
+	@Override
+	public void setObject(int parameterIndex, Object x, SQLType targetSqlType, int scaleOrLength) throws SQLException {
+		stmt.setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) throws SQLException {
+		stmt.setPoolable(poolable);
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException {
+		stmt.setQueryTimeout(seconds);
+	}
+
+	@Override
+	public void setRef(int parameterIndex, Ref x) throws SQLException {
+		stmt.setRef(parameterIndex, x);
+	}
+
+	@Override
+	public void setRowId(int parameterIndex, RowId x) throws SQLException {
+		stmt.setRowId(parameterIndex, x);
+	}
+
+	@Override
+	public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+		stmt.setSQLXML(parameterIndex, xmlObject);
+	}
+
+	@Override
+	public void setShort(int parameterIndex, short x) throws SQLException {
+		stmt.setShort(parameterIndex, x);
+	}
+
+	@Override
+	public void setString(int parameterIndex, String x) throws SQLException {
+		stmt.setString(parameterIndex, x);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x) throws SQLException {
+		stmt.setTime(parameterIndex, x);
+	}
+
+	@Override
+	public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+		stmt.setTime(parameterIndex, x, cal);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+		stmt.setTimestamp(parameterIndex, x);
+	}
+
+	@Override
+	public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+		stmt.setTimestamp(parameterIndex, x, cal);
+	}
+
+	@Override
+	public void setURL(int parameterIndex, URL x) throws SQLException {
+		stmt.setURL(parameterIndex, x);
+	}
+
+	@Override
+	@Deprecated
+	public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+		stmt.setUnicodeStream(parameterIndex, x, length);
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		return stmt.unwrap(iface);
+	}
+
+}
@@ -2,7 +2,8 @@ package org.eclipse.hawk.duckdb;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.hawk.core.graph.IGraphTransaction;
 import org.slf4j.Logger;
@@ -16,7 +17,35 @@ public class DuckTransaction implements IGraphTransaction {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(DuckTransaction.class);
 
+	/**
+	 * Callback for components that keep state which depends on the outcome of
+	 * the transaction.
+	 */
+	public interface Listener {
+		/**
+		 * Invoked before committing, e.g. to write out any buffered changes.
+		 */
+		default void beforeCommit() throws SQLException {
+			// nothing to do by default
+		}
+
+		/**
+		 * Invoked after a successful commit.
+		 */
+		default void afterCommit() {
+			// nothing to do by default
+		}
+
+		/**
+		 * Invoked after rolling back, e.g. to discard any buffered changes.
+		 */
+		default void afterRollback() {
+			// nothing to do by default
+		}
+	}
+
 	private final Connection duckDB;
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
 	private boolean active;
 
 	public DuckTransaction(Connection duckDB) {
@@ -24,16 +53,47 @@ public class DuckTransaction implements IGraphTransaction {
 		this.active = true;
 	}
 
+	/**
+	 * Commits the transaction through {@link #commit()}.
+	 *
+	 * @throws IllegalStateException
+	 *             The transaction could not be committed, and has been rolled back.
+	 */
 	@Override
 	public void success() {
 		try {
+			commit();
+		} catch (SQLException e) {
+			throw new IllegalStateException("Failed to commit the transaction", e);
+		}
+	}
+
+	/**
+	 * Runs the {@link Listener#beforeCommit()} callbacks and commits the
+	 * transaction. If a callback or the commit fails, the transaction is rolled
+	 * back through {@link #failure()} and the exception is rethrown.
+	 */
+	public void commit() throws SQLException {
+		try {
+			for (Listener l : listeners) {
+				l.beforeCommit();
+			}
+
 			if (DuckDatabase.DEBUG_SQL) {
 				System.out.println("COMMIT");
 			}
-			duckDB.commit();
+			synchronized (duckDB) {
+				duckDB.commit();
+			}
 			active = false;
-		} catch (SQLException e) {
-			LOGGER.error("Failed to commit", e);
+		} catch (SQLException | RuntimeException e) {
+			LOGGER.error("Failed to commit, rolling back", e);
+			failure();
+			throw e;
+		}
+
+		for (Listener l : listeners) {
+			l.afterCommit();
 		}
 	}
 
@@ -43,11 +103,25 @@ public class DuckTransaction implements IGraphTransaction {
 			if (DuckDatabase.DEBUG_SQL) {
 				System.out.println("ROLLBACK");
 			}
-			duckDB.rollback();
+			synchronized (duckDB) {
+				duckDB.rollback();
+			}
 			active = false;
 		} catch (SQLException e) {
 			LOGGER.error("Failed to rollback", e);
 		}
+
+		for (Listener l : listeners) {
+			l.afterRollback();
+		}
+	}
+
+	public void addListener(Listener l) {
+		listeners.add(l);
+	}
+
+	public void removeListener(Listener l) {
+		listeners.remove(l);
 	}
 
 	@Override
@@ -56,18 +130,12 @@ public class DuckTransaction implements IGraphTransaction {
 	}
 
 	public void begin() {
-		if (!active) {
-			try (Statement stmt = duckDB.createStatement()) {
-				final String sql = "BEGIN TRANSACTION";
-				if (DuckDatabase.DEBUG_SQL) {
-					System.out.println(sql);
-				}
-				stmt.execute(sql);
-				active = true;
-			} catch (SQLException e) {
-				LOGGER.error("Failed to start a transaction", e);
-			}
-		}
+		/*
+		 * With autocommit disabled, the DuckDB JDBC driver starts a new transaction
+		 * on its own with the first statement after a commit or a rollback: running
+		 * BEGIN TRANSACTION ourselves would fail.
+		 */
+		active = true;
 	}
 
 }
@@ -1,22 +1,23 @@
 package org.eclipse.hawk.duckdb;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.sql.Array;
+import java.sql.Blob;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
-import org.apache.commons.codec.DecoderException;
-import org.apache.commons.codec.binary.Hex;
+import org.duckdb.DuckDBAppender;
 
 /**
  * Types of values that a node or edge property can be set to.
  */
 public enum PropertyValueType {
-	BOOLEAN {
+	BOOLEAN(1) {
 		@Override
 		String getColumnName() {
 			return "value_boolean";
@@ -27,6 +28,16 @@ public enum PropertyValueType {
 			stmt.setBoolean(index, (boolean) value);
 		}
 
+		@Override
+		void appendValue(DuckDBAppender appender, Object value) throws SQLException {
+			appender.append((boolean) value);
+		}
+
+		@Override
+		void writeValue(DuckCSVWriter writer, Object value) throws IOException {
+			writer.writeBoolean((boolean) value);
+		}
+
 		@Override
 		String getColumnType() {
 			return "BOOLEAN";
@@ -37,7 +48,7 @@ public enum PropertyValueType {
 			boolean b = rs.getBoolean(index);
 			return rs.wasNull() ? null : b;
 		}
-	}, LONG {
+	}, LONG(2) {
 		@Override
 		String getColumnName() {
 			return "value_long";
@@ -48,6 +59,16 @@ public enum PropertyValueType {
 			stmt.setLong(index, ((Number) value).longValue());
 		}
 
+		@Override
+		void appendValue(DuckDBAppender appender, Object value) throws SQLException {
+			appender.append(((Number) value).longValue());
+		}
+
+		@Override
+		void writeValue(DuckCSVWriter writer, Object value) throws IOException {
+			writer.writeLong(((Number) value).longValue());
+		}
+
 		@Override
 		String getColumnType() {
 			return "BIGINT";
@@ -58,7 +79,7 @@ public enum PropertyValueType {
 			long b = rs.getLong(index);
 			return rs.wasNull() ? null : b;
 		}
-	},  INTEGER {
+	}, INTEGER(3) {
 		@Override
 		String getColumnName() {
 			return "value_int";
@@ -69,6 +90,16 @@ public enum PropertyValueType {
 			stmt.setInt(index, ((Number) value).intValue());
 		}
 
+		@Override
+		void appendValue(DuckDBAppender appender, Object value) throws SQLException {
+			appender.append(((Number) value).intValue());
+		}
+
+		@Override
+		void writeValue(DuckCSVWriter writer, Object value) throws IOException {
+			writer.writeInt(((Number) value).intValue());
+		}
+
 		@Override
 		String getColumnType() {
 			return "INTEGER";
@@ -79,7 +110,7 @@ public enum PropertyValueType {
 			int b = rs.getInt(index);
 			return rs.wasNull() ? null : b;
 		}
-	}, FLOAT {
+	}, FLOAT(4) {
 		@Override
 		String getColumnName() {
 			return "value_float";
@@ -90,6 +121,16 @@ public enum PropertyValueType {
 			stmt.setDouble(index, ((Number) value).floatValue());
 		}
 
+		@Override
+		void appendValue(DuckDBAppender appender, Object value) throws SQLException {
+			appender.append(((Number) value).floatValue());
+		}
+
+		@Override
+		void writeValue(DuckCSVWriter writer, Object value) throws IOException {
+			writer.writeFloat(((Number) value).floatValue());
+		}
+
 		@Override
 		String getColumnType() {
 			return "FLOAT";
@@ -100,7 +141,7 @@ public enum PropertyValueType {
 			float b = rs.getFloat(index);
 			return rs.wasNull() ? null : b;
 		}
-	}, DOUBLE {
+	}, DOUBLE(5) {
 		@Override
 		String getColumnName() {
 			return "value_double";
@@ -111,6 +152,16 @@ public enum PropertyValueType {
 			stmt.setDouble(index, ((Number) value).doubleValue());
 		}
 
+		@Override
+		void appendValue(DuckDBAppender appender, Object value) throws SQLException {
+			appender.append(((Number) value).doubleValue());
+		}
+
+		@Override
+		void writeValue(DuckCSVWriter writer, Object value) throws IOException {
+			writer.writeDouble(((Number) value).doubleValue());
+		}
+
 		@Override
 		String getColumnType() {
 			return "DOUBLE";
@@ -121,7 +172,7 @@ public enum PropertyValueType {
 			double b = rs.getDouble(index);
 			return rs.wasNull() ? null : b;
 		}
-	}, STRING {
+	}, STRING(6) {
 		@Override
 		String getColumnName() {
 			return "value_string";
@@ -132,6 +183,16 @@ public enum PropertyValueType {
 			stmt.setString(index, (String)value);
 		}
 
+		@Override
+		void appendValue(DuckDBAppender appender, Object value) throws SQLException {
+			appender.append((String) value);
+		}
+
+		@Override
+		void writeValue(DuckCSVWriter writer, Object value) throws IOException {
+			writer.writeString((String) value);
+		}
+
 		@Override
 		String getColumnType() {
 			return "VARCHAR";
@@ -141,28 +202,28 @@ public enum PropertyValueType {
 		Object getValue(ResultSet rs, int index) throws SQLException {
 			return rs.getString(index);
 		}
-	}, BLOB {
+	}, BLOB(7) {
 		@Override
 		String getColumnName() {
 			return "value_blob";
 		}
-		
-		@Override
-		String getColumnExpression() {
-			// TODO GABOR: workaround over the fact that DuckDB's JDBC backend does not allow for directly SELECTing BLOB columns
-			return "CAST(value_blob AS VARCHAR)";
-		}
 
 		@Override
 		void setParameter(PreparedStatement stmt, int index, Object value)
 			throws SQLException, IOException {
-			try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-				 ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-				oos.writeObject(value);
-				final String hexString = "\\x" + Hex.encodeHexString(bos.toByteArray());
-				stmt.setString(index, hexString);
-			}
-		}			
+			stmt.setBytes(index, DuckBlobCodec.encode(value));
+		}
+
+		@Override
+		void appendValue(DuckDBAppender appender, Object value) throws SQLException, IOException {
+			// The appender can only take BLOBs as literals
+			appender.append(DuckBlobCodec.toBlobLiteral(DuckBlobCodec.encode(value)));
+		}
+
+		@Override
+		void writeValue(DuckCSVWriter writer, Object value) throws IOException {
+			writer.writeString(DuckBlobCodec.toBlobLiteral(DuckBlobCodec.encode(value)));
+		}
 
 		@Override
 		String getColumnType() {
@@ -171,25 +232,172 @@ public enum PropertyValueType {
 
 		@Override
 		Object getValue(ResultSet rs, int index) throws SQLException, IOException, ClassNotFoundException {
-			String s = rs.getString(index);
-			if (s == null) { 
+			final Blob blob = rs.getBlob(index);
+			if (blob == null) {
+				return null;
+			}
+			return DuckBlobCodec.decode(blob.getBytes(1, (int) blob.length()));
+		}
+	}, INTEGER_LIST(8) {
+		@Override
+		String getColumnName() {
+			return "value_int_list";
+		}
+
+		@Override
+		String getColumnType() {
+			return "INTEGER[]";
+		}
+
+		@Override
+		PropertyValueType getElementType() {
+			return INTEGER;
+		}
+
+		@Override
+		Object getValue(ResultSet rs, int index) throws SQLException {
+			final Object[] elements = getElements(rs, index);
+			if (elements == null) {
+				return null;
+			}
+
+			final int[] values = new int[elements.length];
+			for (int i = 0; i < elements.length; i++) {
+				values[i] = ((Number) elements[i]).intValue();
+			}
+			return values;
+		}
+	}, LONG_LIST(9) {
+		@Override
+		String getColumnName() {
+			return "value_long_list";
+		}
+
+		@Override
+		String getColumnType() {
+			return "BIGINT[]";
+		}
+
+		@Override
+		PropertyValueType getElementType() {
+			return LONG;
+		}
+
+		@Override
+		Object getValue(ResultSet rs, int index) throws SQLException {
+			final Object[] elements = getElements(rs, index);
+			if (elements == null) {
+				return null;
+			}
+
+			final long[] values = new long[elements.length];
+			for (int i = 0; i < elements.length; i++) {
+				values[i] = ((Number) elements[i]).longValue();
+			}
+			return values;
+		}
+	}, DOUBLE_LIST(10) {
+		@Override
+		String getColumnName() {
+			return "value_double_list";
+		}
+
+		@Override
+		String getColumnType() {
+			return "DOUBLE[]";
+		}
+
+		@Override
+		PropertyValueType getElementType() {
+			return DOUBLE;
+		}
+
+		@Override
+		Object getValue(ResultSet rs, int index) throws SQLException {
+			final Object[] elements = getElements(rs, index);
+			if (elements == null) {
 				return null;
 			}
-			
-			try {
-				// Remove '\x' header from DuckDB and decode
-				byte[] bytes = Hex.decodeHex(s.substring(2).toCharArray());
-
-				try (ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
-						 ObjectInputStream ois = new ObjectInputStream(bis)) {
-					return ois.readObject();
-				}
-			} catch (DecoderException e) {
-				throw new IOException(e);
+
+			final double[] values = new double[elements.length];
+			for (int i = 0; i < elements.length; i++) {
+				values[i] = ((Number) elements[i]).doubleValue();
 			}
+			return values;
+		}
+	}, STRING_LIST(11) {
+		@Override
+		String getColumnName() {
+			return "value_string_list";
+		}
+
+		@Override
+		String getColumnType() {
+			return "VARCHAR[]";
+		}
+
+		@Override
+		PropertyValueType getElementType() {
+			return STRING;
+		}
+
+		@Override
+		Object getValue(ResultSet rs, int index) throws SQLException {
+			final Object[] elements = getElements(rs, index);
+			if (elements == null) {
+				return null;
+			}
+
+			final String[] values = new String[elements.length];
+			for (int i = 0; i < elements.length; i++) {
+				values[i] = (String) elements[i];
+			}
+			return values;
 		}
 	};
-	
+
+	/**
+	 * Column which stores the {@link #getTag()} of the type of each property value,
+	 * so only the matching value column needs to be read. It comes after the value
+	 * columns, as it was added to existing tables later.
+	 */
+	static final String TAG_COLUMN = "value_type";
+	static final String TAG_COLUMN_TYPE = "TINYINT";
+
+	private static final PropertyValueType[] SCALAR_VALUES;
+	private static final PropertyValueType[] LIST_VALUES;
+	private static final PropertyValueType[] BY_TAG;
+	static {
+		SCALAR_VALUES = Arrays.stream(values()).filter(vt -> !vt.isList()).toArray(PropertyValueType[]::new);
+		LIST_VALUES = Arrays.stream(values()).filter(PropertyValueType::isList).toArray(PropertyValueType[]::new);
+
+		BY_TAG = new PropertyValueType[values().length + 1];
+		for (PropertyValueType vt : values()) {
+			BY_TAG[vt.tag] = vt;
+		}
+	}
+
+	private final byte tag;
+
+	private PropertyValueType(int tag) {
+		this.tag = (byte) tag;
+	}
+
+	/**
+	 * Returns the value stored in the type tag column for this type. Unlike the
+	 * ordinal, it must never change for an existing type.
+	 */
+	byte getTag() {
+		return tag;
+	}
+
+	/**
+	 * Returns the type with the given tag, or <code>null</code> if there is none.
+	 */
+	static PropertyValueType fromTag(int tag) {
+		return tag > 0 && tag < BY_TAG.length ? BY_TAG[tag] : null;
+	}
+
 	abstract String getColumnName();
 	abstract String getColumnType();
 	String getColumnExpression() {
@@ -198,8 +406,34 @@ public enum PropertyValueType {
 
 	abstract Object getValue(ResultSet rs, int index) throws SQLException, IOException, ClassNotFoundException;
 	
-	abstract void setParameter(PreparedStatement stmt, int index, Object value)
-		throws SQLException, IOException;
+	void setParameter(PreparedStatement stmt, int index, Object value)
+		throws SQLException, IOException {
+		throw new SQLFeatureNotSupportedException(name() + " values cannot be bound as parameters");
+	}
+
+	void appendValue(DuckDBAppender appender, Object value)
+		throws SQLException, IOException {
+		throw new SQLFeatureNotSupportedException(name() + " values cannot be appended: append their elements instead");
+	}
+
+	void writeValue(DuckCSVWriter writer, Object value) throws IOException {
+		throw new IOException(name() + " values cannot be written into CSV files");
+	}
+
+	/**
+	 * Returns the type of the elements of list-typed values, or <code>null</code>
+	 * if this is not a list type. List values are stored in native DuckDB LIST
+	 * columns in their own table, so they can be filtered with the list functions
+	 * in SQL. DuckDB cannot update LIST columns in tables with a primary key, so
+	 * they cannot live in the properties table.
+	 */
+	PropertyValueType getElementType() {
+		return null;
+	}
+
+	boolean isList() {
+		return getElementType() != null;
+	}
 	
 	public static PropertyValueType from(Object value) {
 		if (value instanceof Boolean) {
@@ -214,40 +448,136 @@ public enum PropertyValueType {
 			return INTEGER;
 		} else if (value instanceof String) {
 			return STRING;
+		} else if (value instanceof int[]) {
+			return INTEGER_LIST;
+		} else if (value instanceof long[]) {
+			return LONG_LIST;
+		} else if (value instanceof double[]) {
+			return DOUBLE_LIST;
+		} else if (value != null && value.getClass() == String[].class) {
+			return STRING_LIST;
 		} else {
 			return BLOB;
 		}
 	}
 
-	public static String sqlTableColumns() {
-		StringBuffer sbuf = new StringBuffer();
-		boolean first = true;
-		for (PropertyValueType vt : values()) {
-			if (first) {
-				first = false;
+	private static Object[] getElements(ResultSet rs, int index) throws SQLException {
+		final Array array = rs.getArray(index);
+		return array == null ? null : (Object[]) array.getArray();
+	}
+
+	/**
+	 * Appends all the value columns for a scalar or BLOB property, where only the
+	 * column for the given type will have a value, followed by the type tag.
+	 */
+	static void appendValueColumns(DuckDBAppender appender, PropertyValueType valueType, Object value) throws SQLException, IOException {
+		for (PropertyValueType vt : SCALAR_VALUES) {
+			if (vt == valueType) {
+				vt.appendValue(appender, value);
 			} else {
-				sbuf.append(", ");
+				// The DuckDB appender takes a null String as a null value for any column type
+				appender.append((String) null);
 			}
+		}
+		appender.append(valueType.getTag());
+	}
 
+	/**
+	 * Returns the types stored in the properties table, which excludes the list types.
+	 */
+	static PropertyValueType[] scalarValues() {
+		return SCALAR_VALUES.clone();
+	}
+
+	/**
+	 * Returns the list types, which are stored in the property lists table.
+	 */
+	static PropertyValueType[] listValues() {
+		return LIST_VALUES.clone();
+	}
+
+	/**
+	 * Returns the definitions of the value columns for these types, followed by the type tag column.
+	 */
+	public static String sqlTableColumns(PropertyValueType[] types) {
+		StringBuffer sbuf = new StringBuffer();
+		for (PropertyValueType vt : types) {
 			sbuf.append(vt.getColumnName());
 			sbuf.append(' ');
 			sbuf.append(vt.getColumnType());
+			sbuf.append(", ");
 		}
+		sbuf.append(TAG_COLUMN);
+		sbuf.append(' ');
+		sbuf.append(TAG_COLUMN_TYPE);
 		return sbuf.toString();
 	}
 
-	public static String sqlQueryColumns() {
+	/**
+	 * Returns the names of the value columns for these types, followed by the type tag column.
+	 */
+	public static String sqlColumnNames(PropertyValueType[] types) {
 		StringBuffer sbuf = new StringBuffer();
-		boolean first = true;
+		for (PropertyValueType vt : types) {
+			sbuf.append(vt.getColumnName());
+			sbuf.append(", ");
+		}
+		sbuf.append(TAG_COLUMN);
+		return sbuf.toString();
+	}
+
+	/**
+	 * Returns a CASE expression over the type tag which evaluates to the value
+	 * column of the first matching type, or to NULL for any other type. DuckDB
+	 * will cast the columns to their common supertype.
+	 */
+	public static String sqlTypedColumn(PropertyValueType... types) {
+		final StringBuilder sb = new StringBuilder("CASE ").append(TAG_COLUMN);
+		for (PropertyValueType vt : types) {
+			sb.append(String.format(" WHEN %d THEN %s", vt.getTag(), vt.getColumnName()));
+		}
+		return sb.append(" END").toString();
+	}
+
+	/**
+	 * Returns a CASE expression which computes the type tag from the first non-null
+	 * value column, for rows written before the tag column existed.
+	 */
+	static String sqlInferTag(PropertyValueType[] types) {
+		final StringBuilder sb = new StringBuilder("CASE");
+		for (PropertyValueType vt : types) {
+			sb.append(String.format(" WHEN %s IS NOT NULL THEN %d", vt.getColumnName(), vt.getTag()));
+		}
+		return sb.append(" END").toString();
+	}
+
+	/**
+	 * Returns the expressions for querying the type tag, followed by all value types
+	 * in their declaration order, using NULL for the types that are not in
+	 * <code>types</code>. This allows for combining queries on the properties and
+	 * property lists tables with UNION ALL. The results can be read with
+	 * {@link #getTaggedValue(ResultSet, int)}.
+	 */
+	public static String sqlQueryColumns(PropertyValueType[] types) {
+		final Set<PropertyValueType> included = EnumSet.noneOf(PropertyValueType.class);
+		included.addAll(Arrays.asList(types));
+
+		StringBuffer sbuf = new StringBuffer(TAG_COLUMN);
 		for (PropertyValueType vt : values()) {
-			if (first) {
-				first = false;
-			} else {
-				sbuf.append(", ");
-			}
-			
-			sbuf.append(vt.getColumnExpression());
+			sbuf.append(", ");
+			sbuf.append(included.contains(vt) ? vt.getColumnExpression() : "NULL");
 		}
 		return sbuf.toString();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Reads the value of a row queried with {@link #sqlQueryColumns(PropertyValueType[])},
+	 * whose columns start after the given offset. Only the column for the type in
+	 * the tag is read.
+	 */
+	static Object getTaggedValue(ResultSet rs, int offset) throws SQLException, IOException, ClassNotFoundException {
+		// JDBC column indices are 1-based
+		final PropertyValueType vt = fromTag(rs.getInt(offset + 1));
+		return vt == null ? null : vt.getValue(rs, offset + 2 + vt.ordinal());
+	}
+}